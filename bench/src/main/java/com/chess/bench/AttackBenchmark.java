@@ -0,0 +1,109 @@
+package com.chess.bench;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.perft.PerftPosition;
+import com.chess.engine.pieces.Piece;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* "Is this tile attacked by the side not to move?" asked for all 64 tiles, four ways:
+*   moveListScan      the old way, every enemy piece's calculateLegalMoves scanned for the tile, once per question
+*   attackersOf       Board.attackersOf per tile, worked out backwards from the tile with the attack tables
+*   attackMap         one MoveGenerator.attackMap for the whole side, then a bit test per tile
+*   isSquareAttacked  Board.isSquareAttacked, the same bit test against the map the board already keeps
+* The scan also counts pawn pushes as attacks and misses defended pieces, so it is slower and less right.
+* */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttackBenchmark {
+
+    @Param({"START", "KIWIPETE", "POSITION_4"})
+    public PerftPosition position;
+
+    private Board board;
+    private Alliance attacker;
+
+    @Setup
+    public void setUp() {
+        this.board = this.position.createBoard();
+        this.attacker = this.board.getMoveMaker().getOpposite();
+    }
+
+    @Benchmark
+    public int moveListScan() {
+        final Iterable<Piece> enemyPieces = this.attacker.isWhite() ? this.board.getWhitePieces() : this.board.getBlackPieces();
+        int attacked = 0;
+        for (int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+            if (isAttackedByScan(enemyPieces, tile)) {
+                attacked++;
+            }
+        }
+        return attacked;
+    }
+
+    private boolean isAttackedByScan(final Iterable<Piece> enemyPieces, final int tile) {
+        for (final Piece piece : enemyPieces) {
+            for (final Move move : piece.calculateLegalMoves(this.board)) {
+                if (move.getDestinationCoordinate() == tile) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public int attackersOf() {
+        int attacked = 0;
+        for (int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+            if (this.board.attackersOf(tile, this.attacker) != 0) {
+                attacked++;
+            }
+        }
+        return attacked;
+    }
+
+    @Benchmark
+    public int attackMap() {
+        final long attackMap = MoveGenerator.attackMap(this.board, this.attacker);
+        int attacked = 0;
+        for (int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+            if ((attackMap & (1L << tile)) != 0) {
+                attacked++;
+            }
+        }
+        return attacked;
+    }
+
+    @Benchmark
+    public int isSquareAttacked() {
+        int attacked = 0;
+        for (int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+            if (this.board.isSquareAttacked(tile, this.attacker)) {
+                attacked++;
+            }
+        }
+        return attacked;
+    }
+}
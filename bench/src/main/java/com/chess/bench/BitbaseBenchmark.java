@@ -0,0 +1,145 @@
+package com.chess.bench;
+
+import com.chess.engine.bitbase.Bitbase;
+import com.chess.engine.bitbase.BitbaseGenerator;
+import com.chess.engine.bitbase.Bitbases;
+import com.chess.engine.bitbase.Endgame;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.FenUtilities;
+import com.chess.engine.board.SearchBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/*
+* Endgame bitbases, made and looked up:
+*   generate     milliseconds to generate one endgame on a pool of the given number of threads. KBNK takes seconds,
+*                so it is left out of the defaults, add it with -p endgame=KBNK
+*   probeKpk     nanoseconds per probe of a KPK position, from files written in setup and mapped
+*   probeKbnk    the same for KBNK, the biggest file
+*   probeMiss    the start position, turned away by the piece count, what nearly every node in the search pays
+* Generating every endgame for the probes takes a while on few cores, it happens once per fork.
+* */
+
+@Fork(1)
+public class BitbaseBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Generation {
+
+        @Param({"1", "2", "4"})
+        public int threads;
+
+        @Param({"KQK", "KRK", "KPK"})
+        public Endgame endgame;
+
+        private ExecutorService executor;
+        private final Map<Endgame, Bitbase> generated = new EnumMap<>(Endgame.class);
+
+        @Setup
+        public void setUp() {
+            this.executor = Executors.newFixedThreadPool(this.threads);
+            if (this.endgame.hasPawn()) { // Promotions are looked up in these
+                this.generated.put(Endgame.KQK, BitbaseGenerator.generate(Endgame.KQK, this.generated, this.executor));
+                this.generated.put(Endgame.KRK, BitbaseGenerator.generate(Endgame.KRK, this.generated, this.executor));
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            this.executor.shutdown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Probe {
+
+        private Path directory;
+        private Bitbases bitbases;
+        private SearchBoard kpkBoard;
+        private SearchBoard kbnkBoard;
+        private SearchBoard missBoard;
+
+        @Setup
+        public void setUp() throws IOException {
+            this.directory = Files.createTempDirectory("bitbases");
+            final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            try {
+                final Map<Endgame, Bitbase> generated = new EnumMap<>(Endgame.class);
+                for (final Endgame endgame : new Endgame[] {Endgame.KQK, Endgame.KRK, Endgame.KPK, Endgame.KBNK}) {
+                    final Bitbase bitbase = BitbaseGenerator.generate(endgame, generated, executor);
+                    bitbase.write(this.directory.resolve(Bitbase.fileName(endgame)));
+                    generated.put(endgame, bitbase);
+                }
+            } finally {
+                executor.shutdown();
+            }
+            this.bitbases = Bitbases.open(this.directory);
+            this.kpkBoard = new SearchBoard(FenUtilities.createBoard("8/8/8/4k3/8/4K3/4P3/8 b - - 0 1"));
+            this.kbnkBoard = new SearchBoard(FenUtilities.createBoard("8/8/8/3k4/8/8/8/KBN5 w - - 0 1"));
+            this.missBoard = new SearchBoard(Board.createStandardBoard());
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            for (final Endgame endgame : Endgame.values()) {
+                Files.deleteIfExists(this.directory.resolve(Bitbase.fileName(endgame)));
+            }
+            Files.deleteIfExists(this.directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 3, time = 3)
+    public Bitbase generate(final Generation state) {
+        return BitbaseGenerator.generate(state.endgame, state.generated, state.executor);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public int probeKpk(final Probe state) {
+        return state.bitbases.probe(state.kpkBoard);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public int probeKbnk(final Probe state) {
+        return state.bitbases.probe(state.kbnkBoard);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public int probeMiss(final Probe state) {
+        return state.bitbases.probe(state.missBoard);
+    }
+}
@@ -0,0 +1,86 @@
+package com.chess.bench;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.FenUtilities;
+import com.chess.engine.board.MoveBuffer;
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.perft.PerftPosition;
+import com.chess.engine.pieces.Piece;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* How long it takes to make a Board, run with -prof gc to see the bytes allocated per board (gc.alloc.rate.norm):
+*   java -jar target/benchmarks.jar BoardBenchmark -prof gc
+*
+*   createStandardBoard  the start position, piece by piece
+*   builderBuild         build() alone, from a builder that is already filled in
+*   successorBoard       the Board after one move, the way a game moves on: SearchBoard.toBoard() with the move made
+*   fenCreateBoard       a Board read from FEN
+* */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"START", "KIWIPETE"})
+    public PerftPosition position;
+
+    private Board.Builder builder;
+    private SearchBoard successor;
+    private String fen;
+
+    @Setup
+    public void setUp() {
+        final Board board = this.position.createBoard();
+        this.builder = new Board.Builder();
+        for (final Piece piece : board.getWhitePieces()) {
+            this.builder.setPiece(piece);
+        }
+        for (final Piece piece : board.getBlackPieces()) {
+            this.builder.setPiece(piece);
+        }
+        this.builder.setMoveMaker(board.getMoveMaker());
+        this.successor = new SearchBoard(board);
+        final int[] moves = new int[MoveBuffer.MAX_MOVES_PER_POSITION];
+        MoveGenerator.generateMoves(this.successor, moves, 0);
+        this.successor.makeMove(moves[0]);
+        this.fen = this.position.getFen();
+    }
+
+    @Benchmark
+    public Board createStandardBoard() {
+        return Board.createStandardBoard();
+    }
+
+    @Benchmark
+    public Board builderBuild() { // Same builder every time, build() leaves the builder untouched
+        return this.builder.build();
+    }
+
+    @Benchmark
+    public Board successorBoard() {
+        return this.successor.toBoard();
+    }
+
+    @Benchmark
+    public Board fenCreateBoard() {
+        return FenUtilities.createBoard(this.fen);
+    }
+}
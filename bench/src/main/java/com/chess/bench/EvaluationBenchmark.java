@@ -0,0 +1,91 @@
+package com.chess.bench;
+
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.perft.PerftPosition;
+import com.chess.engine.board.MoveBuffer;
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.search.MaterialEvaluator;
+import com.chess.engine.search.PawnHashTable;
+import com.chess.engine.search.PositionEvaluator;
+import com.chess.engine.search.StandardEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* Cost of leaf evaluation, run with -prof gc to check nothing is allocated.
+*
+* The single position benchmarks evaluate the same board over and over. The leaves benchmarks are closer to a real
+* search: every position two plies down is evaluated once, with and without the pawn hash, so the difference is what
+* the cache saves when the pawn structure mostly repeats from leaf to leaf.
+* */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+
+    @Param({"START", "KIWIPETE", "POSITION_6"}) // The last two are pawn heavy middlegames
+    public PerftPosition position;
+
+    private SearchBoard board;
+    private final PositionEvaluator materialEvaluator = new MaterialEvaluator();
+    private final PositionEvaluator standardEvaluator = new StandardEvaluator();
+    private final PositionEvaluator uncachedEvaluator = new StandardEvaluator((PawnHashTable) null);
+    private int[] moves;
+
+    @Setup
+    public void setUp() {
+        this.board = new SearchBoard(this.position.createBoard());
+        this.moves = MoveBuffer.forCurrentThread().getMoves();
+    }
+
+    @Benchmark
+    public int material() {
+        return this.materialEvaluator.evaluate(this.board);
+    }
+
+    @Benchmark
+    public int standard() {
+        return this.standardEvaluator.evaluate(this.board);
+    }
+
+    @Benchmark
+    public int leavesCached() {
+        return evaluateLeaves(this.standardEvaluator);
+    }
+
+    @Benchmark
+    public int leavesUncached() {
+        return evaluateLeaves(this.uncachedEvaluator);
+    }
+
+    private int evaluateLeaves(final PositionEvaluator evaluator) {
+        int sum = 0;
+        final int rootEnd = MoveGenerator.generateMoves(this.board, this.moves, 0);
+        for (int i = 0; i < rootEnd; i++) {
+            this.board.makeMove(this.moves[i]);
+            final int replyEnd = MoveGenerator.generateMoves(this.board, this.moves, rootEnd);
+            for (int j = rootEnd; j < replyEnd; j++) {
+                this.board.makeMove(this.moves[j]);
+                sum += evaluator.evaluate(this.board);
+                this.board.unmakeMove();
+            }
+            this.board.unmakeMove();
+        }
+        return sum;
+    }
+}
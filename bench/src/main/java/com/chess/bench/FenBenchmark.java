@@ -0,0 +1,75 @@
+package com.chess.bench;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.FenUtilities;
+import com.chess.engine.perft.PerftPosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/*
+* FEN throughput in positions per second, both ways:
+*   parseToBuilder    just the reading, from a String into a Board.Builder, without building the board
+*   parseByteBuffer   the same from the bytes of a direct ByteBuffer, as when reading positions out of a file
+*   createBoard       reading plus Board.Builder.build(), what most callers pay
+*   write             appending a board's FEN to a reused StringBuilder
+* */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FenBenchmark {
+
+    @Param({"START", "KIWIPETE", "POSITION_3"})
+    public PerftPosition position;
+
+    private String fen;
+    private ByteBuffer buffer;
+    private Board board;
+    private final StringBuilder builder = new StringBuilder(FenUtilities.MAX_FEN_LENGTH);
+
+    @Setup
+    public void setUp() {
+        this.fen = this.position.getFen();
+        final byte[] bytes = this.fen.getBytes(StandardCharsets.US_ASCII);
+        this.buffer = ByteBuffer.allocateDirect(bytes.length);
+        this.buffer.put(bytes).flip();
+        this.board = this.position.createBoard();
+    }
+
+    @Benchmark
+    public Board.Builder parseToBuilder() {
+        return FenUtilities.parse(this.fen, 0, this.fen.length(), new Board.Builder());
+    }
+
+    @Benchmark
+    public Board.Builder parseByteBuffer() {
+        return FenUtilities.parse(this.buffer, new Board.Builder());
+    }
+
+    @Benchmark
+    public Board createBoard() {
+        return FenUtilities.createBoard(this.fen);
+    }
+
+    @Benchmark
+    public int write() {
+        this.builder.setLength(0);
+        return FenUtilities.appendFen(this.board, this.builder).length();
+    }
+}
@@ -0,0 +1,80 @@
+package com.chess.bench;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.perft.PerftPosition;
+import com.chess.engine.search.LazySmpSearch;
+import com.chess.engine.search.SearchLimits;
+import com.chess.engine.search.SearchResult;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* Lazy SMP scaling: the same fixed time search with more and more threads. The nodes counter is the total over all
+* threads per second, so perfect scaling doubles it every time the thread count doubles. Pass the core count of the
+* machine to see the whole curve:
+*   java -jar target/benchmarks.jar LazySmpBenchmark -p threads=1,2,4,8,16,32
+* */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class LazySmpBenchmark {
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    @Param({"KIWIPETE"})
+    public PerftPosition position;
+
+    @Param({"250"})
+    public long searchMillis;
+
+    private Board board;
+    private LazySmpSearch search;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class NodeCounter {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.nodes = 0L;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        this.board = this.position.createBoard();
+        this.search = new LazySmpSearch(this.threads, 64);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.search.close();
+    }
+
+    @Benchmark
+    public SearchResult search(final NodeCounter counter) {
+        final SearchResult result = this.search.search(this.board, SearchLimits.time(this.searchMillis));
+        counter.nodes += result.getNodes();
+        return result;
+    }
+}
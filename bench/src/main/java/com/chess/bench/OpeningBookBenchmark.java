@@ -0,0 +1,115 @@
+package com.chess.bench;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.LegalMoveGenerator;
+import com.chess.engine.board.MoveBuffer;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.book.BookBuilder;
+import com.chess.engine.book.BookMove;
+import com.chess.engine.book.OpeningBook;
+import com.chess.engine.pgn.PgnParser;
+import com.chess.engine.perft.PerftPosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+* Nanoseconds per opening book probe, against a book built from GAMES random games of BOOK_PLIES plies each (about
+* 1.1 million entries, an 18 MB file, mapped):
+*   probeStart       the start position, the book's biggest position
+*   probeInBook      a position a few moves in
+*   probeOutOfBook   Kiwipete, not in the book, just the binary search
+*   getMoves         the start position as BookMove objects, with the legal move check
+* */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpeningBookBenchmark {
+
+    private static final int GAMES = 200_000;
+    private static final int BOOK_PLIES = 16;
+
+    private Path file;
+    private OpeningBook book;
+    private Board startBoard;
+    private Board inBookBoard;
+    private Board outOfBookBoard;
+    private final int[] moves = new int[MoveBuffer.MAX_MOVES_PER_POSITION];
+    private final int[] weights = new int[MoveBuffer.MAX_MOVES_PER_POSITION];
+
+    @Setup
+    public void setUp() throws IOException {
+        final BookBuilder builder = new BookBuilder(BOOK_PLIES);
+        final PgnParser.Result[] results = PgnParser.Result.values();
+        final Random random = new Random(1L);
+        final SearchBoard board = new SearchBoard(Board.createStandardBoard());
+        final int[] legalMoves = new int[MoveBuffer.MAX_MOVES_PER_POSITION];
+        for (int game = 0; game < GAMES; game++) { // The first few plies pick from few moves, so the tree narrows like real openings
+            board.load(Board.createStandardBoard());
+            builder.startGame(board, PgnParser.Result.UNKNOWN);
+            for (int ply = 0; ply < BOOK_PLIES; ply++) {
+                final int moveCount = LegalMoveGenerator.generateLegalMoves(board, legalMoves, 0);
+                if (moveCount == 0) {
+                    break; // Mated, narrowing the choices makes a few quick mates
+                }
+                final int move = legalMoves[random.nextInt(Math.min(moveCount, 2 + ply))];
+                builder.visitMove(board, move, ply);
+                board.makeMove(move);
+                if (ply == 6 && game == 0) {
+                    this.inBookBoard = board.toBoard();
+                }
+            }
+            builder.endGame(results[random.nextInt(3)]);
+        }
+        this.file = Files.createTempFile("book", ".bin");
+        builder.write(this.file, 1);
+        this.book = OpeningBook.open(this.file);
+        this.startBoard = Board.createStandardBoard();
+        this.outOfBookBoard = PerftPosition.KIWIPETE.createBoard();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.book.close();
+        Files.deleteIfExists(this.file);
+    }
+
+    @Benchmark
+    public int probeStart() {
+        return this.book.probe(this.startBoard, this.moves, this.weights, 0);
+    }
+
+    @Benchmark
+    public int probeInBook() {
+        return this.book.probe(this.inBookBoard, this.moves, this.weights, 0);
+    }
+
+    @Benchmark
+    public int probeOutOfBook() {
+        return this.book.probe(this.outOfBookBoard, this.moves, this.weights, 0);
+    }
+
+    @Benchmark
+    public List<BookMove> getMoves() {
+        return this.book.getMoves(this.startBoard);
+    }
+}
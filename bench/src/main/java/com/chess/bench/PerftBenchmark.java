@@ -0,0 +1,74 @@
+package com.chess.bench;
+
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.perft.Perft;
+import com.chess.engine.perft.PerftPosition;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* Full perft from the standard test positions. The nodes counter is reported as a rate, so JMH prints nodes/sec next
+* to the perft/sec score. perft runs the strictly legal generator, perftPseudoLegal the old make-and-check-the-king
+* path, for comparing the two. Depths 5 and 6 take seconds per call, ask for them explicitly:
+*   java -jar target/benchmarks.jar PerftBenchmark -p depth=5,6 -prof gc
+* */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PerftBenchmark {
+
+    @Param({"START", "KIWIPETE", "POSITION_3", "POSITION_4", "POSITION_5", "POSITION_6"})
+    public PerftPosition position;
+
+    @Param({"1", "2", "3", "4"})
+    public int depth;
+
+    private SearchBoard board;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class NodeCounter {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.nodes = 0L;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        this.board = new SearchBoard(this.position.createBoard());
+    }
+
+    @Benchmark
+    public long perft(final NodeCounter counter) {
+        final long nodes = Perft.perft(this.board, this.depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+
+    @Benchmark
+    public long perftPseudoLegal(final NodeCounter counter) {
+        final long nodes = Perft.perftPseudoLegal(this.board, this.depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+}
@@ -0,0 +1,125 @@
+package com.chess.bench;
+
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pgn.PgnParser;
+import com.chess.engine.pgn.PgnReader;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/*
+* Streaming PGN ingestion: a file of GAMES games read through PgnReader with more and more worker threads, every move
+* played out on the board. The games and positions counters are per second, the score is whole files per second. The
+* file repeats three short real games with tags, comments and a variation, about 8 MB. Pass the core count of the
+* machine to see the scaling:
+*   java -jar target/benchmarks.jar PgnReaderBenchmark -p threads=1,2,4,8
+* */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PgnReaderBenchmark {
+
+    private static final int GAMES = 30_000;
+
+    private static final String[] MOVETEXTS = {
+        // Morphy - Duke of Brunswick and Count Isouard, Paris 1858
+        "1. e4 e5 2. Nf3 d6 3. d4 Bg4 4. dxe5 Bxf3 5. Qxf3 dxe5 6. Bc4 Nf6 7. Qb3 Qe7 8. Nc3 c6 9. Bg5 b5\n" +
+        "10. Nxb5 cxb5 11. Bxb5+ Nbd7 12. O-O-O Rd8 13. Rxd7 Rxd7 14. Rd1 Qe6 15. Bxd7+ Nxd7 {the queen\n" +
+        "sacrifice} 16. Qb8+ Nxb8 17. Rd8# 1-0",
+        // Anderssen - Kieseritzky, London 1851
+        "1. e4 e5 2. f4 exf4 3. Bc4 Qh4+ 4. Kf1 b5 5. Bxb5 Nf6 6. Nf3 Qh6 7. d3 Nh5 8. Nh4 Qg5 9. Nf5 c6\n" +
+        "10. g4 Nf6 11. Rg1 cxb5 12. h4 Qg6 13. h5 Qg5 14. Qf3 Ng8 15. Bxf4 Qf6 16. Nc3 Bc5 17. Nd5 Qxb2\n" +
+        "18. Bd6 Bxg1 (18... Qxa1+ 19. Ke2 Qb2) 19. e5 Qxa1+ 20. Ke2 Na6 21. Nxg7+ Kd8 22. Qf6+ Nxf6 23. Be7# 1-0",
+        // Anderssen - Dufresne, Berlin 1852
+        "1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. b4 Bxb4 5. c3 Ba5 6. d4 exd4 7. O-O d3 8. Qb3 Qf6 9. e5 Qg6\n" +
+        "10. Re1 Nge7 11. Ba3 b5 12. Qxb5 Rb8 13. Qa4 Bb6 14. Nbd2 Bb7 15. Ne4 Qf5 16. Bxd3 Qh5 17. Nf6+ gxf6\n" +
+        "18. exf6 Rg8 19. Rad1 $1 Qxf3 20. Rxe7+ Nxe7 21. Qxd7+ Kxd7 22. Bf5+ Ke8 23. Bd7+ Kf8 24. Bxe7# 1-0"
+    };
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    private Path file;
+    private PgnReader reader;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long games;
+        public long positions;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.games = 0L;
+            this.positions = 0L;
+        }
+    }
+
+    // Plays the moves and nothing else
+    private static final class MovesOnly implements PgnParser.GameVisitor {
+
+        @Override
+        public void startGame(final SearchBoard board, final PgnParser.Result taggedResult) {
+        }
+
+        @Override
+        public boolean visitMove(final SearchBoard board, final int move, final int ply) {
+            return true;
+        }
+
+        @Override
+        public void endGame(final PgnParser.Result result) {
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("games", ".pgn");
+        try (BufferedWriter writer = Files.newBufferedWriter(this.file, StandardCharsets.ISO_8859_1)) {
+            for (int game = 0; game < GAMES; game++) {
+                writer.write("[Event \"Benchmark\"]\n[Round \"" + (game + 1) + "\"]\n[Result \"1-0\"]\n\n");
+                writer.write(MOVETEXTS[game % MOVETEXTS.length]);
+                writer.write("\n\n");
+            }
+        }
+        this.reader = new PgnReader(this.threads);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    @Benchmark
+    public PgnReader.Report read(final Counters counters) throws IOException {
+        final PgnReader.Report report = this.reader.read(this.file, MovesOnly::new);
+        if (report.getSkippedGames() != 0) {
+            throw new IllegalStateException(report.getSkippedGames() + " games did not parse");
+        }
+        counters.games += report.getGames();
+        counters.positions += report.getPositions();
+        return report;
+    }
+}
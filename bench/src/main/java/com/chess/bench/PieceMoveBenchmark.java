@@ -0,0 +1,65 @@
+package com.chess.bench;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.perft.PerftPosition;
+import com.chess.engine.pieces.Piece;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// One calculateLegalMoves override at a time: every piece of the chosen type on the board, both colours
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMoveBenchmark {
+
+    @Param({"KIWIPETE"})
+    public PerftPosition position;
+
+    @Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+    public Piece.PieceType pieceType;
+
+    private Board board;
+    private Piece[] pieces;
+
+    @Setup
+    public void setUp() {
+        this.board = this.position.createBoard();
+        final List<Piece> piecesOfType = new ArrayList<>();
+        for (final Piece piece : this.board.getWhitePieces()) {
+            if (piece.getPieceType() == this.pieceType) {
+                piecesOfType.add(piece);
+            }
+        }
+        for (final Piece piece : this.board.getBlackPieces()) {
+            if (piece.getPieceType() == this.pieceType) {
+                piecesOfType.add(piece);
+            }
+        }
+        this.pieces = piecesOfType.toArray(new Piece[0]);
+    }
+
+    @Benchmark
+    public void calculateLegalMoves(final Blackhole blackhole) {
+        for (final Piece piece : this.pieces) {
+            blackhole.consume(piece.calculateLegalMoves(this.board));
+        }
+    }
+}
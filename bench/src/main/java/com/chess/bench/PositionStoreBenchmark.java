@@ -0,0 +1,155 @@
+package com.chess.bench;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.MoveBuffer;
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.board.PositionEncoding;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.perft.PerftPosition;
+import com.chess.engine.store.PositionStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+* Records per second through a PositionStore of a million positions (the distinct positions of the perft trees),
+* memory-mapped from a temporary file:
+*   scan            every record in file order, reading the occupancy in place
+*   lookup          random keys, reading the occupancy in place
+*   lookupDecode    random keys, decoding each into a whole Board
+*   encode, decode  one position to and from its 24 bytes
+* */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PositionStoreBenchmark {
+
+    private static final int RECORDS = 1_000_000;
+    private static final int LOOKUPS_PER_INVOCATION = 1024;
+
+    private Path file;
+    private PositionStore store;
+    private long[] keys;
+    private int nextKey;
+    private long checksum;
+    private final PositionStore.RecordVisitor readFields = this::readFields;
+
+    private SearchBoard board;
+    private final ByteBuffer encoded = ByteBuffer.allocate(PositionEncoding.ENCODED_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    @Setup
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("positions", ".bin");
+        this.store = PositionStore.create(this.file, RECORDS);
+        this.keys = new long[RECORDS];
+        final int[] moves = new int[MoveBuffer.MAX_MOVES_PER_POSITION * 8];
+        for (final PerftPosition position : PerftPosition.values()) {
+            fill(new SearchBoard(position.createBoard()), 5, moves, 0);
+        }
+        if (this.store.size() != RECORDS) { // The per-operation scores count on a full store
+            throw new IllegalStateException("Only " + this.store.size() + " distinct positions to store");
+        }
+        final Random random = new Random(1L);
+        for (int i = RECORDS - 1; i > 0; i--) { // Shuffled, so lookups jump all over the file
+            final int j = random.nextInt(i + 1);
+            final long key = this.keys[i];
+            this.keys[i] = this.keys[j];
+            this.keys[j] = key;
+        }
+        this.board = new SearchBoard(PerftPosition.KIWIPETE.createBoard());
+        PositionEncoding.encode(this.board, this.encoded, 0);
+    }
+
+    private void fill(final SearchBoard board, final int depth, final int[] moves, final int start) {
+        if (this.store.size() == RECORDS) {
+            return;
+        }
+        if (this.store.put(board)) {
+            this.keys[(int) this.store.size() - 1] = board.getZobristKey();
+        }
+        if (depth == 0) {
+            return;
+        }
+        final int end = MoveGenerator.generateMoves(board, moves, start);
+        for (int i = start; i < end; i++) {
+            board.makeMove(moves[i]);
+            if (!board.isInCheck(board.getMoveMaker().getOpposite())) {
+                fill(board, depth - 1, moves, end);
+            }
+            board.unmakeMove();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.store.close();
+        Files.deleteIfExists(this.file);
+    }
+
+    private void readFields(final long zobristKey, final ByteBuffer buffer, final int offset) {
+        this.checksum += PositionEncoding.occupancy(buffer, offset) ^ zobristKey;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long scan() {
+        this.checksum = 0L;
+        this.store.scan(this.readFields);
+        return this.checksum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS_PER_INVOCATION)
+    public long lookup() {
+        this.checksum = 0L;
+        for (int i = 0; i < LOOKUPS_PER_INVOCATION; i++) {
+            this.store.lookup(this.keys[this.nextKey], this.readFields);
+            this.nextKey = (this.nextKey + 1) % RECORDS;
+        }
+        return this.checksum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS_PER_INVOCATION)
+    public long lookupDecode() {
+        long sum = 0L;
+        for (int i = 0; i < LOOKUPS_PER_INVOCATION; i++) {
+            final Board board = this.store.get(this.keys[this.nextKey]);
+            sum += board.getPieceSquareScore();
+            this.nextKey = (this.nextKey + 1) % RECORDS;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        PositionEncoding.encode(this.board, this.encoded, 0);
+        return this.encoded;
+    }
+
+    @Benchmark
+    public Board decode() {
+        return PositionEncoding.decode(this.encoded, 0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.chess.bench;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.perft.PerftPosition;
+import com.chess.engine.search.AlphaBetaSearch;
+import com.chess.engine.search.SearchLimits;
+import com.chess.engine.search.SearchResult;
+import com.chess.engine.search.StandardEvaluator;
+import com.chess.engine.search.TranspositionTable;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* A fixed depth search from a fresh transposition table, so the time and the nodes per search only change when the
+* search itself does. Nodes divided by searches is the number to watch for move ordering and pruning changes: fewer
+* nodes for the same depth means more of the tree was cut off.
+* */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"START", "KIWIPETE", "POSITION_6"})
+    public PerftPosition position;
+
+    @Param({"6"})
+    public int depth;
+
+    private Board board;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class NodeCounter {
+        public long nodes;
+        public long searches;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.nodes = 0L;
+            this.searches = 0L;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        this.board = this.position.createBoard();
+    }
+
+    @Benchmark
+    public SearchResult search(final NodeCounter counter) {
+        final AlphaBetaSearch search = new AlphaBetaSearch(new TranspositionTable(16), new StandardEvaluator());
+        final SearchResult result = search.search(this.board, SearchLimits.depth(this.depth));
+        counter.nodes += result.getNodes();
+        counter.searches++;
+        return result;
+    }
+}
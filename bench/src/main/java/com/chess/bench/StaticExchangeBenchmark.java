@@ -0,0 +1,78 @@
+package com.chess.bench;
+
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.board.StaticExchange;
+import com.chess.engine.perft.PerftPosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* Static exchange evaluation of one move, averaged over every capture (and, for comparison, every move) in the
+* position. Run with -prof gc to check nothing is allocated:
+*   java -jar target/benchmarks.jar StaticExchangeBenchmark -prof gc
+* */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StaticExchangeBenchmark {
+
+    private static final int MOVES_PER_INVOCATION = 64; // Moves are cycled through so every call does the same work
+
+    @Param({"KIWIPETE", "POSITION_4", "POSITION_6"})
+    public PerftPosition position;
+
+    private final StaticExchange staticExchange = new StaticExchange();
+    private SearchBoard board;
+    private final int[] captures = new int[MOVES_PER_INVOCATION];
+    private final int[] moves = new int[MOVES_PER_INVOCATION];
+
+    @Setup
+    public void setUp() {
+        this.board = new SearchBoard(this.position.createBoard());
+        fill(this.captures, MoveGenerator.generateCaptures(this.board, this.captures, 0));
+        fill(this.moves, MoveGenerator.generateMoves(this.board, this.moves, 0));
+    }
+
+    private static void fill(final int[] moves, final int count) { // Repeats the first count moves to the end
+        for (int i = count; i < moves.length; i++) {
+            moves[i] = moves[i % count];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVES_PER_INVOCATION)
+    public int captures() {
+        int sum = 0;
+        for (final int move : this.captures) {
+            sum += this.staticExchange.evaluate(this.board, move);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVES_PER_INVOCATION)
+    public int allMoves() {
+        int sum = 0;
+        for (final int move : this.moves) {
+            sum += this.staticExchange.evaluate(this.board, move);
+        }
+        return sum;
+    }
+}
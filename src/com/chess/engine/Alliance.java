@@ -18,6 +18,11 @@ public enum Alliance {
         public boolean isBlack() {
             return false;
         }
+
+        @Override
+        public Alliance getOpposite() {
+            return BLACK;
+        }
     },
     BLACK {
         @Override
@@ -34,9 +39,15 @@ public enum Alliance {
         public int getDirection() {
             return 1; // For black, will return positive 1
         }
+
+        @Override
+        public Alliance getOpposite() {
+            return WHITE;
+        }
     };
 
     public abstract int getDirection(); // Making an abstract method in an enum makes you implement the method for each instance in the enum
     public abstract boolean isWhite();
     public abstract boolean isBlack();
+    public abstract Alliance getOpposite(); // The other side, the one this alliance is playing against
 }
@@ -0,0 +1,104 @@
+package com.chess.engine.bitbase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+* Who wins every position of one Endgame, one bit a position: set when the strong side wins with best play, clear when
+* it is a draw (the bare king can never win). Two runs of Endgame.size() bits, first with the strong side to move and
+* then with the weak side to move, packed 64 to a long.
+*
+* On disk it is a 16 byte header and then the bits, little endian:
+*   header   bytes 0-7 MAGIC, 8-11 the Endgame's ordinal, 12-15 unused
+*   bits     size() / 64 longs for the strong side to move, then as many for the weak side to move
+*
+* An opened file is memory-mapped read only, nothing is read onto the heap, and probes read the one long they need
+* with an absolute get, so any number of threads can probe at once. KBNK, the biggest, is 640 KB.
+* */
+
+public final class Bitbase {
+
+    public static final long MAGIC = 0x3153425449425343L; // "CSBITBS1" read little endian
+    public static final String FILE_SUFFIX = ".bitbase";
+
+    private static final int HEADER_SIZE = 16;
+    private static final int ENDGAME_OFFSET = 8;
+
+    private final Endgame endgame;
+    private final ByteBuffer bits;
+
+    private Bitbase(final Endgame endgame, final ByteBuffer bits) {
+        this.endgame = endgame;
+        this.bits = bits;
+    }
+
+    // A bitbase still on the heap, straight from BitbaseGenerator
+    static Bitbase of(final Endgame endgame, final long[] words) {
+        final ByteBuffer bits = ByteBuffer.allocate(words.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        bits.asLongBuffer().put(words);
+        return new Bitbase(endgame, bits);
+    }
+
+    public static Bitbase open(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) { // The mapping outlives the channel
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0L);
+            final int ordinal = header.getInt(ENDGAME_OFFSET);
+            if (header.hasRemaining() || header.getLong(0) != MAGIC || ordinal < 0 || ordinal >= Endgame.values().length) {
+                throw new IOException("Not a bitbase: " + path);
+            }
+            final Endgame endgame = Endgame.values()[ordinal];
+            final long bitsSize = 2 * endgame.size() / Byte.SIZE;
+            if (channel.size() != HEADER_SIZE + bitsSize) {
+                throw new IOException("Bitbase " + path + " is " + channel.size() + " bytes, " + endgame + " needs " + (HEADER_SIZE + bitsSize));
+            }
+            final ByteBuffer bits = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, bitsSize);
+            return new Bitbase(endgame, bits.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    public void write(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.WRITE)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(0, MAGIC).putInt(ENDGAME_OFFSET, this.endgame.ordinal());
+            final ByteBuffer bits = this.bits.duplicate();
+            bits.clear();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (bits.hasRemaining()) {
+                channel.write(bits);
+            }
+        }
+    }
+
+    public static String fileName(final Endgame endgame) { // e.g. "KPK.bitbase"
+        return endgame.name() + FILE_SUFFIX;
+    }
+
+    public Endgame getEndgame() {
+        return this.endgame;
+    }
+
+    // Whether the strong side wins the position with the index, see Endgame.index
+    public boolean isWin(final long index, final boolean strongToMove) {
+        final long bit = strongToMove ? index : this.endgame.size() + index;
+        return (this.bits.getLong((int) (bit >>> 6) * Long.BYTES) & (1L << bit)) != 0;
+    }
+
+    // How many positions the strong side wins, to report after generating. Indexes that are not positions count as draws
+    public long countWins(final boolean strongToMove) {
+        final int words = (int) (this.endgame.size() / Long.SIZE);
+        final int first = strongToMove ? 0 : words;
+        long wins = 0L;
+        for (int word = first; word < first + words; word++) {
+            wins += Long.bitCount(this.bits.getLong(word * Long.BYTES));
+        }
+        return wins;
+    }
+}
@@ -0,0 +1,290 @@
+package com.chess.engine.bitbase;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+* Works out a Bitbase by retrograde analysis, starting from the mates and going backwards until nothing changes:
+*   - the weak side to move is lost when it is mated, or when it cannot take a piece and every king move it has leads
+*     to a position the strong side wins
+*   - the strong side to move wins when any of its moves leads to a position where the weak side is lost
+* Each pass goes over every index and marks the positions those two rules now say are won; once a pass marks none,
+* what is left unmarked is a draw. A bare king taking a piece always draws, since none of these endgames keeps enough
+* material after losing one. A pawn promoting is looked up in the KQK and KRK bitbases (minor piece promotions draw),
+* so those are made first.
+*
+* Moves are made straight on the tiles of the position with AttackTables, no board is built, which keeps a pass over
+* KBNK's five million positions to a second or so. Passes are split over a thread pool: each task owns a run of
+* indexes 64 at a time, so only it writes their words of the bit arrays. Tasks read each other's words with no
+* locking, which is safe because a bit only ever goes from draw to win: a task that sees a win set in the same pass
+* only finds its own wins sooner, and the pass after a task missed one picks it up.
+*
+*   BitbaseGenerator directory [threads, default every core]
+* makes every endgame's file in the directory.
+* */
+
+public final class BitbaseGenerator {
+
+    private static final int INDEXES_PER_TASK = 1 << 16; // A multiple of 64, so no two tasks share a word
+
+    private static final int PAWN = PieceType.PAWN.ordinal();
+    private static final int KNIGHT = PieceType.KNIGHT.ordinal();
+    private static final int BISHOP = PieceType.BISHOP.ordinal();
+    private static final int ROOK = PieceType.ROOK.ordinal();
+    private static final int QUEEN = PieceType.QUEEN.ordinal();
+    private static final long PROMOTION_TILES = 0xFFL; // Our row 0, the eighth rank
+    private static final long PAWN_START_TILES = 0xFFL << 48; // Our row 6, the second rank
+
+    private final Endgame endgame;
+    private final long size;
+    private final long[] words; // Strong side to move bits, then weak side to move bits
+    private final int[] pieceCodes; // PieceType ordinal of each tile in the tiles arrays
+    private final Bitbase queenBitbase; // Where a pawn promotes to, only for endgames with a pawn
+    private final Bitbase rookBitbase;
+
+    private BitbaseGenerator(final Endgame endgame, final Map<Endgame, Bitbase> generated) {
+        this.endgame = endgame;
+        this.size = endgame.size();
+        this.words = new long[(int) (2 * this.size / Long.SIZE)];
+        this.pieceCodes = new int[endgame.getPieceCount()];
+        final PieceType[] pieces = endgame.getPieces();
+        this.pieceCodes[Endgame.STRONG_KING] = PieceType.KING.ordinal();
+        this.pieceCodes[Endgame.WEAK_KING] = PieceType.KING.ordinal();
+        for (int i = 0; i < pieces.length; i++) {
+            this.pieceCodes[Endgame.FIRST_PIECE + i] = pieces[i].ordinal();
+        }
+        this.queenBitbase = endgame.hasPawn() ? required(generated, Endgame.KQK) : null;
+        this.rookBitbase = endgame.hasPawn() ? required(generated, Endgame.KRK) : null;
+    }
+
+    private static Bitbase required(final Map<Endgame, Bitbase> generated, final Endgame endgame) {
+        final Bitbase bitbase = generated.get(endgame);
+        if (bitbase == null) {
+            throw new IllegalArgumentException(endgame + " has to be generated first, pawns promote into it");
+        }
+        return bitbase;
+    }
+
+    // Generates the endgame with the pool's threads. Endgames with a pawn need KQK and KRK among the generated ones
+    public static Bitbase generate(final Endgame endgame,
+                                   final Map<Endgame, Bitbase> generated,
+                                   final ExecutorService executor) {
+        final BitbaseGenerator generator = new BitbaseGenerator(endgame, generated);
+        final int taskCount = (int) ((generator.size + INDEXES_PER_TASK - 1) / INDEXES_PER_TASK);
+        final List<Future<Boolean>> tasks = new ArrayList<>(taskCount);
+        boolean changed = true;
+        while (changed) {
+            tasks.clear();
+            for (int task = 0; task < taskCount; task++) {
+                final long first = (long) task * INDEXES_PER_TASK;
+                final long last = Math.min(generator.size, first + INDEXES_PER_TASK);
+                tasks.add(executor.submit(() -> generator.pass(first, last)));
+            }
+            changed = false;
+            for (final Future<Boolean> task : tasks) {
+                try {
+                    changed |= task.get(); // Waiting for every task also makes their writes visible to the next pass
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted generating " + endgame, e);
+                } catch (final ExecutionException e) {
+                    throw new RuntimeException("Generating " + endgame + " failed", e.getCause());
+                }
+            }
+        }
+        return Bitbase.of(endgame, generator.words);
+    }
+
+    // One pass over indexes first (inclusive) to last (exclusive), true if any position was newly found won
+    private boolean pass(final long first, final long last) {
+        final int[] tiles = new int[Endgame.MAX_PIECES];
+        final int[] movedTiles = new int[Endgame.MAX_PIECES];
+        boolean changed = false;
+        for (long index = first; index < last; index++) {
+            this.endgame.tiles(index, tiles);
+            if (!isPosition(tiles)) {
+                continue;
+            }
+            if (!isWin(index, true) && strongSideWins(tiles, movedTiles)) {
+                setWin(index, true);
+                changed = true;
+            }
+            if (!isWin(index, false) && weakSideLoses(tiles, movedTiles)) {
+                setWin(index, false);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // No two pieces on one tile and the kings not touching. Whether the side not to move is in check is left to the rules
+    private boolean isPosition(final int[] tiles) {
+        long occupancy = 0L;
+        for (int i = 0; i < this.pieceCodes.length; i++) {
+            if ((occupancy & (1L << tiles[i])) != 0) {
+                return false;
+            }
+            occupancy |= 1L << tiles[i];
+        }
+        return (AttackTables.kingAttacks(tiles[Endgame.STRONG_KING]) & (1L << tiles[Endgame.WEAK_KING])) == 0;
+    }
+
+    // *****************************************************************************************************************************
+    //                          The two rules
+
+    private boolean strongSideWins(final int[] tiles, final int[] movedTiles) {
+        final long occupancy = occupancy(tiles, -1);
+        final long weakKing = 1L << tiles[Endgame.WEAK_KING];
+        if ((strongAttacks(tiles, occupancy) & weakKing) != 0) {
+            return false; // The weak king is in check with the strong side to move, not a position
+        }
+        final long strongOccupancy = occupancy & ~weakKing;
+        for (int piece = 0; piece < this.pieceCodes.length; piece++) {
+            if (piece == Endgame.WEAK_KING) {
+                continue;
+            }
+            final int from = tiles[piece];
+            final int pieceCode = this.pieceCodes[piece];
+            long targets;
+            if (piece == Endgame.STRONG_KING) {
+                targets = AttackTables.kingAttacks(from) & ~strongOccupancy & ~AttackTables.kingAttacks(tiles[Endgame.WEAK_KING]);
+            } else if (pieceCode == PAWN) {
+                targets = AttackTables.pawnPushes(Alliance.WHITE, from) & ~occupancy;
+                if (targets != 0 && (PAWN_START_TILES & (1L << from)) != 0) {
+                    targets |= AttackTables.pawnPushes(Alliance.WHITE, Long.numberOfTrailingZeros(targets)) & ~occupancy;
+                }
+            } else {
+                targets = attacks(pieceCode, from, occupancy) & ~occupancy; // The weak king is never taken
+            }
+            while (targets != 0) {
+                final int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                System.arraycopy(tiles, 0, movedTiles, 0, this.pieceCodes.length);
+                movedTiles[piece] = to;
+                if (pieceCode == PAWN && (PROMOTION_TILES & (1L << to)) != 0) {
+                    if (promotionWins(movedTiles)) {
+                        return true;
+                    }
+                } else if (isWin(this.endgame.index(movedTiles), false)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean weakSideLoses(final int[] tiles, final int[] movedTiles) {
+        final int weakKing = tiles[Endgame.WEAK_KING];
+        final long occupancy = occupancy(tiles, Endgame.WEAK_KING); // The king does not block attacks along its own line
+        final long attacked = strongAttacks(tiles, occupancy);
+        long targets = AttackTables.kingAttacks(weakKing) & ~attacked;
+        if (targets == 0) {
+            return (attacked & (1L << weakKing)) != 0; // Mate, or stalemate
+        }
+        if ((targets & occupancy) != 0) {
+            return false; // Can take an undefended piece, which draws
+        }
+        while (targets != 0) {
+            System.arraycopy(tiles, 0, movedTiles, 0, this.pieceCodes.length);
+            movedTiles[Endgame.WEAK_KING] = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (!isWin(this.endgame.index(movedTiles), true)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A pawn that just reached the last row, from the tiles of the position after the push, weak side to move
+    private boolean promotionWins(final int[] movedTiles) {
+        return this.queenBitbase.isWin(Endgame.KQK.index(movedTiles), false) ||
+               this.rookBitbase.isWin(Endgame.KRK.index(movedTiles), false); // Rook when queening stalemates
+    }
+
+    // *****************************************************************************************************************************
+    //                          Attacks
+
+    private long occupancy(final int[] tiles, final int leftOut) {
+        long occupancy = 0L;
+        for (int piece = 0; piece < this.pieceCodes.length; piece++) {
+            if (piece != leftOut) {
+                occupancy |= 1L << tiles[piece];
+            }
+        }
+        return occupancy;
+    }
+
+    private long strongAttacks(final int[] tiles, final long occupancy) {
+        long attacks = AttackTables.kingAttacks(tiles[Endgame.STRONG_KING]);
+        for (int piece = Endgame.FIRST_PIECE; piece < this.pieceCodes.length; piece++) {
+            attacks |= attacks(this.pieceCodes[piece], tiles[piece], occupancy);
+        }
+        return attacks;
+    }
+
+    private static long attacks(final int pieceCode, final int tile, final long occupancy) {
+        if (pieceCode == PAWN) {
+            return AttackTables.pawnAttacks(Alliance.WHITE, tile);
+        } else if (pieceCode == KNIGHT) {
+            return AttackTables.knightAttacks(tile);
+        } else if (pieceCode == BISHOP) {
+            return AttackTables.bishopAttacks(tile, occupancy);
+        } else if (pieceCode == ROOK) {
+            return AttackTables.rookAttacks(tile, occupancy);
+        } else if (pieceCode == QUEEN) {
+            return AttackTables.queenAttacks(tile, occupancy);
+        }
+        return AttackTables.kingAttacks(tile);
+    }
+
+    private boolean isWin(final long index, final boolean strongToMove) {
+        final long bit = strongToMove ? index : this.size + index;
+        return (this.words[(int) (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    private void setWin(final long index, final boolean strongToMove) {
+        final long bit = strongToMove ? index : this.size + index;
+        this.words[(int) (bit >>> 6)] |= 1L << bit;
+    }
+
+    // *****************************************************************************************************************************
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: BitbaseGenerator directory [threads]");
+            return;
+        }
+        final Path directory = Files.createDirectories(Paths.get(args[0]));
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final Map<Endgame, Bitbase> generated = new EnumMap<>(Endgame.class);
+            for (final Endgame endgame : new Endgame[] {Endgame.KQK, Endgame.KRK, Endgame.KPK, Endgame.KBNK}) {
+                final long startTime = System.nanoTime();
+                final Bitbase bitbase = generate(endgame, generated, executor);
+                final long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000L;
+                bitbase.write(directory.resolve(Bitbase.fileName(endgame)));
+                generated.put(endgame, bitbase);
+                System.out.printf("%-5s %,12d positions a side, %,12d won with the strong side to move, %,12d lost with the " +
+                                  "weak side to move, %,8d ms on %d threads%n", endgame, endgame.size(),
+                                  bitbase.countWins(true), bitbase.countWins(false), elapsedMillis, threads);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
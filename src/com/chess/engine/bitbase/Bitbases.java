@@ -0,0 +1,69 @@
+package com.chess.engine.bitbase;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Position;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+* The bitbases the search probes, one per Endgame at most, opened from a directory of files made by BitbaseGenerator.
+*
+* probe() works out the position's endgame from its bitboards: a bare king on one side, and on the other exactly the
+* pieces of one of the endgames. Positions with more than Endgame.MAX_PIECES pieces are turned away after one bit count,
+* so probing can be done at any node. Nothing is allocated, and the bitbases are read only, so one Bitbases can be
+* shared by every search thread.
+* */
+
+public final class Bitbases {
+
+    // Results from the side to move's point of view
+    public static final int NOT_FOUND = 0; // No bitbase for the position
+    public static final int WIN = 1;
+    public static final int DRAW = 2;
+    public static final int LOSS = 3;
+
+    private final Bitbase[] bitbases = new Bitbase[Endgame.values().length]; // By Endgame ordinal, null when missing
+
+    public Bitbases(final Bitbase... bitbases) {
+        for (final Bitbase bitbase : bitbases) {
+            this.bitbases[bitbase.getEndgame().ordinal()] = bitbase;
+        }
+    }
+
+    // Every bitbase found in the directory, under the names Bitbase.fileName gives. Endgames with no file are left out
+    public static Bitbases open(final Path directory) throws IOException {
+        final Bitbases bitbases = new Bitbases();
+        for (final Endgame endgame : Endgame.values()) {
+            final Path path = directory.resolve(Bitbase.fileName(endgame));
+            if (Files.exists(path)) {
+                bitbases.bitbases[endgame.ordinal()] = Bitbase.open(path);
+            }
+        }
+        return bitbases;
+    }
+
+    public boolean has(final Endgame endgame) {
+        return this.bitbases[endgame.ordinal()] != null;
+    }
+
+    public int probe(final Position position) {
+        if (Long.bitCount(position.getOccupancy()) > Endgame.MAX_PIECES) {
+            return NOT_FOUND;
+        }
+        final Alliance strong = position.getOccupancy(Alliance.BLACK) == position.getPieceBitBoard(Alliance.BLACK, PieceType.KING) ?
+                                Alliance.WHITE : Alliance.BLACK;
+        final Endgame endgame = Endgame.of(position, strong);
+        final Bitbase bitbase = endgame == null ? null : this.bitbases[endgame.ordinal()];
+        if (bitbase == null) {
+            return NOT_FOUND;
+        }
+        final boolean strongToMove = position.getMoveMaker() == strong;
+        if (!bitbase.isWin(endgame.index(position, strong), strongToMove)) {
+            return DRAW;
+        }
+        return strongToMove ? WIN : LOSS;
+    }
+}
@@ -0,0 +1,201 @@
+package com.chess.engine.bitbase;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Position;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.util.Arrays;
+
+/*
+* The endgames there are bitbases for: a bare king against a king and one or two other pieces. The side with the
+* pieces is the strong side, the only one that can win.
+*
+* Every position of an endgame gets an index, from 0 up to size(), once for each side to move. Positions are looked at
+* with the strong side as white, a black strong side is turned into a white one by flipping the board top to bottom,
+* and then one piece, the anchor, is moved into a corner of the board by mirroring:
+*   - without pawns the anchor is the strong king, which the board's 8 symmetries (mirror left-right, mirror
+*     top-bottom, mirror along the diagonal) bring to one of the 10 tiles of the triangle a1-d1-d4
+*   - with a pawn, which only moves one way, only left-right mirroring is allowed and the anchor is the pawn, brought
+*     to files a-d. A pawn can only stand on 6 rows, so that is 24 tiles
+* The index is the anchor's slot among those tiles followed by the tile of every other piece, 6 bits each:
+*
+*   anchor slot, then strong king (if not the anchor), weak king, then the other pieces in the endgame's order
+*
+* so KQK has 10 x 64 x 64 positions per side to move and KBNK 10 x 64 x 64 x 64. Some indexes are not positions (two
+* pieces on one tile, kings touching), they stay unused. Nothing about castling or en passant is kept, neither can come
+* up with one pawn against a bare king.
+* */
+
+public enum Endgame {
+
+    KPK(PieceType.PAWN),
+    KRK(PieceType.ROOK),
+    KQK(PieceType.QUEEN),
+    KBNK(PieceType.BISHOP, PieceType.KNIGHT);
+
+    public static final int MAX_PIECES = 4; // Kings included, positions with more pieces are never looked up
+    public static final int STRONG_KING = 0; // Where each piece goes in the tiles arrays below
+    public static final int WEAK_KING = 1;
+    public static final int FIRST_PIECE = 2;
+
+    private static final Endgame[] ENDGAMES = values(); // values() copies the array each call, so keep one
+
+    private static final int MIRROR_FILES = 7; // XOR into a tile to mirror it left-right
+    private static final int MIRROR_ROWS = 56; // XOR into a tile to mirror it top-bottom
+    private static final int TRANSPOSE = 64; // Flag for mirroring along the a1-h8 diagonal, done after the other two
+    private static final int KING_SLOT_COUNT = 10; // Constants, the constructors run before any other static field is set
+    private static final int PAWN_SLOT_COUNT = 24;
+
+    private static final int[] KING_TILES = anchorTiles(false); // Slot to tile, and back with SLOTS below
+    private static final int[] PAWN_TILES = anchorTiles(true);
+    private static final int[] KING_SLOTS = slots(KING_TILES);
+    private static final int[] PAWN_SLOTS = slots(PAWN_TILES);
+
+    private final PieceType[] pieces;
+    private final int pieceCount; // Every piece, both kings included
+    private final boolean hasPawn;
+    private final int anchor; // Index into the tiles array of the piece that is mirrored into the corner
+    private final long size;
+    private final int material; // See material() below
+
+    Endgame(final PieceType... pieces) {
+        this.pieces = pieces;
+        this.pieceCount = FIRST_PIECE + pieces.length;
+        this.hasPawn = pieces[0] == PieceType.PAWN;
+        this.anchor = this.hasPawn ? FIRST_PIECE : STRONG_KING;
+        this.size = (long) (this.hasPawn ? PAWN_SLOT_COUNT : KING_SLOT_COUNT) << (6 * (this.pieceCount - 1));
+        int material = 0;
+        for (final PieceType pieceType : pieces) {
+            material += 1 << (4 * pieceType.ordinal());
+        }
+        this.material = material;
+    }
+
+    public PieceType[] getPieces() {
+        return this.pieces.clone();
+    }
+
+    public int getPieceCount() {
+        return this.pieceCount;
+    }
+
+    public boolean hasPawn() {
+        return this.hasPawn;
+    }
+
+    public long size() { // Indexes for one side to move
+        return this.size;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Positions to indexes and back
+
+    // The index of the position with the strong side as white on the given tiles, in the order STRONG_KING, WEAK_KING,
+    // then the pieces
+    public long index(final int[] tiles) {
+        return index(tiles[STRONG_KING], tiles[WEAK_KING], tiles[FIRST_PIECE], this.pieceCount > 3 ? tiles[FIRST_PIECE + 1] : 0);
+    }
+
+    // Same again with the tiles one by one, so a probe from the search needs no array. The second piece is ignored
+    // when the endgame has only one
+    public long index(final int strongKing, final int weakKing, final int firstPiece, final int secondPiece) {
+        final int anchorTile = this.hasPawn ? firstPiece : strongKing;
+        int transform = (anchorTile & 7) > 3 ? MIRROR_FILES : 0;
+        if (!this.hasPawn) {
+            transform |= (anchorTile >>> 3) < 4 ? MIRROR_ROWS : 0; // Our row 7 is the first rank, the triangle's side
+            final int mirrored = anchorTile ^ transform;
+            transform |= 7 - (mirrored >>> 3) > (mirrored & 7) ? TRANSPOSE : 0; // Rank above file: below the diagonal
+        }
+        long index = (this.hasPawn ? PAWN_SLOTS : KING_SLOTS)[transform(anchorTile, transform)];
+        if (this.hasPawn) {
+            index = (index << 6) | transform(strongKing, transform);
+        }
+        index = (index << 6) | transform(weakKing, transform);
+        if (!this.hasPawn) {
+            index = (index << 6) | transform(firstPiece, transform);
+        }
+        return this.pieceCount > 3 ? (index << 6) | transform(secondPiece, transform) : index;
+    }
+
+    // The tiles of the position with the index, the other way to index(). Which mirror image is made is not said
+    public void tiles(long index, final int[] tiles) {
+        for (int i = this.pieceCount - 1; i >= 0; i--) {
+            if (i != this.anchor) {
+                tiles[i] = (int) (index & 63);
+                index >>>= 6;
+            }
+        }
+        tiles[this.anchor] = (this.hasPawn ? PAWN_TILES : KING_TILES)[(int) index];
+    }
+
+    private static int transform(final int tile, final int transform) {
+        final int mirrored = tile ^ (transform & (MIRROR_FILES | MIRROR_ROWS));
+        if ((transform & TRANSPOSE) == 0) {
+            return mirrored;
+        }
+        final int row = 7 - (mirrored >>> 3); // Rank counted from white's side, so the a1-h8 diagonal is rank == file
+        final int file = mirrored & 7;
+        return (7 - file) * 8 + row;
+    }
+
+    private static int[] anchorTiles(final boolean pawn) {
+        final int[] tiles = new int[pawn ? PAWN_SLOT_COUNT : KING_SLOT_COUNT];
+        int slot = 0;
+        for (int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+            final int rank = 7 - (tile >>> 3);
+            final int file = tile & 7;
+            if (pawn ? file < 4 && rank >= 1 && rank <= 6 : file < 4 && rank <= file) {
+                tiles[slot++] = tile;
+            }
+        }
+        return tiles;
+    }
+
+    private static int[] slots(final int[] anchorTiles) {
+        final int[] slots = new int[BoardUtils.NUM_TILES];
+        Arrays.fill(slots, -1);
+        for (int slot = 0; slot < anchorTiles.length; slot++) {
+            slots[anchorTiles[slot]] = slot;
+        }
+        return slots;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Finding the endgame of a position
+
+    // The endgame with exactly this alliance's pieces against a bare king, or null. Pieces are counted 4 bits a type
+    public static Endgame of(final Position position, final Alliance strong) {
+        if (position.getOccupancy(strong.getOpposite()) != position.getPieceBitBoard(strong.getOpposite(), PieceType.KING)) {
+            return null;
+        }
+        final int material = material(position, strong);
+        for (final Endgame endgame : ENDGAMES) {
+            if (endgame.material == material) {
+                return endgame;
+            }
+        }
+        return null;
+    }
+
+    private static int material(final Position position, final Alliance alliance) {
+        int material = 0;
+        for (int pieceCode = PieceType.PAWN.ordinal(); pieceCode < PieceType.KING.ordinal(); pieceCode++) {
+            material += Long.bitCount(position.getPieceBitBoard(BoardUtils.bitBoardIndex(alliance, pieceCode))) << (4 * pieceCode);
+        }
+        return material;
+    }
+
+    // The index of a position of this endgame, with a black strong side flipped into a white one
+    public long index(final Position position, final Alliance strong) {
+        final int flip = strong.isWhite() ? 0 : MIRROR_ROWS;
+        return index(tile(position, strong, PieceType.KING) ^ flip,
+                     tile(position, strong.getOpposite(), PieceType.KING) ^ flip,
+                     tile(position, strong, this.pieces[0]) ^ flip,
+                     this.pieces.length > 1 ? tile(position, strong, this.pieces[1]) ^ flip : 0);
+    }
+
+    private static int tile(final Position position, final Alliance alliance, final PieceType pieceType) {
+        return Long.numberOfTrailingZeros(position.getPieceBitBoard(alliance, pieceType));
+    }
+}
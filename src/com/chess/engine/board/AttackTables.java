@@ -0,0 +1,211 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+
+import static com.chess.engine.board.BoardUtils.NUM_TILES;
+import static com.chess.engine.board.BoardUtils.NUM_TILES_PER_ROW;
+
+/*
+* Precomputed attack tables, built once when the class is first loaded.
+*
+* Every table is a bitboard per tile, bit i set means tile i can be reached from that tile. The tables are built by
+* stepping in (row, column) space and only keeping steps that land back on the board, so a knight on the first column
+* can never wrap round onto the eighth column. This replaces the isFirstColumnExclusion / isEighthColumnExclusion
+* checks the pieces used to run on every single candidate offset.
+*
+* Sliding pieces use ray tables: for each tile and each of the eight directions, every tile along that ray to the
+* edge of the board. The attacks for a given occupancy are the ray cut short at the first blocker, which is found
+* with a single bit scan, the blocker itself is included so captures fall out of the same mask.
+* */
+
+public final class AttackTables {
+
+    // Directions are numbered so that the four increasing ones (tile index goes up) come first
+    public static final int SOUTH_WEST = 0; // +7
+    public static final int SOUTH = 1; // +8
+    public static final int SOUTH_EAST = 2; // +9
+    public static final int EAST = 3; // +1
+    public static final int NORTH_EAST = 4; // -7
+    public static final int NORTH = 5; // -8
+    public static final int NORTH_WEST = 6; // -9
+    public static final int WEST = 7; // -1
+
+    public static final long FIRST_COLUMN_MASK = 0x0101010101010101L; // Every tile on the a file
+    public static final long EIGHTH_COLUMN_MASK = 0x8080808080808080L; // Every tile on the h file
+
+    private static final int[] DIRECTION_ROW_STEPS = {1, 1, 1, 0, -1, -1, -1, 0};
+    private static final int[] DIRECTION_COLUMN_STEPS = {-1, 0, 1, 1, 1, 0, -1, -1};
+
+    public static final int[] ROOK_DIRECTIONS = {SOUTH, EAST, NORTH, WEST};
+    public static final int[] BISHOP_DIRECTIONS = {SOUTH_WEST, SOUTH_EAST, NORTH_EAST, NORTH_WEST};
+
+    private static final int[][] KNIGHT_STEPS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+    private static final int[][] KING_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+
+    private static final long[] KNIGHT_ATTACKS = initStepAttacks(KNIGHT_STEPS);
+    private static final long[] KING_ATTACKS = initStepAttacks(KING_STEPS);
+    private static final long[][] PAWN_ATTACKS = initPawnAttacks(); // [Alliance.ordinal()][tile]
+    private static final long[][] PAWN_PUSHES = initPawnPushes(); // [Alliance.ordinal()][tile], single push only
+    private static final long[][] RAYS = initRays(); // [direction][tile]
+    private static final long[][] BETWEEN = new long[NUM_TILES][NUM_TILES]; // [tile][tile], see between()
+    private static final long[][] LINES = new long[NUM_TILES][NUM_TILES]; // [tile][tile], see line()
+
+    static {
+        for (int tile = 0; tile < NUM_TILES; tile++) {
+            for (int direction = 0; direction < DIRECTION_ROW_STEPS.length; direction++) {
+                final long ray = RAYS[direction][tile];
+                final long fullLine = ray | RAYS[(direction + 4) & 7][tile] | 1L << tile; // Direction + 4 is the opposite one
+                long remaining = ray;
+                while (remaining != 0) {
+                    final int other = Long.numberOfTrailingZeros(remaining);
+                    BETWEEN[tile][other] = ray & ~RAYS[direction][other] & ~(1L << other);
+                    LINES[tile][other] = fullLine;
+                    remaining &= remaining - 1;
+                }
+            }
+        }
+    }
+
+    private AttackTables() {
+        throw new RuntimeException("You cannot instantiate this!!!");
+    }
+
+    public static long knightAttacks(final int tileCoordinate) {
+        return KNIGHT_ATTACKS[tileCoordinate];
+    }
+
+    public static long kingAttacks(final int tileCoordinate) {
+        return KING_ATTACKS[tileCoordinate];
+    }
+
+    // The two diagonal tiles a pawn of this alliance attacks from the given tile
+    public static long pawnAttacks(final Alliance alliance, final int tileCoordinate) {
+        return PAWN_ATTACKS[alliance.ordinal()][tileCoordinate];
+    }
+
+    // Every tile attacked by any of the given pawns at once, white pawns attack towards tile 0 and black towards 63
+    public static long allPawnAttacks(final Alliance alliance, final long pawns) {
+        if (alliance.isWhite()) {
+            return ((pawns & ~FIRST_COLUMN_MASK) >>> 9) | ((pawns & ~EIGHTH_COLUMN_MASK) >>> 7);
+        }
+        return ((pawns & ~FIRST_COLUMN_MASK) << 7) | ((pawns & ~EIGHTH_COLUMN_MASK) << 9);
+    }
+
+    // The tile directly in front of a pawn of this alliance, empty on the last row
+    public static long pawnPushes(final Alliance alliance, final int tileCoordinate) {
+        return PAWN_PUSHES[alliance.ordinal()][tileCoordinate];
+    }
+
+    // Every tile from the given tile to the edge of the board in one direction, not including the tile itself
+    public static long ray(final int direction, final int tileCoordinate) {
+        return RAYS[direction][tileCoordinate];
+    }
+
+    // The tiles strictly between two tiles on the same row, column or diagonal, empty if they are not lined up
+    public static long between(final int tileCoordinate, final int otherTileCoordinate) {
+        return BETWEEN[tileCoordinate][otherTileCoordinate];
+    }
+
+    // The whole row, column or diagonal through both tiles from edge to edge, empty if they are not lined up
+    public static long line(final int tileCoordinate, final int otherTileCoordinate) {
+        return LINES[tileCoordinate][otherTileCoordinate];
+    }
+
+    public static long rookAttacks(final int tileCoordinate, final long occupancy) {
+        return positiveRayAttacks(SOUTH, tileCoordinate, occupancy) |
+               positiveRayAttacks(EAST, tileCoordinate, occupancy) |
+               negativeRayAttacks(NORTH, tileCoordinate, occupancy) |
+               negativeRayAttacks(WEST, tileCoordinate, occupancy);
+    }
+
+    public static long bishopAttacks(final int tileCoordinate, final long occupancy) {
+        return positiveRayAttacks(SOUTH_WEST, tileCoordinate, occupancy) |
+               positiveRayAttacks(SOUTH_EAST, tileCoordinate, occupancy) |
+               negativeRayAttacks(NORTH_EAST, tileCoordinate, occupancy) |
+               negativeRayAttacks(NORTH_WEST, tileCoordinate, occupancy);
+    }
+
+    public static long queenAttacks(final int tileCoordinate, final long occupancy) {
+        return rookAttacks(tileCoordinate, occupancy) | bishopAttacks(tileCoordinate, occupancy);
+    }
+
+    // Attacks along one direction, stopping at (and including) the first occupied tile
+    public static long rayAttacks(final int direction, final int tileCoordinate, final long occupancy) {
+        return direction < NORTH_EAST ? positiveRayAttacks(direction, tileCoordinate, occupancy) :
+                                        negativeRayAttacks(direction, tileCoordinate, occupancy);
+    }
+
+    // For directions where the tile index goes up, the nearest blocker is the lowest set bit
+    private static long positiveRayAttacks(final int direction, final int tileCoordinate, final long occupancy) {
+        final long attacks = RAYS[direction][tileCoordinate];
+        final long blockers = attacks & occupancy;
+        if (blockers == 0) {
+            return attacks;
+        }
+        return attacks ^ RAYS[direction][Long.numberOfTrailingZeros(blockers)]; // Cut off everything behind the blocker
+    }
+
+    // For directions where the tile index goes down, the nearest blocker is the highest set bit
+    private static long negativeRayAttacks(final int direction, final int tileCoordinate, final long occupancy) {
+        final long attacks = RAYS[direction][tileCoordinate];
+        final long blockers = attacks & occupancy;
+        if (blockers == 0) {
+            return attacks;
+        }
+        return attacks ^ RAYS[direction][63 - Long.numberOfLeadingZeros(blockers)];
+    }
+
+    // *****************************************************************************************************************************
+    //                          Table initialisation, only runs once
+
+    private static boolean isOnBoard(final int row, final int column) {
+        return row >= 0 && row < NUM_TILES_PER_ROW && column >= 0 && column < NUM_TILES_PER_ROW;
+    }
+
+    private static long[] initStepAttacks(final int[][] steps) {
+        final long[] attacks = new long[NUM_TILES];
+        for (int tile = 0; tile < NUM_TILES; tile++) {
+            final int row = tile / NUM_TILES_PER_ROW;
+            final int column = tile % NUM_TILES_PER_ROW;
+            for (final int[] step : steps) {
+                if (isOnBoard(row + step[0], column + step[1])) { // Only keep the steps that stay on the board
+                    attacks[tile] |= 1L << ((row + step[0]) * NUM_TILES_PER_ROW + column + step[1]);
+                }
+            }
+        }
+        return attacks;
+    }
+
+    private static long[][] initPawnAttacks() {
+        final long[][] attacks = new long[Alliance.values().length][];
+        for (final Alliance alliance : Alliance.values()) {
+            // Pawns attack one row forward, forward being the direction of the alliance, and one column either side
+            attacks[alliance.ordinal()] = initStepAttacks(new int[][] {{alliance.getDirection(), -1}, {alliance.getDirection(), 1}});
+        }
+        return attacks;
+    }
+
+    private static long[][] initPawnPushes() {
+        final long[][] pushes = new long[Alliance.values().length][];
+        for (final Alliance alliance : Alliance.values()) {
+            pushes[alliance.ordinal()] = initStepAttacks(new int[][] {{alliance.getDirection(), 0}});
+        }
+        return pushes;
+    }
+
+    private static long[][] initRays() {
+        final long[][] rays = new long[DIRECTION_ROW_STEPS.length][NUM_TILES];
+        for (int direction = 0; direction < DIRECTION_ROW_STEPS.length; direction++) {
+            for (int tile = 0; tile < NUM_TILES; tile++) {
+                int row = tile / NUM_TILES_PER_ROW + DIRECTION_ROW_STEPS[direction];
+                int column = tile % NUM_TILES_PER_ROW + DIRECTION_COLUMN_STEPS[direction];
+                while (isOnBoard(row, column)) { // Keep stepping until we fall off the edge of the board
+                    rays[direction][tile] |= 1L << (row * NUM_TILES_PER_ROW + column);
+                    row += DIRECTION_ROW_STEPS[direction];
+                    column += DIRECTION_COLUMN_STEPS[direction];
+                }
+            }
+        }
+        return rays;
+    }
+}
@@ -12,7 +12,7 @@ import java.util.*;
 
 import static com.chess.engine.board.BoardUtils.*;
 
-public class Board {
+public class Board implements Position {
 
     // Introduction of member fields:
     // List allows for duplicates
@@ -21,17 +21,48 @@ public class Board {
     private final Collection<Piece> whitePieces; // Keeps track the white pieces on the board
     private final Collection<Piece> blackPieces; // Keeps track of the black pieces on the board
 
+    // Bitboard layer: one 64 bit long per piece type per alliance, bit i is set when that piece sits on tile i
+    // The six white piece types come first and then the six black ones, see BoardUtils.bitBoardIndex
+    private final long[] pieceBitBoards;
+    private final long whiteOccupancy; // Every tile with a white piece on it
+    private final long blackOccupancy; // Every tile with a black piece on it
+    private final long occupancy; // Every tile with any piece on it
+    private final Alliance nextMoveMaker; // Whose turn it is on this board
+    private final int castlingRights; // See CastlingRights
+    private final int enPassantTile; // Where the side to move can take en passant, or NO_EN_PASSANT_TILE
+    private final long zobristKey; // 64 bit hash of the position, see Zobrist
+    private final long pawnKey; // Hash of just the pawns, for the pawn structure cache
+    private final int pieceSquareScore; // Material and placement of every piece, see PieceSquareTables
+
+    // Legal moves are only worked out the first time someone asks for them and then kept, so a board that is only
+    // printed or looked up never pays for move generation. Volatile so a board shared between threads hands every
+    // thread a fully built list, two threads racing just both build the same immutable list
+    private volatile Collection<Move> whiteStandardLegalMoves;
+    private volatile Collection<Move> blackStandardLegalMoves;
+
+    // Every tile each side attacks, also worked out on first use. A map can legitimately be 0, so a volatile flag says
+    // when it is there, written after the map so a thread that sees the flag set also sees the map
+    private long whiteAttackMap;
+    private long blackAttackMap;
+    private volatile boolean whiteAttackMapReady;
+    private volatile boolean blackAttackMapReady;
+
     private Board(Builder builder) { // Private constructor prevents class instances from being created in any other place other than this very class
         // Your class instances are created in a static method. The static method is then declared as public.
 
         this.gameBoard = createGameBoard(builder); // Access this method from the builder class
-        this.whitePieces = calculateActivePieces(this.gameBoard, Alliance.WHITE); // For this game board, calculate the white pieces
-        this.blackPieces = calculateActivePieces(this.gameBoard, Alliance.BLACK); // For this game board, calculate the black pieces
-
-        // Declare Local Variables
-        final Collection<Move> whiteStandardLegalMoves = calculateLegalMoves(this.whitePieces);
-        final Collection<Move> blackStandardLegalMoves = calculateLegalMoves(this.blackPieces);
-
+        this.pieceBitBoards = builder.pieceBitBoards.clone(); // The builder fills these in as pieces are set, so no scan is needed here
+        this.whiteOccupancy = calculateOccupancy(this.pieceBitBoards, Alliance.WHITE);
+        this.blackOccupancy = calculateOccupancy(this.pieceBitBoards, Alliance.BLACK);
+        this.occupancy = this.whiteOccupancy | this.blackOccupancy;
+        this.nextMoveMaker = builder.nextMoveMaker;
+        this.castlingRights = calculateCastlingRights(this.pieceBitBoards, builder.castlingRights);
+        this.enPassantTile = calculateEnPassantTile(this.pieceBitBoards, this.nextMoveMaker, builder.enPassantTile);
+        this.zobristKey = Zobrist.calculateKey(this); // Worked out once here, search boards then update it move by move
+        this.pawnKey = Zobrist.calculatePawnKey(this);
+        this.pieceSquareScore = builder.pieceSquareScore; // Summed up by the builder as the pieces went on
+        this.whitePieces = calculateActivePieces(this.gameBoard, this.whiteOccupancy); // For this game board, calculate the white pieces
+        this.blackPieces = calculateActivePieces(this.gameBoard, this.blackOccupancy); // For this game board, calculate the black pieces
     }
 
     // Outputs the board as an ascii table, conveniently
@@ -49,10 +80,59 @@ public class Board {
         return builder.toString();
     }
 
+    // Two boards are equal when they hold the same position, the Zobrist key is checked first since it almost always
+    // tells them apart on its own, the bitboards are only compared to rule out a hash collision
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Board)) {
+            return false;
+        }
+        final Board otherBoard = (Board) other;
+        return this.zobristKey == otherBoard.zobristKey &&
+               this.nextMoveMaker == otherBoard.nextMoveMaker &&
+               this.castlingRights == otherBoard.castlingRights &&
+               this.enPassantTile == otherBoard.enPassantTile &&
+               Arrays.equals(this.pieceBitBoards, otherBoard.pieceBitBoards);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.zobristKey);
+    }
+
     // *****************************************************************************************************************************
     //                          Methods used to flesh out the white and the black player
+    public Collection<Move> getWhiteStandardLegalMoves() {
+        Collection<Move> legalMoves = this.whiteStandardLegalMoves; // Read the volatile field once
+        if (legalMoves == null) { // First time anyone has asked, so work them out and remember them
+            legalMoves = calculateLegalMoves(this.whitePieces);
+            this.whiteStandardLegalMoves = legalMoves;
+        }
+        return legalMoves;
+    }
+
+    public Collection<Move> getBlackStandardLegalMoves() {
+        Collection<Move> legalMoves = this.blackStandardLegalMoves;
+        if (legalMoves == null) {
+            legalMoves = calculateLegalMoves(this.blackPieces);
+            this.blackStandardLegalMoves = legalMoves;
+        }
+        return legalMoves;
+    }
+
+    public Collection<Move> getLegalMoves(final Alliance alliance) {
+        return alliance.isWhite() ? getWhiteStandardLegalMoves() : getBlackStandardLegalMoves();
+    }
+
+    public Collection<Move> getCurrentPlayerLegalMoves() { // Moves for whoever's turn it is
+        return getLegalMoves(this.nextMoveMaker);
+    }
+
     private Collection<Move> calculateLegalMoves(Collection<Piece> Pieces) {
-        final List<Move> legalMoves = new ArrayList<>(); // Declare a list of legal moves
+        final List<Move> legalMoves = new ArrayList<>(MoveBuffer.MAX_MOVES_PER_POSITION / 4); // Declare a list of legal moves, roomy enough for most positions
         for (final Piece piece : Pieces) { // Loop through each piece
             // This container holds all the legal moves on the board for every piece of the specified alliance
             legalMoves.addAll(piece.calculateLegalMoves(this)); // Takes in a board which we're on so use the "this" pointer
@@ -61,31 +141,177 @@ public class Board {
     }
 
     private static Collection<Piece> calculateActivePieces(final List<Tile> gameBoard,
-                                                           final Alliance alliance) {
+                                                           final long allianceOccupancy) {
         // This tracks the black and the white active pieces
-        final List<Piece> activePieces = new ArrayList<>(); // Initialise a List
-        for (final Tile tile : gameBoard) { // Loop through each tile on the game board
-            if(tile.isTileOccupied()) { // If the tile is occupied
-                final Piece piece = tile.getPiece(); // Declare a Piece as the piece on that tile
-                if(piece.getPieceAlliance() == alliance) { // if piece on that tile is equal to the passed in alliance
-                    activePieces.add(piece); // Then add the piece on that tile to the active pieces list
-                }
-            }
+        // Only visits the tiles that the occupancy bitboard says are taken, instead of walking all 64 tiles
+        final List<Piece> activePieces = new ArrayList<>(Long.bitCount(allianceOccupancy)); // Initialise a List, already the right size
+        long remaining = allianceOccupancy;
+        while (remaining != 0) {
+            final int tileCoordinate = Long.numberOfTrailingZeros(remaining); // Lowest set bit is the next occupied tile
+            activePieces.add(gameBoard.get(tileCoordinate).getPiece()); // Then add the piece on that tile to the active pieces list
+            remaining &= remaining - 1; // Clear the lowest set bit and move onto the next one
         }
         return Collections.unmodifiableList(activePieces); // Return an immutable list
     }
 
+    // Only the rights whose king and rook are still on their starting tiles are kept, so code using the rights never
+    // has to check the pieces are really there
+    private static int calculateCastlingRights(final long[] pieceBitBoards, final int requestedRights) {
+        int castlingRights = requestedRights;
+        for (final Alliance alliance : Alliance.values()) {
+            final int kingTile = CastlingRights.kingStartTile(alliance);
+            final long rooks = pieceBitBoards[bitBoardIndex(alliance, Piece.PieceType.ROOK)];
+            if ((pieceBitBoards[bitBoardIndex(alliance, Piece.PieceType.KING)] & (1L << kingTile)) == 0) {
+                castlingRights &= ~(CastlingRights.kingSide(alliance) | CastlingRights.queenSide(alliance));
+            }
+            if ((rooks & (1L << CastlingRights.rookStart(kingTile, true))) == 0) {
+                castlingRights &= ~CastlingRights.kingSide(alliance);
+            }
+            if ((rooks & (1L << CastlingRights.rookStart(kingTile, false))) == 0) {
+                castlingRights &= ~CastlingRights.queenSide(alliance);
+            }
+        }
+        return castlingRights;
+    }
+
+    // The en passant tile is only kept when a pawn of the side to move could actually take there, the same rule
+    // SearchBoard follows, so a position hashes and compares the same however it was reached
+    private static int calculateEnPassantTile(final long[] pieceBitBoards, final Alliance moveMaker, final int requestedTile) {
+        if (requestedTile == NO_EN_PASSANT_TILE) {
+            return NO_EN_PASSANT_TILE;
+        }
+        final long capturers = AttackTables.pawnAttacks(moveMaker.getOpposite(), requestedTile) &
+                               pieceBitBoards[bitBoardIndex(moveMaker, Piece.PieceType.PAWN)];
+        return capturers != 0 ? requestedTile : NO_EN_PASSANT_TILE;
+    }
+
+    private static long calculateOccupancy(final long[] pieceBitBoards, final Alliance alliance) {
+        long allianceOccupancy = 0L;
+        for (final Piece.PieceType pieceType : Piece.PieceType.values()) { // OR together all six piece types of one alliance
+            allianceOccupancy |= pieceBitBoards[bitBoardIndex(alliance, pieceType)];
+        }
+        return allianceOccupancy;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Attack queries, answered from the bitboards without generating any moves
+
+    // Every tile the alliance's pieces attack, including the ones holding its own pieces (defended) and not counting
+    // pawn pushes. Worked out once per board and then kept
+    public long getAttackMap(final Alliance alliance) {
+        if (alliance.isWhite()) {
+            if (!this.whiteAttackMapReady) {
+                this.whiteAttackMap = MoveGenerator.attackMap(this, Alliance.WHITE);
+                this.whiteAttackMapReady = true;
+            }
+            return this.whiteAttackMap;
+        }
+        if (!this.blackAttackMapReady) {
+            this.blackAttackMap = MoveGenerator.attackMap(this, Alliance.BLACK);
+            this.blackAttackMapReady = true;
+        }
+        return this.blackAttackMap;
+    }
+
+    // Could a piece of the attacking alliance take on this tile? One bit test once the attack map is there
+    public boolean isSquareAttacked(final int tileCoordinate, final Alliance attacker) {
+        return (getAttackMap(attacker) & (1L << tileCoordinate)) != 0;
+    }
+
+    // Which pieces of the attacking alliance could take on this tile, as a bitboard of the tiles they stand on
+    public long attackersOf(final int tileCoordinate, final Alliance attacker) {
+        return MoveGenerator.attackersOf(this, tileCoordinate, attacker, this.occupancy);
+    }
+
+    public boolean isInCheck(final Alliance alliance) { // Is this alliance's king attacked
+        final long king = getPieceBitBoard(alliance, Piece.PieceType.KING);
+        return king != 0 && isSquareAttacked(Long.numberOfTrailingZeros(king), alliance.getOpposite());
+    }
+
     // *****************************************************************************************************************************
 
     public Tile getTile(final int tileCoordinate) {
         return gameBoard.get(tileCoordinate); // Getter for the tile at a specific position on the game board
     }
 
+    @Override
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    @Override
+    public long getPawnKey() {
+        return this.pawnKey;
+    }
+
+    @Override
+    public int getPieceSquareScore() {
+        return this.pieceSquareScore;
+    }
+
+    @Override
+    public Alliance getMoveMaker() { // The alliance whose turn it is to move
+        return this.nextMoveMaker;
+    }
+
+    @Override
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    @Override
+    public int getEnPassantTile() {
+        return this.enPassantTile;
+    }
+
+    public Collection<Piece> getWhitePieces() {
+        return this.whitePieces;
+    }
+
+    public Collection<Piece> getBlackPieces() {
+        return this.blackPieces;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Bitboard getters, these answer questions with bit operations instead of walking tiles
+
+    @Override
+    public long getPieceBitBoard(final Alliance alliance, final Piece.PieceType pieceType) { // Every piece of one type and colour
+        return this.pieceBitBoards[bitBoardIndex(alliance, pieceType)];
+    }
+
+    @Override
+    public long getPieceBitBoard(final int bitBoardIndex) { // Same as above, by slot number from BoardUtils.bitBoardIndex
+        return this.pieceBitBoards[bitBoardIndex];
+    }
+
+    @Override
+    public long getOccupancy(final Alliance alliance) { // Every tile taken by one colour
+        return alliance.isWhite() ? this.whiteOccupancy : this.blackOccupancy;
+    }
+
+    @Override
+    public long getOccupancy() { // Every tile taken by either colour
+        return this.occupancy;
+    }
+
+    public boolean isTileOccupied(final int tileCoordinate) {
+        return (this.occupancy & (1L << tileCoordinate)) != 0; // Just test the bit for that tile
+    }
+
+    public int getPieceCount(final Alliance alliance, final Piece.PieceType pieceType) {
+        return Long.bitCount(getPieceBitBoard(alliance, pieceType)); // Number of set bits is the number of pieces
+    }
+
+    public int getPieceCount(final Alliance alliance) {
+        return Long.bitCount(getOccupancy(alliance));
+    }
+
     // This method populates a list of tiles numbered 0 to 63, this represents our chess board
     public static List<Tile> createGameBoard(final Builder builder) {
         final Tile[] tiles = new Tile[NUM_TILES]; // Makes a board of size 64 tiles
         for (int i = 0; i<NUM_TILES; i++) { // With in this loop you go through and get from the config you will map a piece to that tile ID
-            tiles[i] = Tile.createTile(i, builder.boardConfig.get(i)); // When you create tile, you get the position of the board and then the piece at that position of the board
+            tiles[i] = Tile.createTile(i, builder.boardConfig[i]); // When you create tile, you get the position of the board and then the piece at that position of the board
         }
         return Collections.unmodifiableList(Arrays.asList(tiles)); // Return an immutable list
     }
@@ -94,43 +320,44 @@ public class Board {
         // Uses the builder class to create a new standard chess board
         final Builder builder = new Builder(); // Instantiate new builder
         // Black Layout
-        builder.setPiece(new Rook(Alliance.BLACK,0));
-        builder.setPiece(new Knight(Alliance.BLACK,1));
-        builder.setPiece(new Bishop(Alliance.BLACK,2));
-        builder.setPiece(new Queen(Alliance.BLACK,3));
-        builder.setPiece(new King(Alliance.BLACK,4));
-        builder.setPiece(new Bishop(Alliance.BLACK,5));
-        builder.setPiece(new Knight(Alliance.BLACK,6));
-        builder.setPiece(new Rook(Alliance.BLACK,7));
-        builder.setPiece(new Pawn(Alliance.BLACK,8));
-        builder.setPiece(new Pawn(Alliance.BLACK,9));
-        builder.setPiece(new Pawn(Alliance.BLACK,10));
-        builder.setPiece(new Pawn(Alliance.BLACK,11));
-        builder.setPiece(new Pawn(Alliance.BLACK,12));
-        builder.setPiece(new Pawn(Alliance.BLACK,13));
-        builder.setPiece(new Pawn(Alliance.BLACK,14));
-        builder.setPiece(new Pawn(Alliance.BLACK,15));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.ROOK, Alliance.BLACK, 0));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.KNIGHT, Alliance.BLACK, 1));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.BISHOP, Alliance.BLACK, 2));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.QUEEN, Alliance.BLACK, 3));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.KING, Alliance.BLACK, 4));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.BISHOP, Alliance.BLACK, 5));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.KNIGHT, Alliance.BLACK, 6));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.ROOK, Alliance.BLACK, 7));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 8));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 9));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 10));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 11));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 12));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 13));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 14));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.BLACK, 15));
         
         //White Layout
-        builder.setPiece(new Pawn(Alliance.WHITE,48));
-        builder.setPiece(new Pawn(Alliance.WHITE,49));
-        builder.setPiece(new Pawn(Alliance.WHITE,50));
-        builder.setPiece(new Pawn(Alliance.WHITE,51));
-        builder.setPiece(new Pawn(Alliance.WHITE,52));
-        builder.setPiece(new Pawn(Alliance.WHITE,53));
-        builder.setPiece(new Pawn(Alliance.WHITE,54));
-        builder.setPiece(new Pawn(Alliance.WHITE,55));
-        builder.setPiece(new Rook(Alliance.WHITE,56));
-        builder.setPiece(new Knight(Alliance.WHITE,57));
-        builder.setPiece(new Bishop(Alliance.WHITE,58));
-        builder.setPiece(new Queen(Alliance.WHITE,59));
-        builder.setPiece(new King(Alliance.WHITE,60));
-        builder.setPiece(new Bishop(Alliance.WHITE,61));
-        builder.setPiece(new Knight(Alliance.WHITE,62));
-        builder.setPiece(new Rook(Alliance.WHITE,63));
-
-        // White Moves First
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 48));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 49));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 50));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 51));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 52));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 53));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 54));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.PAWN, Alliance.WHITE, 55));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.ROOK, Alliance.WHITE, 56));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.KNIGHT, Alliance.WHITE, 57));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.BISHOP, Alliance.WHITE, 58));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.QUEEN, Alliance.WHITE, 59));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.KING, Alliance.WHITE, 60));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.BISHOP, Alliance.WHITE, 61));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.KNIGHT, Alliance.WHITE, 62));
+        builder.setPiece(Piece.createPiece(Piece.PieceType.ROOK, Alliance.WHITE, 63));
+
+        // White Moves First, and both sides can still castle either way
         builder.setMoveMaker(Alliance.WHITE);
+        builder.setCastlingRights(CastlingRights.ALL);
 
         return builder.build(); // Creates a new immutable board of the starting position
 
@@ -149,15 +376,31 @@ public class Board {
         builders that can produce variations of the product.*/
 
         // Each tile on a chess board has an ID
-        Map<Integer, Piece> boardConfig; // Will match a tile ID to a given piece on that tile ID
+        Piece[] boardConfig; // The piece on each tile ID, null for an empty tile
         Alliance nextMoveMaker; // The Person to move, person whose turn it is o move on the given board
+        long[] pieceBitBoards; // Bitboards kept up to date as pieces are set, copied into the board on build
+        int pieceSquareScore; // Running PieceSquareTables sum of the pieces set so far
+        int castlingRights; // None unless set
+        int enPassantTile; // None unless set
 
         public Builder() { // Expose the builder constructor as public
-            this.boardConfig = new HashMap<>();
+            this.boardConfig = new Piece[NUM_TILES];
+            this.pieceBitBoards = new long[NUM_BIT_BOARDS];
+            this.castlingRights = CastlingRights.NONE;
+            this.enPassantTile = NO_EN_PASSANT_TILE;
         }
 
         public Builder setPiece(final Piece piece) { // Set the piece on the builder
-            this.boardConfig.put(piece.getPiecePosition(), piece); // Setting the property of the current builder
+            final Piece replacedPiece = this.boardConfig[piece.getPiecePosition()]; // Setting the property of the current builder
+            this.boardConfig[piece.getPiecePosition()] = piece;
+            if (replacedPiece != null) { // Setting a piece on a taken tile replaces the old one, so take it out of everything too
+                final int replacedIndex = bitBoardIndex(replacedPiece.getPieceAlliance(), replacedPiece.getPieceType());
+                this.pieceBitBoards[replacedIndex] &= ~(1L << replacedPiece.getPiecePosition());
+                this.pieceSquareScore -= PieceSquareTables.pieceScore(replacedIndex, replacedPiece.getPiecePosition());
+            }
+            final int pieceIndex = bitBoardIndex(piece.getPieceAlliance(), piece.getPieceType());
+            this.pieceBitBoards[pieceIndex] |= 1L << piece.getPiecePosition();
+            this.pieceSquareScore += PieceSquareTables.pieceScore(pieceIndex, piece.getPiecePosition());
             return this; // And then returning that builder back to where it was called from
         }
 
@@ -166,6 +409,16 @@ public class Board {
             return this; // And then returning that builder back to where it was called from
         }
 
+        public Builder setCastlingRights(final int castlingRights) { // Rights whose king or rook has moved are dropped on build
+            this.castlingRights = castlingRights;
+            return this;
+        }
+
+        public Builder setEnPassantTile(final int enPassantTile) { // The tile a pawn jumped over on the last move
+            this.enPassantTile = enPassantTile;
+            return this;
+        }
+
         // We will set mutable fields on the builder and then once build is invoked, it will create an immutable board
         public Board  build() {
             return new Board(this); // An immutable board that cannot be changed
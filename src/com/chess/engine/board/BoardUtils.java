@@ -1,5 +1,8 @@
 package com.chess.engine.board;
 
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
 // This is a utility class to house the useful constants and methods which are static
 // static members can be accessed without creating an object of the class, and they are shared across all instances of the class.
 public class BoardUtils {
@@ -11,11 +14,18 @@ public class BoardUtils {
     public static final boolean[] SEVENTH_COLUMN = initColumn(6);
     public static final boolean[] EIGHTH_COLUMN = initColumn(7);
 
+    public static final boolean[] FIRST_ROW = initRow(0); // Where white pawns promote
     public static final boolean[] SECOND_ROW = initRow(8); // This is the tile ID that begins the row
     public static final boolean[] SEVENTH_ROW = initRow(48); // This is hte tile ID that begins the row
+    public static final boolean[] EIGHTH_ROW = initRow(56); // Where black pawns promote
 
     public static final int NUM_TILES = 64; // Allocates memory for this singular value and now can be repeated in whole program
     public static final int NUM_TILES_PER_ROW = 8;
+    public static final int NUM_PIECE_TYPES = Piece.PieceType.values().length; // Six, pawn through to king
+    public static final int NUM_BIT_BOARDS = 2 * NUM_PIECE_TYPES; // One bitboard per piece type per alliance
+    public static final int NO_EN_PASSANT_TILE = NUM_TILES; // One past the last tile, so it can still index a table
+
+    private static final String[] ALGEBRAIC_NOTATION = initAlgebraicNotation(); // "a8" for tile 0 through to "h1" for tile 63
 
     private BoardUtils() {
         throw new RuntimeException("You cannot instantiate this!!!"); // Prevents from instantiating this class
@@ -43,7 +53,66 @@ public class BoardUtils {
         return row;
     }
 
+    private static String[] initAlgebraicNotation() {
+        final String[] notation = new String[NUM_TILES];
+        for (int tile = 0; tile < NUM_TILES; tile++) {
+            notation[tile] = "" + (char) ('a' + tile % NUM_TILES_PER_ROW) + (NUM_TILES_PER_ROW - tile / NUM_TILES_PER_ROW);
+        }
+        return notation;
+    }
+
+    // Where the bitboard for a piece type of a given alliance lives, white pieces take slots 0-5 and black pieces 6-11
+    public static int bitBoardIndex(final Alliance alliance, final Piece.PieceType pieceType) {
+        return alliance.ordinal() * NUM_PIECE_TYPES + pieceType.ordinal();
+    }
+
+    public static int bitBoardIndex(final Alliance alliance, final int pieceCode) { // Same again but from a PieceType ordinal
+        return alliance.ordinal() * NUM_PIECE_TYPES + pieceCode;
+    }
+
     public static boolean isValidTileCoordinate(final int coordinate) { // Now public because useful to more than just the knight class
         return coordinate >= 0 && coordinate < NUM_TILES; // So within the bounds of the board tiles
     }
+
+    public static String getPositionAtCoordinate(final int coordinate) { // Tile number to square name, 52 gives "e2"
+        return ALGEBRAIC_NOTATION[coordinate];
+    }
+
+    public static int getCoordinateAtPosition(final String position) { // Square name to tile number, "e2" gives 52
+        return getCoordinateAtPosition(position.charAt(0), position.charAt(1));
+    }
+
+    public static int getCoordinateAtPosition(final char file, final char rank) {
+        final int column = file - 'a';
+        final int row = '8' - rank;
+        if (column < 0 || column >= NUM_TILES_PER_ROW || row < 0 || row >= NUM_TILES_PER_ROW) {
+            throw new RuntimeException("Invalid square " + file + rank);
+        }
+        return row * NUM_TILES_PER_ROW + column;
+    }
+
+    // Whether a piece found on a tile in some position (read from FEN, or copied out of a SearchBoard) can still be on
+    // its first move. Only pawns, kings and rooks have rules that depend on it: a pawn on its starting row has not
+    // moved, a king or rook has not moved while a castling right it stands for is still there. Nothing can be told
+    // about the other pieces, so they count as moved
+    public static boolean isFirstMove(final Piece.PieceType pieceType,
+                                      final Alliance alliance,
+                                      final int tileCoordinate,
+                                      final int castlingRights) {
+        final int allianceRights = castlingRights & (CastlingRights.kingSide(alliance) | CastlingRights.queenSide(alliance));
+        final int kingTile = CastlingRights.kingStartTile(alliance);
+        switch (pieceType) {
+            case PAWN:
+                return alliance.isWhite() ? SEVENTH_ROW[tileCoordinate] : SECOND_ROW[tileCoordinate];
+            case KING:
+                return tileCoordinate == kingTile && allianceRights != 0;
+            case ROOK:
+                return (tileCoordinate == CastlingRights.rookStart(kingTile, true) &&
+                        (allianceRights & CastlingRights.kingSide(alliance)) != 0) ||
+                       (tileCoordinate == CastlingRights.rookStart(kingTile, false) &&
+                        (allianceRights & CastlingRights.queenSide(alliance)) != 0);
+            default:
+                return false;
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+
+import java.util.Arrays;
+
+/*
+* Castling rights as four bits in an int, one per side per wing, and the fixed tiles castling involves.
+*
+* A right is lost for good once the king or that rook leaves its starting tile, or the rook is captured there. Rather
+* than testing for any of that, every move ANDs the rights with a mask for its from tile and one for its to tile: the
+* mask is all ones except on the king and rook starting tiles, which clear the rights that piece stands for. So every
+* move updates the rights the same way, with no branch.
+*
+* Tiles: white king e1 = 60, rooks h1 = 63 and a1 = 56. Black king e8 = 4, rooks h8 = 7 and a8 = 0.
+* */
+
+public final class CastlingRights {
+
+    public static final int NONE = 0;
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+    public static final int ALL = WHITE_KING_SIDE | WHITE_QUEEN_SIDE | BLACK_KING_SIDE | BLACK_QUEEN_SIDE;
+    public static final int NUM_COMBINATIONS = ALL + 1;
+
+    public static final int WHITE_KING_START_TILE = 60;
+    public static final int BLACK_KING_START_TILE = 4;
+
+    private static final int[] RIGHTS_KEPT = new int[BoardUtils.NUM_TILES]; // Rights left after a move from or to the tile
+
+    static {
+        Arrays.fill(RIGHTS_KEPT, ALL);
+        RIGHTS_KEPT[WHITE_KING_START_TILE] = ALL & ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        RIGHTS_KEPT[63] = ALL & ~WHITE_KING_SIDE;
+        RIGHTS_KEPT[56] = ALL & ~WHITE_QUEEN_SIDE;
+        RIGHTS_KEPT[BLACK_KING_START_TILE] = ALL & ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        RIGHTS_KEPT[7] = ALL & ~BLACK_KING_SIDE;
+        RIGHTS_KEPT[0] = ALL & ~BLACK_QUEEN_SIDE;
+    }
+
+    private CastlingRights() {
+        throw new RuntimeException("You cannot instantiate this!!!");
+    }
+
+    // The rights left once a piece has moved from one tile to the other
+    public static int update(final int castlingRights, final int fromCoordinate, final int toCoordinate) {
+        return castlingRights & RIGHTS_KEPT[fromCoordinate] & RIGHTS_KEPT[toCoordinate];
+    }
+
+    public static int kingSide(final Alliance alliance) {
+        return alliance.isWhite() ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+    }
+
+    public static int queenSide(final Alliance alliance) {
+        return alliance.isWhite() ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+    }
+
+    public static int kingStartTile(final Alliance alliance) {
+        return alliance.isWhite() ? WHITE_KING_START_TILE : BLACK_KING_START_TILE;
+    }
+
+    // Both castles are laid out from the king's tile: king side the king goes two tiles right and the rook from three
+    // right to one right, queen side the king goes two tiles left and the rook from four left to one left
+
+    public static int kingDestination(final int kingTile, final boolean kingSide) {
+        return kingSide ? kingTile + 2 : kingTile - 2;
+    }
+
+    public static int rookStart(final int kingTile, final boolean kingSide) {
+        return kingSide ? kingTile + 3 : kingTile - 4;
+    }
+
+    public static int rookDestination(final int kingTile, final boolean kingSide) {
+        return kingSide ? kingTile + 1 : kingTile - 1;
+    }
+
+    // Tiles between the king and the rook, which must all be empty
+    public static long emptyTilesNeeded(final int kingTile, final boolean kingSide) {
+        return kingSide ? 3L << (kingTile + 1) : 7L << (kingTile - 3);
+    }
+
+    // Tiles the king stands on, crosses and lands on, none of which may be attacked
+    public static long kingPath(final int kingTile, final boolean kingSide) {
+        return kingSide ? 7L << kingTile : 7L << (kingTile - 2);
+    }
+
+    // FEN form, "KQkq" for all four, "-" for none
+    public static String toString(final int castlingRights) {
+        return appendTo(castlingRights, new StringBuilder(4)).toString();
+    }
+
+    public static StringBuilder appendTo(final int castlingRights, final StringBuilder builder) {
+        if (castlingRights == NONE) {
+            return builder.append('-');
+        }
+        if ((castlingRights & WHITE_KING_SIDE) != 0) {
+            builder.append('K');
+        }
+        if ((castlingRights & WHITE_QUEEN_SIDE) != 0) {
+            builder.append('Q');
+        }
+        if ((castlingRights & BLACK_KING_SIDE) != 0) {
+            builder.append('k');
+        }
+        if ((castlingRights & BLACK_QUEEN_SIDE) != 0) {
+            builder.append('q');
+        }
+        return builder;
+    }
+}
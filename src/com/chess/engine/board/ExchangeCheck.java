@@ -0,0 +1,46 @@
+package com.chess.engine.board;
+
+/*
+* Checks StaticExchange against the known values of the ExchangePositions: x-rays behind rooks, bishops and queens,
+* defended and undefended targets, king recaptures, en passant and promotion. Exits with status 1 if any value is off,
+* so it can be run as a build step.
+*
+* Run from the command line next to JChess:
+*   java com.chess.engine.board.ExchangeCheck
+* */
+
+public final class ExchangeCheck {
+
+    private ExchangeCheck() {
+        throw new RuntimeException("You cannot instantiate this!!!");
+    }
+
+    public static void main(String[] args) {
+        final StaticExchange staticExchange = new StaticExchange();
+        final int[] moves = new int[MoveBuffer.MAX_MOVES_PER_POSITION];
+        boolean allPassed = true;
+        for (final ExchangePosition position : ExchangePosition.values()) {
+            final Board board = position.createBoard();
+            final int value = staticExchange.evaluate(board, findMove(board, position.getMove(), moves));
+            final boolean passed = value == position.getExpectedValue();
+            allPassed &= passed;
+            System.out.printf("%-27s %-5s %5d %s%n", position, position.getMove(), value,
+                              passed ? "OK" : "FAIL (expected " + position.getExpectedValue() + ")");
+        }
+        System.out.println(allPassed ? "All exchange values match" : "Some exchange values do not match");
+        if (!allPassed) {
+            System.exit(1);
+        }
+    }
+
+    // The generated move written as text, so the flags and the captured piece are the generator's own
+    private static int findMove(final Position board, final String text, final int[] moves) {
+        final int endIndex = MoveGenerator.generateMoves(board, moves, 0);
+        for (int i = 0; i < endIndex; i++) {
+            if (PackedMove.toString(moves[i]).equals(text)) {
+                return moves[i];
+            }
+        }
+        throw new IllegalArgumentException("No move " + text + " in the position");
+    }
+}
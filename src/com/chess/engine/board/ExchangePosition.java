@@ -0,0 +1,49 @@
+package com.chess.engine.board;
+
+// Exchange positions with the static exchange value of one move in them, worked out by hand from the PieceType values
+// (pawn 100, knight 320, bishop 330, rook 500, queen 900). If StaticExchange ever disagrees, an attacker is being missed
+
+public enum ExchangePosition {
+
+    UNDEFENDED_PAWN("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1e5", 100),
+    DEFENDED_PAWN("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3e5", -220),
+    UNDEFENDED_BISHOP("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "e2a6", 330),
+    DOUBLED_ROOKS("k2r4/3r4/8/3r4/8/8/3R4/K2R4 w - - 0 1", "d2d5", 0), // Both back rooks join in through the front ones
+    ROOK_BEHIND_ROOK("4r1k1/8/8/4p3/8/8/4R3/4R1K1 w - - 0 1", "e2e5", 100), // Taking back would lose the rook to the x-ray
+    QUEEN_BEHIND_BISHOP("4k3/8/8/3p4/4n3/8/2B5/1Q2K3 w - - 0 1", "c2e4", 90),
+    QUEEN_BEHIND_BISHOP_LOSING("4k3/8/8/3p4/4p3/8/2B5/1Q2K3 w - - 0 1", "c2e4", -130),
+    QUEEN_BEHIND_BISHOP_BLACK("1q2k3/2b5/8/4N3/3P4/8/8/4K3 b - - 0 1", "c7e5", 90),
+    KING_TAKES_BACK("8/8/3k4/4p3/8/8/8/4RK2 w - - 0 1", "e1e5", -400),
+    KING_CANNOT_TAKE_BACK("8/8/3k4/4p3/3P4/8/8/4RK2 w - - 0 1", "e1e5", 100), // The pawn on d4 guards the rook
+    EN_PASSANT("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 2", "e5d6", 100),
+    EN_PASSANT_DEFENDED("4k3/2p5/8/3pP3/8/8/8/4K3 w - d6 0 2", "e5d6", 0),
+    QUIET_MOVE_HANGING("4k3/8/8/2p5/8/8/8/3QK3 w - - 0 1", "d1d4", -900),
+    PROMOTION("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7a8q", 800),
+    PROMOTION_TAKEN("1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7a8q", -100);
+
+    private final String fen;
+    private final String move;
+    private final int expectedValue;
+
+    ExchangePosition(final String fen, final String move, final int expectedValue) {
+        this.fen = fen;
+        this.move = move;
+        this.expectedValue = expectedValue;
+    }
+
+    public String getFen() {
+        return this.fen;
+    }
+
+    public String getMove() { // The move to evaluate, from and to tiles as PackedMove.toString writes them, e.g. "e5d6"
+        return this.move;
+    }
+
+    public Board createBoard() {
+        return FenUtilities.createBoard(this.fen);
+    }
+
+    public int getExpectedValue() {
+        return this.expectedValue;
+    }
+}
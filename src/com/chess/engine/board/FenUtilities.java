@@ -0,0 +1,294 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
+import java.nio.ByteBuffer;
+
+/*
+* Reads and writes boards in Forsyth-Edwards Notation, e.g. the standard start position is
+*   rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1
+*
+* The rows are listed from the black side down to the white side, which is the same order as our tile numbers, so the
+* first character placed goes on tile 0. Upper case letters are white pieces, lower case are black, digits are runs of
+* empty tiles and '/' ends a row. After the pieces come the side to move, the castling rights ("KQkq", or "-") and the
+* en passant tile ("e3", or "-"); the two move counters at the end are not used.
+*
+* Reading works straight off the characters, from a CharSequence or the bytes of a ByteBuffer, with no splitting into
+* Strings and no regular expressions, so positions can be read out of a file buffer one after another without copying
+* them out first. The castling rights are needed before any piece can be made (they say whether kings and rooks have
+* moved), so the piece field is skipped over once to find the rest and then gone back to.
+*
+* Writing appends to a caller supplied StringBuilder, which can be emptied and reused for the next position. The board
+* keeps no move counters, so "0 1" is always written for them, and the en passant tile is only written when a pawn can
+* actually take there, since the board only keeps it then.
+* */
+
+public final class FenUtilities {
+
+    public static final int MAX_FEN_LENGTH = 90; // Longest a FEN written here can be, enough for a StringBuilder to never grow
+
+    private static final String PIECE_CHARACTERS = "PNBRQKpnbrqk"; // By bitboard index, white pieces then black
+
+    private FenUtilities() {
+        throw new RuntimeException("You cannot instantiate this!!!");
+    }
+
+    // *****************************************************************************************************************************
+    //                          Reading
+
+    public static Board createBoard(final CharSequence fen) {
+        return parse(fen, 0, fen.length(), new Board.Builder()).build();
+    }
+
+    // The FEN in the buffer's bytes from its position to its limit, which are left where they were
+    public static Board createBoard(final ByteBuffer buffer) {
+        return parse(buffer, new Board.Builder()).build();
+    }
+
+    public static Board.Builder parse(final ByteBuffer buffer, final Board.Builder builder) {
+        return parse(new AsciiSequence(buffer), 0, buffer.remaining(), builder);
+    }
+
+    // Sets the pieces, side to move, castling rights and en passant tile of the FEN found between start and end onto
+    // the builder, and hands the builder back
+    public static Board.Builder parse(final CharSequence fen, final int start, final int end, final Board.Builder builder) {
+        int index = skipWhitespace(fen, start, end);
+        final int placementStart = index;
+        index = endOfField(fen, index, end);
+        final int placementEnd = index;
+
+        Alliance moveMaker = Alliance.WHITE;
+        index = skipWhitespace(fen, index, end);
+        if (index < end) {
+            final int fieldEnd = endOfField(fen, index, end);
+            final char side = fen.charAt(index);
+            if (fieldEnd - index != 1 || (side != 'w' && side != 'b')) {
+                throw invalid("side to move", fen, index, fieldEnd);
+            }
+            moveMaker = side == 'b' ? Alliance.BLACK : Alliance.WHITE;
+            index = skipWhitespace(fen, fieldEnd, end);
+        }
+
+        int castlingRights = CastlingRights.NONE;
+        if (index < end) {
+            final int fieldEnd = endOfField(fen, index, end);
+            castlingRights = parseCastlingRights(fen, index, fieldEnd);
+            index = skipWhitespace(fen, fieldEnd, end);
+        }
+
+        int enPassantTile = BoardUtils.NO_EN_PASSANT_TILE;
+        if (index < end) {
+            final int fieldEnd = endOfField(fen, index, end);
+            if (fieldEnd - index == 2) {
+                enPassantTile = BoardUtils.getCoordinateAtPosition(fen.charAt(index), fen.charAt(index + 1));
+            } else if (fieldEnd - index != 1 || fen.charAt(index) != '-') {
+                throw invalid("en passant tile", fen, index, fieldEnd);
+            }
+        }
+
+        parsePlacement(fen, placementStart, placementEnd, castlingRights, builder);
+        return builder.setMoveMaker(moveMaker)
+                      .setCastlingRights(castlingRights)
+                      .setEnPassantTile(enPassantTile);
+    }
+
+    private static void parsePlacement(final CharSequence fen,
+                                       final int start,
+                                       final int end,
+                                       final int castlingRights,
+                                       final Board.Builder builder) {
+        int tileCoordinate = 0;
+        int rowEnd = BoardUtils.NUM_TILES_PER_ROW; // Every row has to fill exactly up to here, no more and no less
+        for (int i = start; i < end; i++) {
+            final char fenCharacter = fen.charAt(i);
+            if (fenCharacter == '/') {
+                if (tileCoordinate != rowEnd || rowEnd == BoardUtils.NUM_TILES) { // A short row, or an eighth '/'
+                    throw invalid("piece placement", fen, start, end);
+                }
+                rowEnd += BoardUtils.NUM_TILES_PER_ROW;
+                continue;
+            }
+            if (fenCharacter >= '1' && fenCharacter <= '8') {
+                tileCoordinate += fenCharacter - '0'; // Skip over the empty tiles
+                if (tileCoordinate > rowEnd) {
+                    throw invalid("piece placement", fen, start, end);
+                }
+                continue;
+            }
+            if (tileCoordinate >= rowEnd) { // One piece too many for the row, it would land on the next one
+                throw invalid("piece placement", fen, start, end);
+            }
+            final Alliance alliance = fenCharacter < 'a' ? Alliance.WHITE : Alliance.BLACK; // Upper case comes first
+            final Piece.PieceType pieceType = pieceTypeFor(fenCharacter);
+            builder.setPiece(Piece.createPiece(pieceType, alliance, tileCoordinate,
+                                               BoardUtils.isFirstMove(pieceType, alliance, tileCoordinate, castlingRights)));
+            tileCoordinate++;
+        }
+        if (tileCoordinate != BoardUtils.NUM_TILES) { // Rows never overrun, so this means all 8 of them and exactly 7 '/'
+            throw invalid("piece placement", fen, start, end);
+        }
+    }
+
+    private static int parseCastlingRights(final CharSequence fen, final int start, final int end) {
+        int castlingRights = CastlingRights.NONE;
+        for (int i = start; i < end; i++) {
+            switch (fen.charAt(i)) {
+                case 'K':
+                    castlingRights |= CastlingRights.WHITE_KING_SIDE;
+                    break;
+                case 'Q':
+                    castlingRights |= CastlingRights.WHITE_QUEEN_SIDE;
+                    break;
+                case 'k':
+                    castlingRights |= CastlingRights.BLACK_KING_SIDE;
+                    break;
+                case 'q':
+                    castlingRights |= CastlingRights.BLACK_QUEEN_SIDE;
+                    break;
+                case '-':
+                    break;
+                default:
+                    throw invalid("castling rights", fen, start, end);
+            }
+        }
+        return castlingRights;
+    }
+
+    private static Piece.PieceType pieceTypeFor(final char fenCharacter) {
+        switch (fenCharacter) {
+            case 'P': case 'p':
+                return Piece.PieceType.PAWN;
+            case 'N': case 'n':
+                return Piece.PieceType.KNIGHT;
+            case 'B': case 'b':
+                return Piece.PieceType.BISHOP;
+            case 'R': case 'r':
+                return Piece.PieceType.ROOK;
+            case 'Q': case 'q':
+                return Piece.PieceType.QUEEN;
+            case 'K': case 'k':
+                return Piece.PieceType.KING;
+            default:
+                throw new RuntimeException("Invalid FEN piece: " + fenCharacter);
+        }
+    }
+
+    private static boolean isWhitespace(final char character) { // Spaces, tabs and line ends all separate fields
+        return character <= ' ';
+    }
+
+    private static int skipWhitespace(final CharSequence fen, int index, final int end) {
+        while (index < end && isWhitespace(fen.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int endOfField(final CharSequence fen, int index, final int end) {
+        while (index < end && !isWhitespace(fen.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static RuntimeException invalid(final String field, final CharSequence fen, final int start, final int end) {
+        return new RuntimeException("Invalid FEN " + field + ": " + fen.subSequence(start, end));
+    }
+
+    // The bytes of a ByteBuffer read as characters in place, one byte each (FEN is plain ASCII)
+    private static final class AsciiSequence implements CharSequence {
+
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int length;
+
+        AsciiSequence(final ByteBuffer buffer) {
+            this(buffer, buffer.position(), buffer.remaining());
+        }
+
+        private AsciiSequence(final ByteBuffer buffer, final int offset, final int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return this.length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return (char) (this.buffer.get(this.offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return new AsciiSequence(this.buffer, this.offset + start, end - start);
+        }
+
+        @Override
+        public String toString() { // Only for error messages
+            final StringBuilder builder = new StringBuilder(this.length);
+            for (int i = 0; i < this.length; i++) {
+                builder.append(charAt(i));
+            }
+            return builder.toString();
+        }
+    }
+
+    // *****************************************************************************************************************************
+    //                          Writing
+
+    public static String toFen(final Position position) {
+        return appendFen(position, new StringBuilder(MAX_FEN_LENGTH)).toString();
+    }
+
+    // Appends the position's FEN to the builder and hands the builder back. Appends nothing but single characters and
+    // cached Strings, so with a builder that has room nothing is allocated
+    public static StringBuilder appendFen(final Position position, final StringBuilder builder) {
+        final long occupancy = position.getOccupancy();
+        for (int row = 0; row < BoardUtils.NUM_TILES_PER_ROW; row++) {
+            int emptyTiles = 0;
+            for (int column = 0; column < BoardUtils.NUM_TILES_PER_ROW; column++) {
+                final int tileCoordinate = row * BoardUtils.NUM_TILES_PER_ROW + column;
+                if ((occupancy & (1L << tileCoordinate)) == 0) {
+                    emptyTiles++;
+                    continue;
+                }
+                if (emptyTiles != 0) {
+                    builder.append((char) ('0' + emptyTiles));
+                    emptyTiles = 0;
+                }
+                builder.append(pieceCharacter(position, tileCoordinate));
+            }
+            if (emptyTiles != 0) {
+                builder.append((char) ('0' + emptyTiles));
+            }
+            if (row != BoardUtils.NUM_TILES_PER_ROW - 1) {
+                builder.append('/');
+            }
+        }
+        builder.append(' ').append(position.getMoveMaker().isWhite() ? 'w' : 'b').append(' ');
+        CastlingRights.appendTo(position.getCastlingRights(), builder);
+        builder.append(' ');
+        final int enPassantTile = position.getEnPassantTile();
+        if (enPassantTile == BoardUtils.NO_EN_PASSANT_TILE) {
+            builder.append('-');
+        } else {
+            builder.append(BoardUtils.getPositionAtCoordinate(enPassantTile));
+        }
+        return builder.append(" 0 1");
+    }
+
+    private static char pieceCharacter(final Position position, final int tileCoordinate) {
+        final long tileBit = 1L << tileCoordinate;
+        for (int bitBoardIndex = 0; bitBoardIndex < BoardUtils.NUM_BIT_BOARDS; bitBoardIndex++) {
+            if ((position.getPieceBitBoard(bitBoardIndex) & tileBit) != 0) {
+                return PIECE_CHARACTERS.charAt(bitBoardIndex);
+            }
+        }
+        throw new RuntimeException("No piece on occupied tile " + tileCoordinate);
+    }
+}
@@ -0,0 +1,233 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import static com.chess.engine.board.BoardUtils.bitBoardIndex;
+
+/*
+* Strictly legal move generation: only moves that do not leave the mover's own king in check come out, without
+* making any move to find out.
+*
+* Two things are worked out once per position, before any move is written:
+*   checkers  the enemy pieces giving check right now
+*   pinned    our pieces standing alone between our king and an enemy rook, bishop or queen on the same line
+*
+* With those:
+*   - the king may go to any tile no enemy piece attacks, with the king itself taken off the board first so it cannot
+*     hide behind itself from a slider
+*   - in double check only the king can move
+*   - in single check every other piece must capture the checker or block the line between it and the king
+*   - a pinned piece may only move along the line through the king and itself, so it keeps shielding the king
+*   - castling is only looked at when not in check, and MoveGenerator already checks the tiles the king crosses
+*   - en passant takes two pieces off one row at once, which can uncover the king in a way no pin shows, so each en
+*     passant capture is checked by taking all three tiles' worth of change into account and looking at the king
+*
+* Same packed moves and same output convention (moves written from startIndex, index after the last one returned) as
+* MoveGenerator, so callers can switch between the two; only the order differs, the king's moves come first here.
+* MoveGenerator stays for callers that make every move anyway and can test legality on the way, like the search.
+* */
+
+public final class LegalMoveGenerator {
+
+    private static final int PAWN = PieceType.PAWN.ordinal();
+    private static final int KNIGHT = PieceType.KNIGHT.ordinal();
+    private static final int BISHOP = PieceType.BISHOP.ordinal();
+    private static final int ROOK = PieceType.ROOK.ordinal();
+    private static final int QUEEN = PieceType.QUEEN.ordinal();
+    private static final int KING = PieceType.KING.ordinal();
+
+    private LegalMoveGenerator() {
+        throw new RuntimeException("You cannot instantiate this!!!");
+    }
+
+    // Every legal move for the side whose turn it is
+    public static int generateLegalMoves(final Position board, final int[] moves, final int startIndex) {
+        return generateMoves(board, false, moves, startIndex);
+    }
+
+    // The legal moves when the side to move is in check, which are all moves that get out of it. Writes nothing when
+    // the side to move is not in check
+    public static int generateEvasions(final Position board, final int[] moves, final int startIndex) {
+        return generateMoves(board, true, moves, startIndex);
+    }
+
+    private static int generateMoves(final Position board, final boolean evasionsOnly, final int[] moves, final int startIndex) {
+        final Alliance alliance = board.getMoveMaker();
+        final long king = board.getPieceBitBoard(bitBoardIndex(alliance, KING));
+        if (king == 0) { // Only in hand made test positions, with no king nothing can be illegal
+            return evasionsOnly ? startIndex : MoveGenerator.generateMoves(board, alliance, moves, startIndex);
+        }
+        final int kingTile = Long.numberOfTrailingZeros(king);
+        final long checkers = MoveGenerator.attackersOf(board, kingTile, alliance.getOpposite(), board.getOccupancy());
+        if (evasionsOnly && checkers == 0) {
+            return startIndex;
+        }
+
+        int index = generateKingMoves(board, alliance, kingTile, moves, startIndex);
+        if (checkers == 0) {
+            index = MoveGenerator.generateCastlingMoves(board, alliance, moves, index);
+        }
+        if (Long.bitCount(checkers) > 1) {
+            return index; // Double check, no single capture or block can deal with both
+        }
+        long targets = ~board.getOccupancy(alliance);
+        if (checkers != 0) {
+            targets &= checkers | AttackTables.between(kingTile, Long.numberOfTrailingZeros(checkers));
+        }
+        final long pinned = pinnedPieces(board, alliance, kingTile);
+        index = generatePawnMoves(board, alliance, kingTile, pinned, targets, moves, index);
+        index = generatePieceMoves(board, alliance, KNIGHT, kingTile, pinned, targets, moves, index);
+        index = generatePieceMoves(board, alliance, BISHOP, kingTile, pinned, targets, moves, index);
+        index = generatePieceMoves(board, alliance, ROOK, kingTile, pinned, targets, moves, index);
+        return generatePieceMoves(board, alliance, QUEEN, kingTile, pinned, targets, moves, index);
+    }
+
+    // Our pieces that are the only thing between our king and an enemy slider. Starts from the enemy sliders that would
+    // see the king on an empty board, then keeps the ones with exactly one piece in the way, and that piece ours
+    public static long pinnedPieces(final Position board, final Alliance alliance, final int kingTile) {
+        final Alliance enemy = alliance.getOpposite();
+        final long enemyQueens = board.getPieceBitBoard(bitBoardIndex(enemy, QUEEN));
+        long snipers = (AttackTables.rookAttacks(kingTile, 0L) & (board.getPieceBitBoard(bitBoardIndex(enemy, ROOK)) | enemyQueens)) |
+                       (AttackTables.bishopAttacks(kingTile, 0L) & (board.getPieceBitBoard(bitBoardIndex(enemy, BISHOP)) | enemyQueens));
+        final long occupancy = board.getOccupancy();
+        final long ownPieces = board.getOccupancy(alliance);
+        long pinned = 0L;
+        while (snipers != 0) {
+            final long blockers = AttackTables.between(kingTile, Long.numberOfTrailingZeros(snipers)) & occupancy;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0 && (blockers & ownPieces) != 0) {
+                pinned |= blockers;
+            }
+            snipers &= snipers - 1;
+        }
+        return pinned;
+    }
+
+    private static int generateKingMoves(final Position board,
+                                         final Alliance alliance,
+                                         final int kingTile,
+                                         final int[] moves,
+                                         final int index) {
+        final Alliance enemy = alliance.getOpposite();
+        final long occupancyWithoutKing = board.getOccupancy() ^ (1L << kingTile);
+        long safeTiles = 0L;
+        long candidates = AttackTables.kingAttacks(kingTile) & ~board.getOccupancy(alliance);
+        while (candidates != 0) {
+            final int to = Long.numberOfTrailingZeros(candidates);
+            if (MoveGenerator.attackersOf(board, to, enemy, occupancyWithoutKing) == 0) {
+                safeTiles |= 1L << to;
+            }
+            candidates &= candidates - 1;
+        }
+        return MoveGenerator.writeMoves(board, alliance, kingTile, KING, safeTiles, moves, index);
+    }
+
+    private static int generatePawnMoves(final Position board,
+                                         final Alliance alliance,
+                                         final int kingTile,
+                                         final long pinned,
+                                         final long targets,
+                                         final int[] moves,
+                                         int index) {
+        final long emptyTiles = ~board.getOccupancy();
+        final long enemyPieces = board.getOccupancy(alliance.getOpposite());
+        final long startTiles = alliance.isWhite() ? MoveGenerator.WHITE_PAWN_START_TILES : MoveGenerator.BLACK_PAWN_START_TILES;
+        final long promotingTiles = MoveGenerator.promotingTiles(alliance);
+
+        long pawns = board.getPieceBitBoard(bitBoardIndex(alliance, PAWN));
+        while (pawns != 0) {
+            final int from = Long.numberOfTrailingZeros(pawns);
+            final long allowed = (pinned & (1L << from)) != 0 ? targets & AttackTables.line(kingTile, from) : targets;
+            final long singlePush = AttackTables.pawnPushes(alliance, from) & emptyTiles;
+            if ((promotingTiles & (1L << from)) != 0) {
+                index = generatePromotions(board, alliance, from, singlePush & allowed,
+                                           AttackTables.pawnAttacks(alliance, from) & enemyPieces & allowed, moves, index);
+                pawns &= pawns - 1;
+                continue;
+            }
+            if (singlePush != 0) {
+                final int to = Long.numberOfTrailingZeros(singlePush);
+                if ((singlePush & allowed) != 0) {
+                    moves[index++] = PackedMove.create(from, to, PAWN, 0, PackedMove.QUIET);
+                }
+                // Checked separately: when blocking a check the jump can land on the line even if the single step does not
+                if ((startTiles & (1L << from)) != 0) {
+                    final long doublePush = AttackTables.pawnPushes(alliance, to) & emptyTiles & allowed;
+                    if (doublePush != 0) {
+                        moves[index++] = PackedMove.create(from, Long.numberOfTrailingZeros(doublePush), PAWN, 0,
+                                                           PackedMove.DOUBLE_PAWN_PUSH);
+                    }
+                }
+            }
+            index = MoveGenerator.writeMoves(board, alliance, from, PAWN,
+                                             AttackTables.pawnAttacks(alliance, from) & enemyPieces & allowed, moves, index);
+            pawns &= pawns - 1;
+        }
+
+        final int enPassantTile = board.getEnPassantTile();
+        return enPassantTile == BoardUtils.NO_EN_PASSANT_TILE ? index :
+               generateEnPassantMoves(board, alliance, kingTile, enPassantTile, moves, index);
+    }
+
+    private static int generatePromotions(final Position board,
+                                          final Alliance alliance,
+                                          final int from,
+                                          final long pushes,
+                                          long captures,
+                                          final int[] moves,
+                                          int index) {
+        if (pushes != 0) {
+            index = MoveGenerator.writePromotions(from, Long.numberOfTrailingZeros(pushes), 0, moves, index);
+        }
+        while (captures != 0) {
+            final int to = Long.numberOfTrailingZeros(captures);
+            index = MoveGenerator.writePromotions(from, to, MoveGenerator.capturedCode(board, alliance.getOpposite(), to),
+                                                  moves, index);
+            captures &= captures - 1;
+        }
+        return index;
+    }
+
+    // Whether or not a pin shows it, the king must not be attacked once the capturing pawn has gone from its tile to
+    // the en passant tile and the captured pawn has gone from its own. Covers the pawn being pinned, the capture
+    // answering a check or not, and the two pawns side by side on the king's row with a rook behind them
+    private static int generateEnPassantMoves(final Position board,
+                                              final Alliance alliance,
+                                              final int kingTile,
+                                              final int enPassantTile,
+                                              final int[] moves,
+                                              int index) {
+        final int firstMove = index;
+        index = MoveGenerator.writeEnPassantMoves(board, alliance, enPassantTile, moves, index);
+        int legalEnd = firstMove;
+        for (int i = firstMove; i < index; i++) {
+            final int from = PackedMove.getFromCoordinate(moves[i]);
+            final long victim = 1L << MoveGenerator.enPassantVictimTile(from, enPassantTile);
+            final long occupancy = board.getOccupancy() ^ (1L << from) ^ victim ^ (1L << enPassantTile);
+            if ((MoveGenerator.attackersOf(board, kingTile, alliance.getOpposite(), occupancy) & ~victim) == 0) {
+                moves[legalEnd++] = moves[i];
+            }
+        }
+        return legalEnd;
+    }
+
+    private static int generatePieceMoves(final Position board,
+                                          final Alliance alliance,
+                                          final int pieceCode,
+                                          final int kingTile,
+                                          final long pinned,
+                                          final long targets,
+                                          final int[] moves,
+                                          int index) {
+        final long occupancy = board.getOccupancy();
+        long pieces = board.getPieceBitBoard(bitBoardIndex(alliance, pieceCode));
+        while (pieces != 0) {
+            final int from = Long.numberOfTrailingZeros(pieces);
+            final long allowed = (pinned & (1L << from)) != 0 ? targets & AttackTables.line(kingTile, from) : targets;
+            index = MoveGenerator.writeMoves(board, alliance, from, pieceCode,
+                                             MoveGenerator.attacks(pieceCode, from, occupancy) & allowed, moves, index);
+            pieces &= pieces - 1;
+        }
+        return index;
+    }
+}
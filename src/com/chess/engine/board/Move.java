@@ -18,6 +18,43 @@ public abstract class Move { // Abstract since there are different types of move
         this.destinationCoordinate = destinationCoordinate;
     }
 
+    public Board getBoard() {
+        return this.board;
+    }
+
+    public Piece getMovedPiece() {
+        return this.movedPiece;
+    }
+
+    public int getCurrentCoordinate() { // Where the moving piece starts off
+        return this.movedPiece.getPiecePosition();
+    }
+
+    public int getDestinationCoordinate() {
+        return this.destinationCoordinate;
+    }
+
+    public boolean isAttack() { // Overridden by the moves that take a piece
+        return false;
+    }
+
+    public Piece getAttackedPiece() { // There is no attacked piece unless this is an attacking move
+        return null;
+    }
+
+    public boolean isCastlingMove() {
+        return false;
+    }
+
+    public Piece.PieceType getPromotionType() { // What a pawn turns into, null unless this is a promotion
+        return null;
+    }
+
+    // The PackedMove flag for this kind of move, each special move type overrides it
+    int getFlags() {
+        return PackedMove.QUIET;
+    }
+
     // We are wanting ot tell the difference between an attacking move and a non-attacking move
     public static final class MajorMove extends Move { // As in a major piece move
         public MajorMove(final Board board, // This is a move to an empty tile
@@ -27,7 +64,7 @@ public abstract class Move { // Abstract since there are different types of move
         }
     }
 
-    public static final class AttackMove extends Move {
+    public static class AttackMove extends Move { // Not final, taking en passant is still an attack
 
         // In an attack move there is one more value that you want to keep track of, the attacked piece
         final Piece attackedPiece;
@@ -39,5 +76,153 @@ public abstract class Move { // Abstract since there are different types of move
             super(board, movedPiece, destinationCoordinate);
             this.attackedPiece = attackedPiece;
         }
+
+        @Override
+        public boolean isAttack() {
+            return true;
+        }
+
+        @Override
+        public Piece getAttackedPiece() {
+            return this.attackedPiece;
+        }
+    }
+
+    // *****************************************************************************************************************************
+    //                          The special moves: pawn jump, en passant, promotion and castling
+
+    public static final class PawnJump extends Move { // A pawn's two tile first move, which lets the enemy take it en passant
+
+        public PawnJump(final Board board,
+                        final Piece movedPiece,
+                        final int destinationCoordinate) {
+            super(board, movedPiece, destinationCoordinate);
+        }
+
+        @Override
+        int getFlags() {
+            return PackedMove.DOUBLE_PAWN_PUSH;
+        }
+    }
+
+    public static final class PawnEnPassantAttackMove extends AttackMove {
+
+        // The destination is the empty tile the enemy pawn jumped over, the attacked pawn is the one beside our pawn
+        public PawnEnPassantAttackMove(final Board board,
+                                       final Piece movedPiece,
+                                       final int destinationCoordinate,
+                                       final Piece attackedPiece) {
+            super(board, movedPiece, destinationCoordinate, attackedPiece);
+        }
+
+        @Override
+        int getFlags() {
+            return PackedMove.EN_PASSANT;
+        }
+    }
+
+    public static final class PawnPromotion extends Move {
+
+        // A pawn reaching the last row, made up of the move that gets it there (a plain move or an attack) and the
+        // piece it turns into
+        final Move decoratedMove;
+        final Piece.PieceType promotionType;
+
+        public PawnPromotion(final Move decoratedMove, final Piece.PieceType promotionType) {
+            super(decoratedMove.getBoard(), decoratedMove.getMovedPiece(), decoratedMove.getDestinationCoordinate());
+            this.decoratedMove = decoratedMove;
+            this.promotionType = promotionType;
+        }
+
+        @Override
+        public boolean isAttack() {
+            return this.decoratedMove.isAttack();
+        }
+
+        @Override
+        public Piece getAttackedPiece() {
+            return this.decoratedMove.getAttackedPiece();
+        }
+
+        @Override
+        public Piece.PieceType getPromotionType() {
+            return this.promotionType;
+        }
+
+        @Override
+        int getFlags() {
+            return PackedMove.PROMOTION | (this.promotionType.ordinal() - Piece.PieceType.KNIGHT.ordinal());
+        }
+    }
+
+    public abstract static class CastleMove extends Move {
+
+        // The king is the moved piece, the rook moves along with it
+        final Piece castleRook;
+        final int castleRookStart;
+        final int castleRookDestination;
+
+        private CastleMove(final Board board,
+                           final Piece movedKing,
+                           final int destinationCoordinate,
+                           final Piece castleRook,
+                           final int castleRookStart,
+                           final int castleRookDestination) {
+            super(board, movedKing, destinationCoordinate);
+            this.castleRook = castleRook;
+            this.castleRookStart = castleRookStart;
+            this.castleRookDestination = castleRookDestination;
+        }
+
+        public Piece getCastleRook() {
+            return this.castleRook;
+        }
+
+        public int getCastleRookStart() {
+            return this.castleRookStart;
+        }
+
+        public int getCastleRookDestination() {
+            return this.castleRookDestination;
+        }
+
+        @Override
+        public boolean isCastlingMove() {
+            return true;
+        }
+    }
+
+    public static final class KingSideCastleMove extends CastleMove {
+
+        public KingSideCastleMove(final Board board,
+                                  final Piece movedKing,
+                                  final int destinationCoordinate,
+                                  final Piece castleRook,
+                                  final int castleRookStart,
+                                  final int castleRookDestination) {
+            super(board, movedKing, destinationCoordinate, castleRook, castleRookStart, castleRookDestination);
+        }
+
+        @Override
+        int getFlags() {
+            return PackedMove.KING_SIDE_CASTLE;
+        }
+    }
+
+    public static final class QueenSideCastleMove extends CastleMove {
+
+        public QueenSideCastleMove(final Board board,
+                                   final Piece movedKing,
+                                   final int destinationCoordinate,
+                                   final Piece castleRook,
+                                   final int castleRookStart,
+                                   final int castleRookDestination) {
+            super(board, movedKing, destinationCoordinate, castleRook, castleRookStart, castleRookDestination);
+        }
+
+        @Override
+        int getFlags() {
+            return PackedMove.QUEEN_SIDE_CASTLE;
+        }
     }
 }
@@ -0,0 +1,35 @@
+package com.chess.engine.board;
+
+/*
+* A reusable block of packed moves (see PackedMove) for one thread.
+*
+* Generators append moves at a start index and hand back the index after the last move they wrote, so a search can
+* stack the moves of every ply in the same array: ply 1 starts where ply 0 ended, and so on. Nothing is allocated
+* per position, the array is made once per thread and then reused for every node.
+* */
+
+public final class MoveBuffer {
+
+    public static final int MAX_MOVES_PER_POSITION = 256; // The most moves found in any legal position is 218
+    public static final int MAX_PLY = 128;
+
+    private static final ThreadLocal<MoveBuffer> THREAD_BUFFERS = ThreadLocal.withInitial(MoveBuffer::new);
+
+    private final int[] moves;
+
+    public MoveBuffer() {
+        this(MAX_PLY * MAX_MOVES_PER_POSITION);
+    }
+
+    public MoveBuffer(final int capacity) {
+        this.moves = new int[capacity];
+    }
+
+    public static MoveBuffer forCurrentThread() { // The buffer that belongs to the calling thread, made on first use
+        return THREAD_BUFFERS.get();
+    }
+
+    public int[] getMoves() {
+        return this.moves;
+    }
+}
@@ -0,0 +1,376 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import static com.chess.engine.board.BoardUtils.bitBoardIndex;
+
+/*
+* Allocation free move generation.
+*
+* This is the second way of getting moves out of a board, next to Piece.calculateLegalMoves. Instead of building Move
+* objects it writes packed int moves (see PackedMove) straight into a caller supplied int[], starting at a given index,
+* and returns the index after the last move written. Everything it needs comes from the board's bitboards and the
+* precomputed AttackTables, so nothing is allocated per position.
+*
+* The moves come out grouped by piece type: pawns, knights, bishops, rooks, queens and then the king, the pieces of a
+* type in increasing tile order. A pawn gives its push, its jump, then its captures; the other pieces give theirs in
+* increasing destination tile order. En passant comes after the other pawn moves and castling after the other king
+* moves. A pawn reaching the last row gives four moves, queen first. This is not the order of the piece by piece path,
+* which goes through the pieces in tile order whatever their type, so compare the two as sets, not move by move.
+*
+* Captures and quiet moves can also be generated on their own. Together the two give exactly the moves of
+* generateMoves, which lets a search generate the captures first and only pay for the quiet moves if no capture cuts
+* the node off, and lets quiescence search never generate quiet moves at all. Promotions that take nothing count as
+* captures here, they change the material just as much, and castling counts as a quiet move.
+* */
+
+public final class MoveGenerator {
+
+    // Tiles the pawns start on, a pawn on one of these has not moved yet so is allowed its jump move
+    static final long BLACK_PAWN_START_TILES = 0xFF00L; // Tiles 8 to 15, the second row
+    static final long WHITE_PAWN_START_TILES = 0xFFL << 48; // Tiles 48 to 55, the seventh row
+
+    // Tiles a pawn promotes on, and the tiles one step before them that a pawn promotes from
+    static final long WHITE_PROMOTION_TILES = 0xFFL; // Tiles 0 to 7, the eighth rank
+    static final long BLACK_PROMOTION_TILES = 0xFFL << 56; // Tiles 56 to 63, the first rank
+    private static final long WHITE_PROMOTING_TILES = WHITE_PROMOTION_TILES << BoardUtils.NUM_TILES_PER_ROW;
+    private static final long BLACK_PROMOTING_TILES = BLACK_PROMOTION_TILES >>> BoardUtils.NUM_TILES_PER_ROW;
+
+    private static final int PAWN = PieceType.PAWN.ordinal();
+    private static final int KNIGHT = PieceType.KNIGHT.ordinal();
+    private static final int BISHOP = PieceType.BISHOP.ordinal();
+    private static final int ROOK = PieceType.ROOK.ordinal();
+    private static final int QUEEN = PieceType.QUEEN.ordinal();
+    private static final int KING = PieceType.KING.ordinal();
+
+    private MoveGenerator() {
+        throw new RuntimeException("You cannot instantiate this!!!");
+    }
+
+    // All the moves for the side whose turn it is on this board
+    public static int generateMoves(final Position board, final int[] moves, final int startIndex) {
+        return generateMoves(board, board.getMoveMaker(), moves, startIndex);
+    }
+
+    public static int generateMoves(final Position board,
+                                    final Alliance alliance,
+                                    final int[] moves,
+                                    final int startIndex) {
+        final long enemyPieces = board.getOccupancy(alliance.getOpposite());
+        return generateMoves(board, alliance, ~board.getOccupancy(alliance), ~board.getOccupancy(), enemyPieces, true,
+                             moves, startIndex); // Anywhere but our own pieces
+    }
+
+    // Only the moves that take an enemy piece or promote, for the side whose turn it is
+    public static int generateCaptures(final Position board, final int[] moves, final int startIndex) {
+        final Alliance alliance = board.getMoveMaker();
+        final long enemyPieces = board.getOccupancy(alliance.getOpposite());
+        final long promotions = ~board.getOccupancy() & promotionTiles(alliance);
+        return generateMoves(board, alliance, enemyPieces, promotions, enemyPieces, false, moves, startIndex);
+    }
+
+    // Only the moves to empty tiles that do not promote, for the side whose turn it is
+    public static int generateQuietMoves(final Position board, final int[] moves, final int startIndex) {
+        final Alliance alliance = board.getMoveMaker();
+        final long emptyTiles = ~board.getOccupancy();
+        return generateMoves(board, alliance, emptyTiles, emptyTiles & ~promotionTiles(alliance), 0L, true, moves, startIndex);
+    }
+
+    // Every move whose destination is one of the targets. Pawns push and capture onto tiles of their own, since what
+    // counts as a capture for them differs
+    private static int generateMoves(final Position board,
+                                     final Alliance alliance,
+                                     final long targets,
+                                     final long pawnPushTargets,
+                                     final long pawnCaptureTargets,
+                                     final boolean castles,
+                                     final int[] moves,
+                                     final int startIndex) {
+        final long occupancy = board.getOccupancy();
+        int index = generatePawnMoves(board, alliance, pawnPushTargets, pawnCaptureTargets, moves, startIndex);
+        index = generatePieceMoves(board, alliance, KNIGHT, occupancy, targets, moves, index);
+        index = generatePieceMoves(board, alliance, BISHOP, occupancy, targets, moves, index);
+        index = generatePieceMoves(board, alliance, ROOK, occupancy, targets, moves, index);
+        index = generatePieceMoves(board, alliance, QUEEN, occupancy, targets, moves, index);
+        index = generatePieceMoves(board, alliance, KING, occupancy, targets, moves, index);
+        return castles ? generateCastlingMoves(board, alliance, moves, index) : index;
+    }
+
+    private static int generatePawnMoves(final Position board,
+                                         final Alliance alliance,
+                                         final long pushTargets,
+                                         final long captureTargets,
+                                         final int[] moves,
+                                         int index) {
+        final long emptyTiles = ~board.getOccupancy();
+        final long enemyPieces = board.getOccupancy(alliance.getOpposite()) & captureTargets;
+        final long startTiles = alliance.isWhite() ? WHITE_PAWN_START_TILES : BLACK_PAWN_START_TILES;
+        final long promotingTiles = promotingTiles(alliance);
+
+        long pawns = board.getPieceBitBoard(alliance, PieceType.PAWN);
+        while (pawns != 0) {
+            final int from = Long.numberOfTrailingZeros(pawns);
+            final long singlePush = AttackTables.pawnPushes(alliance, from) & emptyTiles;
+            if ((promotingTiles & (1L << from)) != 0) { // Every move this pawn makes lands on the last row
+                if ((singlePush & pushTargets) != 0) {
+                    index = writePromotions(from, Long.numberOfTrailingZeros(singlePush), 0, moves, index);
+                }
+                long captures = AttackTables.pawnAttacks(alliance, from) & enemyPieces;
+                while (captures != 0) {
+                    final int to = Long.numberOfTrailingZeros(captures);
+                    index = writePromotions(from, to, capturedCode(board, alliance.getOpposite(), to), moves, index);
+                    captures &= captures - 1;
+                }
+                pawns &= pawns - 1;
+                continue;
+            }
+            if (singlePush != 0) {
+                final int to = Long.numberOfTrailingZeros(singlePush);
+                if ((singlePush & pushTargets) != 0) {
+                    moves[index++] = PackedMove.create(from, to, PAWN, 0, PackedMove.QUIET);
+                }
+                // The jump move needs the tile in between to be free, which is exactly when the single push exists
+                if ((startTiles & (1L << from)) != 0) {
+                    final long doublePush = AttackTables.pawnPushes(alliance, to) & pushTargets;
+                    if (doublePush != 0) {
+                        moves[index++] = PackedMove.create(from, Long.numberOfTrailingZeros(doublePush), PAWN, 0,
+                                                           PackedMove.DOUBLE_PAWN_PUSH);
+                    }
+                }
+            }
+            index = writeMoves(board, alliance, from, PAWN, AttackTables.pawnAttacks(alliance, from) & enemyPieces,
+                               moves, index);
+            pawns &= pawns - 1;
+        }
+
+        // En passant. The board only keeps the tile when one of the side to move's pawns can take there
+        final int enPassantTile = board.getEnPassantTile();
+        if (enPassantTile != BoardUtils.NO_EN_PASSANT_TILE && alliance == board.getMoveMaker()) {
+            final int victimTile = enPassantTile + (alliance.isWhite() ? BoardUtils.NUM_TILES_PER_ROW : -BoardUtils.NUM_TILES_PER_ROW);
+            if ((captureTargets & (1L << victimTile)) != 0) {
+                index = writeEnPassantMoves(board, alliance, enPassantTile, moves, index);
+            }
+        }
+        return index;
+    }
+
+    static int writeEnPassantMoves(final Position board,
+                                   final Alliance alliance,
+                                   final int enPassantTile,
+                                   final int[] moves,
+                                   int index) {
+        // The pawns that could take on the tile are the ones an enemy pawn standing there would attack
+        long capturers = AttackTables.pawnAttacks(alliance.getOpposite(), enPassantTile) & board.getPieceBitBoard(alliance, PieceType.PAWN);
+        while (capturers != 0) {
+            moves[index++] = PackedMove.create(Long.numberOfTrailingZeros(capturers), enPassantTile, PAWN, PAWN + 1,
+                                               PackedMove.EN_PASSANT);
+            capturers &= capturers - 1;
+        }
+        return index;
+    }
+
+    // The four moves of a pawn landing on the last row, best piece first
+    static int writePromotions(final int from, final int to, final int capturedCode, final int[] moves, int index) {
+        moves[index++] = PackedMove.create(from, to, PAWN, capturedCode, PackedMove.QUEEN_PROMOTION);
+        moves[index++] = PackedMove.create(from, to, PAWN, capturedCode, PackedMove.KNIGHT_PROMOTION);
+        moves[index++] = PackedMove.create(from, to, PAWN, capturedCode, PackedMove.ROOK_PROMOTION);
+        moves[index++] = PackedMove.create(from, to, PAWN, capturedCode, PackedMove.BISHOP_PROMOTION);
+        return index;
+    }
+
+    // Castling moves for the alliance, if its rights are still there, the tiles between king and rook are empty and
+    // the king neither starts on, crosses nor lands on an attacked tile
+    static int generateCastlingMoves(final Position board, final Alliance alliance, final int[] moves, int index) {
+        if ((board.getCastlingRights() & (CastlingRights.kingSide(alliance) | CastlingRights.queenSide(alliance))) == 0) {
+            return index; // Most positions in a search, so no tile is looked at
+        }
+        final int kingTile = CastlingRights.kingStartTile(alliance);
+        if (canCastle(board, alliance, true)) {
+            moves[index++] = PackedMove.create(kingTile, CastlingRights.kingDestination(kingTile, true), KING, 0,
+                                               PackedMove.KING_SIDE_CASTLE);
+        }
+        if (canCastle(board, alliance, false)) {
+            moves[index++] = PackedMove.create(kingTile, CastlingRights.kingDestination(kingTile, false), KING, 0,
+                                               PackedMove.QUEEN_SIDE_CASTLE);
+        }
+        return index;
+    }
+
+    // The right being there means the king and rook are still on their starting tiles, see CastlingRights
+    private static boolean canCastle(final Position board, final Alliance alliance, final boolean kingSide) {
+        final int kingTile = CastlingRights.kingStartTile(alliance);
+        final int right = kingSide ? CastlingRights.kingSide(alliance) : CastlingRights.queenSide(alliance);
+        if ((board.getCastlingRights() & right) == 0 ||
+            (board.getOccupancy() & CastlingRights.emptyTilesNeeded(kingTile, kingSide)) != 0) {
+            return false;
+        }
+        long path = CastlingRights.kingPath(kingTile, kingSide);
+        while (path != 0) {
+            if (isSquareAttacked(board, Long.numberOfTrailingZeros(path), alliance.getOpposite())) {
+                return false;
+            }
+            path &= path - 1;
+        }
+        return true;
+    }
+
+    // Where the pawn taken by an en passant capture stands: the row the capturing pawn came from, the column it went to
+    public static int enPassantVictimTile(final int from, final int to) {
+        return (from & ~(BoardUtils.NUM_TILES_PER_ROW - 1)) | (to & (BoardUtils.NUM_TILES_PER_ROW - 1));
+    }
+
+    static long promotionTiles(final Alliance alliance) {
+        return alliance.isWhite() ? WHITE_PROMOTION_TILES : BLACK_PROMOTION_TILES;
+    }
+
+    static long promotingTiles(final Alliance alliance) {
+        return alliance.isWhite() ? WHITE_PROMOTING_TILES : BLACK_PROMOTING_TILES;
+    }
+
+    private static int generatePieceMoves(final Position board,
+                                          final Alliance alliance,
+                                          final int pieceCode,
+                                          final long occupancy,
+                                          final long targets,
+                                          final int[] moves,
+                                          int index) {
+        long pieces = board.getPieceBitBoard(bitBoardIndex(alliance, pieceCode));
+        while (pieces != 0) {
+            final int from = Long.numberOfTrailingZeros(pieces);
+            index = writeMoves(board, alliance, from, pieceCode, attacks(pieceCode, from, occupancy) & targets, moves, index);
+            pieces &= pieces - 1;
+        }
+        return index;
+    }
+
+    // Could this move come out of generateMoves for the side to move here? Moves from the transposition table or killer
+    // moves from another node are checked with this before they are played, since they may belong to another position
+    public static boolean isPseudoLegal(final Position board, final int move) {
+        if (move == PackedMove.NO_MOVE) {
+            return false;
+        }
+        final Alliance alliance = board.getMoveMaker();
+        final int from = PackedMove.getFromCoordinate(move);
+        final int to = PackedMove.getToCoordinate(move);
+        final int movedCode = PackedMove.getMovedCode(move);
+        final long toBit = 1L << to;
+        if ((board.getPieceBitBoard(bitBoardIndex(alliance, movedCode)) & (1L << from)) == 0) {
+            return false; // Our piece of that type is not on the from tile
+        }
+        final int capturedCode = PackedMove.getCapturedCode(move);
+        final int flags = PackedMove.getFlags(move);
+        if (flags == PackedMove.EN_PASSANT) { // The only capture that lands on an empty tile
+            return movedCode == PAWN && capturedCode == PAWN + 1 && to == board.getEnPassantTile() &&
+                   (AttackTables.pawnAttacks(alliance, from) & toBit) != 0;
+        }
+        if (capturedCode == 0 ? (board.getOccupancy() & toBit) != 0 :
+                                (board.getPieceBitBoard(bitBoardIndex(alliance.getOpposite(), capturedCode - 1)) & toBit) == 0) {
+            return false; // The destination does not hold what the move says it captures
+        }
+        if (flags == PackedMove.KING_SIDE_CASTLE || flags == PackedMove.QUEEN_SIDE_CASTLE) {
+            final boolean kingSide = flags == PackedMove.KING_SIDE_CASTLE;
+            return movedCode == KING && capturedCode == 0 && from == CastlingRights.kingStartTile(alliance) &&
+                   to == CastlingRights.kingDestination(from, kingSide) && canCastle(board, alliance, kingSide);
+        }
+        if (movedCode != PAWN) {
+            return flags == PackedMove.QUIET && (attacks(movedCode, from, board.getOccupancy()) & toBit) != 0;
+        }
+        if (((promotionTiles(alliance) & toBit) != 0) != PackedMove.isPromotion(move)) {
+            return false; // A pawn reaching the last row has to promote, and can only promote there
+        }
+        final boolean plainOrPromotion = flags == PackedMove.QUIET || PackedMove.isPromotion(move);
+        if (capturedCode != 0) {
+            return plainOrPromotion && (AttackTables.pawnAttacks(alliance, from) & toBit) != 0;
+        }
+        final long singlePush = AttackTables.pawnPushes(alliance, from);
+        if (plainOrPromotion) {
+            return singlePush == toBit;
+        }
+        final long startTiles = alliance.isWhite() ? WHITE_PAWN_START_TILES : BLACK_PAWN_START_TILES;
+        return flags == PackedMove.DOUBLE_PAWN_PUSH && (startTiles & (1L << from)) != 0 &&
+               (board.getOccupancy() & singlePush) == 0 &&
+               AttackTables.pawnPushes(alliance, Long.numberOfTrailingZeros(singlePush)) == toBit;
+    }
+
+    // Every piece of the attacking alliance that could take on the given tile, as a bitboard, with sliding attacks
+    // worked out for the given occupancy rather than the board's own (a king stepping away from a slider must not
+    // count itself as a blocker)
+    public static long attackersOf(final Position board, final int tileCoordinate, final Alliance attacker, final long occupancy) {
+        final long queens = board.getPieceBitBoard(bitBoardIndex(attacker, QUEEN));
+        return (AttackTables.pawnAttacks(attacker.getOpposite(), tileCoordinate) & board.getPieceBitBoard(bitBoardIndex(attacker, PAWN))) |
+               (AttackTables.knightAttacks(tileCoordinate) & board.getPieceBitBoard(bitBoardIndex(attacker, KNIGHT))) |
+               (AttackTables.kingAttacks(tileCoordinate) & board.getPieceBitBoard(bitBoardIndex(attacker, KING))) |
+               (AttackTables.bishopAttacks(tileCoordinate, occupancy) & (board.getPieceBitBoard(bitBoardIndex(attacker, BISHOP)) | queens)) |
+               (AttackTables.rookAttacks(tileCoordinate, occupancy) & (board.getPieceBitBoard(bitBoardIndex(attacker, ROOK)) | queens));
+    }
+
+    // Can any piece of the attacking alliance take on the given tile? Worked out backwards from the tile: a knight on
+    // the tile would reach every knight that attacks it, a bishop on the tile would reach every bishop or queen, etc.
+    public static boolean isSquareAttacked(final Position board, final int tileCoordinate, final Alliance attacker) {
+        final long occupancy = board.getOccupancy();
+        final long queens = board.getPieceBitBoard(bitBoardIndex(attacker, QUEEN));
+        return (AttackTables.pawnAttacks(attacker.getOpposite(), tileCoordinate) & board.getPieceBitBoard(bitBoardIndex(attacker, PAWN))) != 0 ||
+               (AttackTables.knightAttacks(tileCoordinate) & board.getPieceBitBoard(bitBoardIndex(attacker, KNIGHT))) != 0 ||
+               (AttackTables.kingAttacks(tileCoordinate) & board.getPieceBitBoard(bitBoardIndex(attacker, KING))) != 0 ||
+               (AttackTables.bishopAttacks(tileCoordinate, occupancy) & (board.getPieceBitBoard(bitBoardIndex(attacker, BISHOP)) | queens)) != 0 ||
+               (AttackTables.rookAttacks(tileCoordinate, occupancy) & (board.getPieceBitBoard(bitBoardIndex(attacker, ROOK)) | queens)) != 0;
+    }
+
+    // Every tile at least one piece of the alliance attacks, whether that tile is empty, holds an enemy piece or holds
+    // one of its own (a defended piece). Pawns count their diagonal captures only, never their pushes
+    public static long attackMap(final Position board, final Alliance alliance) {
+        final long occupancy = board.getOccupancy();
+        long attacked = AttackTables.allPawnAttacks(alliance, board.getPieceBitBoard(bitBoardIndex(alliance, PAWN)));
+        for (int pieceCode = KNIGHT; pieceCode <= KING; pieceCode++) {
+            long pieces = board.getPieceBitBoard(bitBoardIndex(alliance, pieceCode));
+            while (pieces != 0) {
+                attacked |= attacks(pieceCode, Long.numberOfTrailingZeros(pieces), occupancy);
+                pieces &= pieces - 1;
+            }
+        }
+        return attacked;
+    }
+
+    static long attacks(final int pieceCode, final int tileCoordinate, final long occupancy) {
+        if (pieceCode == KNIGHT) {
+            return AttackTables.knightAttacks(tileCoordinate);
+        } else if (pieceCode == BISHOP) {
+            return AttackTables.bishopAttacks(tileCoordinate, occupancy);
+        } else if (pieceCode == ROOK) {
+            return AttackTables.rookAttacks(tileCoordinate, occupancy);
+        } else if (pieceCode == QUEEN) {
+            return AttackTables.queenAttacks(tileCoordinate, occupancy);
+        }
+        return AttackTables.kingAttacks(tileCoordinate);
+    }
+
+    // Writes one move per destination bit, working out what (if anything) is captured on each destination
+    static int writeMoves(final Position board,
+                          final Alliance alliance,
+                          final int from,
+                          final int movedCode,
+                          final long destinations,
+                          final int[] moves,
+                          int index) {
+        final long enemyPieces = board.getOccupancy(alliance.getOpposite());
+        long remaining = destinations;
+        while (remaining != 0) {
+            final int to = Long.numberOfTrailingZeros(remaining);
+            final int capturedCode = (enemyPieces & (1L << to)) != 0 ? capturedCode(board, alliance.getOpposite(), to) : 0;
+            moves[index++] = PackedMove.create(from, to, movedCode, capturedCode, PackedMove.QUIET);
+            remaining &= remaining - 1;
+        }
+        return index;
+    }
+
+    static int capturedCode(final Position board, final Alliance enemy, final int tileCoordinate) {
+        final long tileBit = 1L << tileCoordinate;
+        for (int pieceCode = PAWN; pieceCode <= KING; pieceCode++) {
+            if ((board.getPieceBitBoard(bitBoardIndex(enemy, pieceCode)) & tileBit) != 0) {
+                return pieceCode + 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.chess.engine.board;
+
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+/*
+* A move squeezed into a single int, so move generation can write moves into a plain int[] without allocating.
+*
+*   bits  0-5   tile the piece moves from
+*   bits  6-11  tile the piece moves to
+*   bits 12-14  type of the moving piece (PieceType ordinal)
+*   bits 15-17  type of the captured piece (PieceType ordinal + 1, 0 means nothing is captured)
+*   bits 18-21  flags for the special moves, see below
+*
+* A Move object is only made from one of these when something outside the engine (the UI, an API) needs it.
+* */
+
+public final class PackedMove {
+
+    public static final int NO_MOVE = 0; // Would be a pawn moving from tile 0 to tile 0, which can never happen
+
+    // Flags, the promotion flags all have the PROMOTION bit set and carry the promoted piece in the low bits
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_SIDE_CASTLE = 2;
+    public static final int QUEEN_SIDE_CASTLE = 3;
+    public static final int EN_PASSANT = 4;
+    public static final int PROMOTION = 8;
+    public static final int KNIGHT_PROMOTION = PROMOTION;
+    public static final int BISHOP_PROMOTION = PROMOTION | 1;
+    public static final int ROOK_PROMOTION = PROMOTION | 2;
+    public static final int QUEEN_PROMOTION = PROMOTION | 3;
+
+    private static final int TILE_MASK = 0x3F;
+    private static final int PIECE_MASK = 0x7;
+    private static final int FLAG_MASK = 0xF;
+    private static final int TO_SHIFT = 6;
+    private static final int MOVED_SHIFT = 12;
+    private static final int CAPTURED_SHIFT = 15;
+    private static final int FLAG_SHIFT = 18;
+
+    private static final PieceType[] PIECE_TYPES = PieceType.values(); // values() copies the array each call, so keep one
+
+    private PackedMove() {
+        throw new RuntimeException("You cannot instantiate this!!!");
+    }
+
+    public static int create(final int fromCoordinate,
+                             final int toCoordinate,
+                             final PieceType movedType,
+                             final PieceType capturedType,
+                             final int flags) {
+        return create(fromCoordinate, toCoordinate, movedType.ordinal(),
+                      capturedType == null ? 0 : capturedType.ordinal() + 1, flags);
+    }
+
+    // Raw version used by the generators, the piece codes are already worked out (captured code 0 means no capture)
+    static int create(final int fromCoordinate,
+                      final int toCoordinate,
+                      final int movedCode,
+                      final int capturedCode,
+                      final int flags) {
+        return fromCoordinate |
+               (toCoordinate << TO_SHIFT) |
+               (movedCode << MOVED_SHIFT) |
+               (capturedCode << CAPTURED_SHIFT) |
+               (flags << FLAG_SHIFT);
+    }
+
+    public static int getFromCoordinate(final int move) {
+        return move & TILE_MASK;
+    }
+
+    public static int getToCoordinate(final int move) {
+        return (move >>> TO_SHIFT) & TILE_MASK;
+    }
+
+    public static PieceType getMovedType(final int move) {
+        return PIECE_TYPES[getMovedCode(move)];
+    }
+
+    public static int getMovedCode(final int move) { // PieceType ordinal of the moving piece
+        return (move >>> MOVED_SHIFT) & PIECE_MASK;
+    }
+
+    public static PieceType getCapturedType(final int move) { // null when the move does not capture anything
+        final int capturedCode = getCapturedCode(move);
+        return capturedCode == 0 ? null : PIECE_TYPES[capturedCode - 1];
+    }
+
+    public static int getCapturedCode(final int move) { // PieceType ordinal + 1 of the captured piece, 0 if none
+        return (move >>> CAPTURED_SHIFT) & PIECE_MASK;
+    }
+
+    public static boolean isCapture(final int move) {
+        return getCapturedCode(move) != 0;
+    }
+
+    public static int getFlags(final int move) {
+        return (move >>> FLAG_SHIFT) & FLAG_MASK;
+    }
+
+    public static boolean isPromotion(final int move) {
+        return (getFlags(move) & PROMOTION) != 0;
+    }
+
+    public static PieceType getPromotionType(final int move) { // Knight, bishop, rook or queen
+        return PIECE_TYPES[PieceType.KNIGHT.ordinal() + (getFlags(move) & ~PROMOTION)];
+    }
+
+    // *****************************************************************************************************************************
+    //                          Converting to and from Move objects, only done at the edges of the engine
+
+    public static int fromMove(final Move move) {
+        final Piece attackedPiece = move.getAttackedPiece();
+        return create(move.getCurrentCoordinate(),
+                      move.getDestinationCoordinate(),
+                      move.getMovedPiece().getPieceType(),
+                      attackedPiece == null ? null : attackedPiece.getPieceType(),
+                      move.getFlags()); // Each kind of Move knows its own flag
+    }
+
+    public static Move toMove(final Board board, final int move) {
+        final Piece movedPiece = board.getTile(getFromCoordinate(move)).getPiece();
+        final int destinationCoordinate = getToCoordinate(move);
+        final int flags = getFlags(move);
+        if (flags == DOUBLE_PAWN_PUSH) {
+            return new Move.PawnJump(board, movedPiece, destinationCoordinate);
+        } else if (flags == KING_SIDE_CASTLE || flags == QUEEN_SIDE_CASTLE) {
+            final boolean kingSide = flags == KING_SIDE_CASTLE;
+            final int kingTile = getFromCoordinate(move);
+            final int rookStart = CastlingRights.rookStart(kingTile, kingSide);
+            final Piece rook = board.getTile(rookStart).getPiece();
+            final int rookDestination = CastlingRights.rookDestination(kingTile, kingSide);
+            return kingSide ? new Move.KingSideCastleMove(board, movedPiece, destinationCoordinate, rook, rookStart, rookDestination) :
+                              new Move.QueenSideCastleMove(board, movedPiece, destinationCoordinate, rook, rookStart, rookDestination);
+        } else if (flags == EN_PASSANT) {
+            final int capturedTile = MoveGenerator.enPassantVictimTile(getFromCoordinate(move), destinationCoordinate);
+            return new Move.PawnEnPassantAttackMove(board, movedPiece, destinationCoordinate, board.getTile(capturedTile).getPiece());
+        }
+        final Move plainMove = isCapture(move) ?
+                new Move.AttackMove(board, movedPiece, destinationCoordinate, board.getTile(destinationCoordinate).getPiece()) :
+                new Move.MajorMove(board, movedPiece, destinationCoordinate);
+        return isPromotion(move) ? new Move.PawnPromotion(plainMove, getPromotionType(move)) : plainMove;
+    }
+
+    // e.g. "e2e4", the same form other engines print in their perft divide, with the promoted piece after a promotion
+    // in lower case: "e7e8q"
+    public static String toString(final int move) {
+        final String fromTo = BoardUtils.getPositionAtCoordinate(getFromCoordinate(move)) +
+                              BoardUtils.getPositionAtCoordinate(getToCoordinate(move));
+        return isPromotion(move) ? fromTo + getPromotionType(move).toString().toLowerCase() : fromTo;
+    }
+}
@@ -0,0 +1,155 @@
+package com.chess.engine.board;
+
+import com.chess.engine.pieces.Piece.PieceType;
+
+import static com.chess.engine.board.BoardUtils.NUM_BIT_BOARDS;
+import static com.chess.engine.board.BoardUtils.NUM_PIECE_TYPES;
+import static com.chess.engine.board.BoardUtils.NUM_TILES;
+
+/*
+* Material plus piece-square tables, with a middlegame and an endgame value for every piece on every tile.
+*
+* A knight in the centre is worth more than one on the rim, a king wants to hide in the middlegame and walk to the
+* centre in the endgame, and so on. Each (piece, tile) value already includes the piece's material value, so the whole
+* material and placement score of a position is just the sum over its pieces. Board works that sum out as pieces are
+* set and SearchBoard keeps it up to date move by move, the same way as the Zobrist key, so the evaluator never has to
+* walk the board for it.
+*
+* The two values are packed into one int, middlegame in the low 16 bits and endgame in the high 16 bits, so a single
+* add or subtract moves both at once. Use middlegame() and endgame() to get them back out. Scores are from white's
+* point of view: black pieces count negative.
+*
+* The tables below are written from white's side with rank 8 on the first line, which is exactly the tile order, so a
+* white piece reads its own tile and a black piece reads the tile mirrored top to bottom.
+* */
+
+public final class PieceSquareTables {
+
+    private static final int[][] SCORES = new int[NUM_BIT_BOARDS][NUM_TILES]; // [BoardUtils.bitBoardIndex][tile]
+
+    private static final int[] PAWN_MIDDLEGAME = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             10,  10,  20,  30,  30,  20,  10,  10,
+              5,   5,  10,  25,  25,  10,   5,   5,
+              0,   0,   0,  20,  20,   0,   0,   0,
+              5,  -5, -10,   0,   0, -10,  -5,   5,
+              5,  10,  10, -20, -20,  10,  10,   5,
+              0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    private static final int[] PAWN_ENDGAME = { // Every step closer to promotion counts, wherever the pawn is
+              0,   0,   0,   0,   0,   0,   0,   0,
+             80,  80,  80,  80,  80,  80,  80,  80,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             30,  30,  30,  30,  30,  30,  30,  30,
+             15,  15,  15,  15,  15,  15,  15,  15,
+              5,   5,   5,   5,   5,   5,   5,   5,
+              0,   0,   0,   0,   0,   0,   0,   0,
+              0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20,   0,   0,   0,   0, -20, -40,
+            -30,   0,  10,  15,  15,  10,   0, -30,
+            -30,   5,  15,  20,  20,  15,   5, -30,
+            -30,   0,  15,  20,  20,  15,   0, -30,
+            -30,   5,  10,  15,  15,  10,   5, -30,
+            -40, -20,   0,   5,   5,   0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,  10,  10,   5,   0, -10,
+            -10,   5,   5,  10,  10,   5,   5, -10,
+            -10,   0,  10,  10,  10,  10,   0, -10,
+            -10,  10,  10,  10,  10,  10,  10, -10,
+            -10,   5,   0,   0,   0,   0,   5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+
+    private static final int[] ROOK = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+              5,  10,  10,  10,  10,  10,  10,   5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+              0,   0,   0,   5,   5,   0,   0,   0
+    };
+
+    private static final int[] QUEEN = {
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,   5,   5,   5,   0, -10,
+             -5,   0,   5,   5,   5,   5,   0,  -5,
+              0,   0,   5,   5,   5,   5,   0,  -5,
+            -10,   5,   5,   5,   5,   5,   0, -10,
+            -10,   0,   5,   0,   0,   0,   0, -10,
+            -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+
+    private static final int[] KING_MIDDLEGAME = { // Stay castled behind the pawns
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+             20,  20,   0,   0,   0,   0,  20,  20,
+             20,  30,  10,   0,   0,  10,  30,  20
+    };
+
+    private static final int[] KING_ENDGAME = { // Come out and fight once the queens are off
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10,   0,   0, -10, -20, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -30,   0,   0,   0,   0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    static {
+        final int[][] middlegameTables = {PAWN_MIDDLEGAME, KNIGHT, BISHOP, ROOK, QUEEN, KING_MIDDLEGAME}; // PieceType order
+        final int[][] endgameTables = {PAWN_ENDGAME, KNIGHT, BISHOP, ROOK, QUEEN, KING_ENDGAME};
+        final PieceType[] pieceTypes = PieceType.values();
+        for (int pieceCode = 0; pieceCode < NUM_PIECE_TYPES; pieceCode++) {
+            // The king is on the board for the whole game, so its material would only ever cancel out
+            final int material = pieceTypes[pieceCode] == PieceType.KING ? 0 : pieceTypes[pieceCode].getPieceValue();
+            for (int tile = 0; tile < NUM_TILES; tile++) {
+                SCORES[pieceCode][tile] = score(material + middlegameTables[pieceCode][tile],
+                                                material + endgameTables[pieceCode][tile]);
+                final int mirroredTile = tile ^ 56; // Same column, row counted from the other side
+                SCORES[NUM_PIECE_TYPES + pieceCode][tile] = -score(material + middlegameTables[pieceCode][mirroredTile],
+                                                                   material + endgameTables[pieceCode][mirroredTile]);
+            }
+        }
+    }
+
+    private PieceSquareTables() {
+        throw new RuntimeException("You cannot instantiate this!!!");
+    }
+
+    // Packed value of a piece standing on a tile, negative for black pieces, see BoardUtils.bitBoardIndex
+    public static int pieceScore(final int bitBoardIndex, final int tileCoordinate) {
+        return SCORES[bitBoardIndex][tileCoordinate];
+    }
+
+    public static int score(final int middlegame, final int endgame) { // Packs the two halves into one int
+        return (endgame << 16) + middlegame;
+    }
+
+    public static int middlegame(final int score) {
+        return (short) score; // The low half, cast through short to get the sign back
+    }
+
+    public static int endgame(final int score) {
+        return (short) ((score + 0x8000) >> 16); // Adding 0x8000 first undoes the borrow a negative low half took from the high half
+    }
+}
@@ -0,0 +1,30 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
+// The bitboard view of a chess position that the move generator works on
+// Board (immutable, one object per position) and SearchBoard (mutable, one object per search thread) both provide it
+
+public interface Position {
+
+    Alliance getMoveMaker(); // The alliance whose turn it is to move
+
+    long getZobristKey(); // Hash of the position, see Zobrist
+
+    long getPawnKey(); // Hash of the pawns only, see Zobrist.calculatePawnKey
+
+    int getCastlingRights(); // See CastlingRights
+
+    int getEnPassantTile(); // Tile a pawn can take en passant on this move, or BoardUtils.NO_EN_PASSANT_TILE
+
+    int getPieceSquareScore(); // Packed material and placement score from white's side, see PieceSquareTables
+
+    long getPieceBitBoard(int bitBoardIndex); // By slot number, see BoardUtils.bitBoardIndex
+
+    long getPieceBitBoard(Alliance alliance, Piece.PieceType pieceType);
+
+    long getOccupancy(Alliance alliance); // Every tile taken by one colour
+
+    long getOccupancy(); // Every tile taken by either colour
+}
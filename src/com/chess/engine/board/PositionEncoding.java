@@ -0,0 +1,257 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+* A position in 24 bytes, for keeping millions of them on disk or in memory instead of whole Board object graphs.
+*
+*   bytes 0-7    occupancy, bit i set when tile i holds a piece
+*   bytes 8-23   one 4 bit code per piece, for the occupied tiles in increasing tile order: the piece's bitboard index
+*                (0-5 white pawn to king, 6-11 black) in the low nibble of byte 8 for the first piece, the high nibble
+*                for the second, and so on. No legal position has more than 32 pieces, so 16 bytes always do
+*
+* The side to move, castling rights and en passant tile are not stored on their own, they go into codes an ordinary
+* piece never uses:
+*   12  a pawn that has just jumped and can be taken en passant (white if it stands on the fourth rank, else black)
+*   13  a rook on its starting tile that can still castle (white if on the first rank, else black)
+*   14  the black king, when it is black to move
+* so a position is fully described by its pieces. A position with black to move must have a black king, which every
+* real one does. The two move counters are not kept, the board does not have them either.
+*
+* The three longs (occupancy at 0, piece codes at 8 and 16) are written in the buffer's byte order; encode(Position) and
+* decode(byte[]) use little endian.
+* Everything reads and writes at absolute offsets, so buffer positions are never moved. Single fields (occupancy, side
+* to move, one piece bitboard) can be read straight out of a buffer without decoding the whole board.
+* */
+
+public final class PositionEncoding {
+
+    public static final int ENCODED_SIZE = 24;
+
+    private static final int MAX_PIECES = 32;
+    private static final int PIECES_OFFSET = 8;
+    private static final int NIBBLES_PER_LONG = 16;
+    private static final int BITS_PER_NIBBLE = 4;
+
+    private static final int EN_PASSANT_PAWN = 12; // The first code after the 12 bitboard indexes
+    private static final int CASTLING_ROOK = 13;
+    private static final int BLACK_KING_TO_MOVE = 14;
+
+    private static final int WHITE_PAWN = BoardUtils.bitBoardIndex(Alliance.WHITE, Piece.PieceType.PAWN);
+    private static final int BLACK_PAWN = BoardUtils.bitBoardIndex(Alliance.BLACK, Piece.PieceType.PAWN);
+    private static final int WHITE_ROOK = BoardUtils.bitBoardIndex(Alliance.WHITE, Piece.PieceType.ROOK);
+    private static final int BLACK_ROOK = BoardUtils.bitBoardIndex(Alliance.BLACK, Piece.PieceType.ROOK);
+    private static final int BLACK_KING = BoardUtils.bitBoardIndex(Alliance.BLACK, Piece.PieceType.KING);
+
+    private static final int FOURTH_RANK_START = 32; // Tiles 32 to 39, where a white pawn lands after its jump
+
+    private PositionEncoding() {
+        throw new RuntimeException("You cannot instantiate this!!!");
+    }
+
+    // *****************************************************************************************************************************
+    //                          Encoding
+
+    public static byte[] encode(final Position position) {
+        final byte[] bytes = new byte[ENCODED_SIZE];
+        encode(position, ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN), 0);
+        return bytes;
+    }
+
+    public static void encode(final Position position, final ByteBuffer buffer, final int offset) {
+        final long occupancy = position.getOccupancy();
+        if (Long.bitCount(occupancy) > MAX_PIECES) {
+            throw new IllegalArgumentException("More than " + MAX_PIECES + " pieces cannot be encoded");
+        }
+        final boolean blackToMove = position.getMoveMaker().isBlack();
+        if (blackToMove && position.getPieceBitBoard(BLACK_KING) == 0) {
+            throw new IllegalArgumentException("Black to move without a black king cannot be encoded");
+        }
+        final long castlingRooks = castlingRookTiles(position.getCastlingRights());
+        final int enPassantTile = position.getEnPassantTile();
+        final long enPassantPawn = enPassantTile == BoardUtils.NO_EN_PASSANT_TILE ? 0L :
+                1L << (enPassantTile + (blackToMove ? -BoardUtils.NUM_TILES_PER_ROW : BoardUtils.NUM_TILES_PER_ROW));
+
+        long lowPieces = 0L; // Codes of the first 16 pieces
+        long highPieces = 0L; // And of the rest
+        for (int bitBoardIndex = 0; bitBoardIndex < BoardUtils.NUM_BIT_BOARDS; bitBoardIndex++) {
+            long pieces = position.getPieceBitBoard(bitBoardIndex);
+            while (pieces != 0) {
+                final long tileBit = pieces & -pieces;
+                final int rank = Long.bitCount(occupancy & (tileBit - 1)); // How many pieces come before this one
+                final long code = encodedCode(bitBoardIndex, tileBit, castlingRooks, enPassantPawn, blackToMove);
+                if (rank < NIBBLES_PER_LONG) {
+                    lowPieces |= code << (rank * BITS_PER_NIBBLE);
+                } else {
+                    highPieces |= code << ((rank - NIBBLES_PER_LONG) * BITS_PER_NIBBLE);
+                }
+                pieces &= pieces - 1;
+            }
+        }
+        buffer.putLong(offset, occupancy);
+        buffer.putLong(offset + PIECES_OFFSET, lowPieces);
+        buffer.putLong(offset + PIECES_OFFSET + Long.BYTES, highPieces);
+    }
+
+    private static long encodedCode(final int bitBoardIndex,
+                                    final long tileBit,
+                                    final long castlingRooks,
+                                    final long enPassantPawn,
+                                    final boolean blackToMove) {
+        if ((bitBoardIndex == WHITE_ROOK || bitBoardIndex == BLACK_ROOK) && (castlingRooks & tileBit) != 0) {
+            return CASTLING_ROOK;
+        }
+        if ((bitBoardIndex == WHITE_PAWN || bitBoardIndex == BLACK_PAWN) && enPassantPawn == tileBit) {
+            return EN_PASSANT_PAWN;
+        }
+        if (bitBoardIndex == BLACK_KING && blackToMove) {
+            return BLACK_KING_TO_MOVE;
+        }
+        return bitBoardIndex;
+    }
+
+    private static long castlingRookTiles(final int castlingRights) { // Rights only exist while the rooks are at home
+        long rooks = 0L;
+        for (final Alliance alliance : Alliance.values()) {
+            final int kingTile = CastlingRights.kingStartTile(alliance);
+            if ((castlingRights & CastlingRights.kingSide(alliance)) != 0) {
+                rooks |= 1L << CastlingRights.rookStart(kingTile, true);
+            }
+            if ((castlingRights & CastlingRights.queenSide(alliance)) != 0) {
+                rooks |= 1L << CastlingRights.rookStart(kingTile, false);
+            }
+        }
+        return rooks;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Decoding
+
+    public static Board decode(final byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN), 0);
+    }
+
+    public static Board decode(final ByteBuffer buffer, final int offset) {
+        final long occupancy = occupancy(buffer, offset);
+        final long lowPieces = buffer.getLong(offset + PIECES_OFFSET);
+        final long highPieces = buffer.getLong(offset + PIECES_OFFSET + Long.BYTES);
+        final Board.Builder builder = new Board.Builder();
+        final Piece.PieceType[] pieceTypes = Piece.PieceType.values();
+        final int[] bitBoardIndexes = new int[MAX_PIECES]; // Castling rights must be known before any piece is made
+        int castlingRights = CastlingRights.NONE;
+        int enPassantTile = BoardUtils.NO_EN_PASSANT_TILE;
+        Alliance moveMaker = Alliance.WHITE;
+
+        long remaining = occupancy;
+        for (int rank = 0; remaining != 0; rank++) {
+            final int tile = Long.numberOfTrailingZeros(remaining);
+            final int code = code(lowPieces, highPieces, rank);
+            if (code == CASTLING_ROOK) {
+                castlingRights |= castlingRight(tile);
+            } else if (code == EN_PASSANT_PAWN) {
+                final boolean whitePawn = tile >= FOURTH_RANK_START;
+                enPassantTile = whitePawn ? tile + BoardUtils.NUM_TILES_PER_ROW : tile - BoardUtils.NUM_TILES_PER_ROW;
+                moveMaker = whitePawn ? Alliance.BLACK : Alliance.WHITE;
+            } else if (code == BLACK_KING_TO_MOVE) {
+                moveMaker = Alliance.BLACK;
+            }
+            bitBoardIndexes[rank] = bitBoardIndex(code, tile);
+            remaining &= remaining - 1;
+        }
+
+        remaining = occupancy;
+        for (int rank = 0; remaining != 0; rank++) {
+            final int tile = Long.numberOfTrailingZeros(remaining);
+            final Alliance alliance = bitBoardIndexes[rank] < BoardUtils.NUM_PIECE_TYPES ? Alliance.WHITE : Alliance.BLACK;
+            final Piece.PieceType pieceType = pieceTypes[bitBoardIndexes[rank] % BoardUtils.NUM_PIECE_TYPES];
+            builder.setPiece(Piece.createPiece(pieceType, alliance, tile,
+                                               BoardUtils.isFirstMove(pieceType, alliance, tile, castlingRights)));
+            remaining &= remaining - 1;
+        }
+        return builder.setMoveMaker(moveMaker)
+                      .setCastlingRights(castlingRights)
+                      .setEnPassantTile(enPassantTile)
+                      .build();
+    }
+
+    // *****************************************************************************************************************************
+    //                          Single fields, read in place
+
+    public static long occupancy(final ByteBuffer buffer, final int offset) {
+        return buffer.getLong(offset);
+    }
+
+    public static Alliance moveMaker(final ByteBuffer buffer, final int offset) {
+        final long occupancy = occupancy(buffer, offset);
+        final long lowPieces = buffer.getLong(offset + PIECES_OFFSET);
+        final long highPieces = buffer.getLong(offset + PIECES_OFFSET + Long.BYTES);
+        long remaining = occupancy;
+        for (int rank = 0; remaining != 0; rank++) {
+            final int code = code(lowPieces, highPieces, rank);
+            if (code == BLACK_KING_TO_MOVE) {
+                return Alliance.BLACK;
+            }
+            if (code == EN_PASSANT_PAWN) { // The side that did not just jump is to move
+                return Long.numberOfTrailingZeros(remaining) >= FOURTH_RANK_START ? Alliance.BLACK : Alliance.WHITE;
+            }
+            remaining &= remaining - 1;
+        }
+        return Alliance.WHITE;
+    }
+
+    // The tiles of one kind of piece, by BoardUtils.bitBoardIndex
+    public static long pieceBitBoard(final ByteBuffer buffer, final int offset, final int bitBoardIndex) {
+        final long occupancy = occupancy(buffer, offset);
+        final long lowPieces = buffer.getLong(offset + PIECES_OFFSET);
+        final long highPieces = buffer.getLong(offset + PIECES_OFFSET + Long.BYTES);
+        long pieces = 0L;
+        long remaining = occupancy;
+        for (int rank = 0; remaining != 0; rank++) {
+            final int tile = Long.numberOfTrailingZeros(remaining);
+            if (bitBoardIndex(code(lowPieces, highPieces, rank), tile) == bitBoardIndex) {
+                pieces |= 1L << tile;
+            }
+            remaining &= remaining - 1;
+        }
+        return pieces;
+    }
+
+    private static int code(final long lowPieces, final long highPieces, final int rank) {
+        return rank < NIBBLES_PER_LONG ? (int) (lowPieces >>> (rank * BITS_PER_NIBBLE)) & 0xF :
+                                         (int) (highPieces >>> ((rank - NIBBLES_PER_LONG) * BITS_PER_NIBBLE)) & 0xF;
+    }
+
+    // What piece a code stands for on its tile, folding the three special codes back into ordinary pieces
+    private static int bitBoardIndex(final int code, final int tile) {
+        switch (code) {
+            case EN_PASSANT_PAWN:
+                return tile >= FOURTH_RANK_START ? WHITE_PAWN : BLACK_PAWN;
+            case CASTLING_ROOK:
+                return tile >= BoardUtils.NUM_TILES - BoardUtils.NUM_TILES_PER_ROW ? WHITE_ROOK : BLACK_ROOK;
+            case BLACK_KING_TO_MOVE:
+                return BLACK_KING;
+            default:
+                if (code >= BoardUtils.NUM_BIT_BOARDS) {
+                    throw new RuntimeException("Invalid encoded piece code " + code + " on tile " + tile);
+                }
+                return code;
+        }
+    }
+
+    private static int castlingRight(final int rookTile) {
+        for (final Alliance alliance : Alliance.values()) {
+            final int kingTile = CastlingRights.kingStartTile(alliance);
+            if (rookTile == CastlingRights.rookStart(kingTile, true)) {
+                return CastlingRights.kingSide(alliance);
+            }
+            if (rookTile == CastlingRights.rookStart(kingTile, false)) {
+                return CastlingRights.queenSide(alliance);
+            }
+        }
+        throw new RuntimeException("Invalid encoded castling rook on tile " + rookTile);
+    }
+}
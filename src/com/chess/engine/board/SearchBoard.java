@@ -0,0 +1,332 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
+import java.util.Arrays;
+
+import static com.chess.engine.board.BoardUtils.*;
+
+/*
+* A mutable board for search and perft.
+*
+* Board is immutable, so getting to the next position means a fresh Builder, a map of pieces, 64 tiles and new piece
+* lists. That is fine for the UI but far too slow when millions of positions have to be visited. A SearchBoard is
+* loaded once from a Board and then moves are applied and taken back in place: makeMove updates the bitboards, the
+* piece on each tile and the side to move, and pushes what it needs onto a stack so unmakeMove can put it all back.
+*
+* Castling rights and the en passant tile are updated the same way on every move (see CastlingRights, and the en
+* passant key is 0 when there is none), the extra work for castling, en passant and promotion sits behind a single
+* test of the move's flags that plain moves and captures never get past.
+*
+* One SearchBoard per thread, it is not safe to share. toBoard() turns the current position back into an immutable
+* Board when a snapshot is needed.
+* */
+
+public final class SearchBoard implements Position {
+
+    public static final int EMPTY_TILE = -1; // Piece code of a tile with nothing on it
+
+    private static final int INITIAL_HISTORY_CAPACITY = 256;
+    private static final Piece.PieceType[] PIECE_TYPES = Piece.PieceType.values();
+    private static final int PAWN_CODE = Piece.PieceType.PAWN.ordinal();
+    private static final int PAWN_CAPTURED_CODE = PAWN_CODE + 1; // Captured codes are shifted up by one, 0 is no capture
+    private static final int ROOK_CODE = Piece.PieceType.ROOK.ordinal();
+    private static final int EN_PASSANT_SHIFT = 4; // State history keeps the castling rights below the en passant tile
+    private static final int CASTLING_RIGHTS_MASK = CastlingRights.ALL;
+
+    private final long[] pieceBitBoards; // Same layout as Board, see BoardUtils.bitBoardIndex
+    private final long[] allianceOccupancy; // [Alliance.ordinal()]
+    private long occupancy;
+    private final int[] pieceCodes; // The bitboard slot of the piece on each tile, or EMPTY_TILE
+    private Alliance moveMaker;
+    private int castlingRights;
+    private int enPassantTile;
+    private long zobristKey; // Kept up to date by every make and unmake rather than recomputed
+    private long pawnKey; // Zobrist key over the pawns alone, only changes when a pawn moves or is taken
+    private int pieceSquareScore; // Same again for the PieceSquareTables sum
+
+    // Undo stack, one entry per move made that has not been taken back yet
+    private int[] moveHistory;
+    private long[] keyHistory; // The key before each move, so unmaking is just putting it back
+    private long[] pawnKeyHistory;
+    private int[] scoreHistory;
+    private int[] stateHistory; // Castling rights and en passant tile before each move
+    private int historyCount;
+
+    public SearchBoard(final Board board) {
+        this.pieceBitBoards = new long[NUM_BIT_BOARDS];
+        this.allianceOccupancy = new long[Alliance.values().length];
+        this.pieceCodes = new int[NUM_TILES];
+        this.moveHistory = new int[INITIAL_HISTORY_CAPACITY];
+        this.keyHistory = new long[INITIAL_HISTORY_CAPACITY];
+        this.pawnKeyHistory = new long[INITIAL_HISTORY_CAPACITY];
+        this.scoreHistory = new int[INITIAL_HISTORY_CAPACITY];
+        this.stateHistory = new int[INITIAL_HISTORY_CAPACITY];
+        load(board);
+    }
+
+    // Throws away whatever position this board had and copies in the given one, so one SearchBoard can be reused
+    public void load(final Board board) {
+        Arrays.fill(this.pieceCodes, EMPTY_TILE);
+        for (int bitBoardIndex = 0; bitBoardIndex < NUM_BIT_BOARDS; bitBoardIndex++) {
+            final long pieces = board.getPieceBitBoard(bitBoardIndex);
+            this.pieceBitBoards[bitBoardIndex] = pieces;
+            long remaining = pieces;
+            while (remaining != 0) {
+                this.pieceCodes[Long.numberOfTrailingZeros(remaining)] = bitBoardIndex;
+                remaining &= remaining - 1;
+            }
+        }
+        this.allianceOccupancy[Alliance.WHITE.ordinal()] = board.getOccupancy(Alliance.WHITE);
+        this.allianceOccupancy[Alliance.BLACK.ordinal()] = board.getOccupancy(Alliance.BLACK);
+        this.occupancy = board.getOccupancy();
+        this.moveMaker = board.getMoveMaker();
+        this.castlingRights = board.getCastlingRights();
+        this.enPassantTile = board.getEnPassantTile();
+        this.zobristKey = board.getZobristKey();
+        this.pawnKey = board.getPawnKey();
+        this.pieceSquareScore = board.getPieceSquareScore();
+        this.historyCount = 0;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Making and taking back moves
+
+    public void makeMove(final int move) {
+        final int from = PackedMove.getFromCoordinate(move);
+        final int to = PackedMove.getToCoordinate(move);
+        final int flags = PackedMove.getFlags(move);
+        final int us = this.moveMaker.ordinal();
+        final int them = us ^ 1;
+        final long fromToBits = (1L << from) | (1L << to);
+
+        if (this.historyCount == this.moveHistory.length) { // Only long games ever get here
+            this.moveHistory = Arrays.copyOf(this.moveHistory, this.moveHistory.length * 2);
+            this.keyHistory = Arrays.copyOf(this.keyHistory, this.keyHistory.length * 2);
+            this.pawnKeyHistory = Arrays.copyOf(this.pawnKeyHistory, this.pawnKeyHistory.length * 2);
+            this.scoreHistory = Arrays.copyOf(this.scoreHistory, this.scoreHistory.length * 2);
+            this.stateHistory = Arrays.copyOf(this.stateHistory, this.stateHistory.length * 2);
+        }
+        this.keyHistory[this.historyCount] = this.zobristKey;
+        this.pawnKeyHistory[this.historyCount] = this.pawnKey;
+        this.scoreHistory[this.historyCount] = this.pieceSquareScore;
+        this.stateHistory[this.historyCount] = this.castlingRights | (this.enPassantTile << EN_PASSANT_SHIFT);
+        this.moveHistory[this.historyCount++] = move;
+
+        // The side to move always flips, any en passant chance is gone after one move, and a move from or to a king or
+        // rook starting tile takes the matching castling rights away
+        final int castlingRights = CastlingRights.update(this.castlingRights, from, to);
+        long key = this.zobristKey ^ Zobrist.blackToMoveKey() ^ Zobrist.enPassantKey(this.enPassantTile) ^
+                   Zobrist.castlingKey(this.castlingRights) ^ Zobrist.castlingKey(castlingRights);
+        this.castlingRights = castlingRights;
+        this.enPassantTile = NO_EN_PASSANT_TILE;
+
+        if (PackedMove.isCapture(move)) { // Take the captured piece off first, before the moving piece lands on its tile
+            final int capturedTile = flags == PackedMove.EN_PASSANT ? MoveGenerator.enPassantVictimTile(from, to) : to;
+            final int capturedIndex = them * NUM_PIECE_TYPES + PackedMove.getCapturedCode(move) - 1;
+            this.pieceBitBoards[capturedIndex] ^= 1L << capturedTile;
+            this.allianceOccupancy[them] ^= 1L << capturedTile;
+            this.pieceCodes[capturedTile] = EMPTY_TILE; // The moving piece lands on top of this straight after, bar en passant
+            key ^= Zobrist.pieceKey(capturedIndex, capturedTile);
+            this.pieceSquareScore -= PieceSquareTables.pieceScore(capturedIndex, capturedTile);
+            if (PackedMove.getCapturedCode(move) == PAWN_CAPTURED_CODE) {
+                this.pawnKey ^= Zobrist.pieceKey(capturedIndex, capturedTile);
+            }
+        }
+
+        final int movedIndex = us * NUM_PIECE_TYPES + PackedMove.getMovedCode(move);
+        this.pieceBitBoards[movedIndex] ^= fromToBits; // Flips the from bit off and the to bit on in one go
+        this.allianceOccupancy[us] ^= fromToBits;
+        this.pieceCodes[from] = EMPTY_TILE;
+        this.pieceCodes[to] = movedIndex;
+        key ^= Zobrist.pieceKey(movedIndex, from) ^ Zobrist.pieceKey(movedIndex, to);
+        this.pieceSquareScore += PieceSquareTables.pieceScore(movedIndex, to) - PieceSquareTables.pieceScore(movedIndex, from);
+        if (PackedMove.getMovedCode(move) == PAWN_CODE) {
+            this.pawnKey ^= Zobrist.pieceKey(movedIndex, from) ^ Zobrist.pieceKey(movedIndex, to);
+        }
+
+        if (flags != PackedMove.QUIET && flags != PackedMove.EN_PASSANT) { // En passant is done, it was only the capture tile
+            key = makeSpecialMove(move, flags, from, to, us, them, key);
+        }
+        this.occupancy = this.allianceOccupancy[0] | this.allianceOccupancy[1];
+        this.zobristKey = key;
+        this.moveMaker = this.moveMaker.getOpposite();
+    }
+
+    // The rest of a pawn jump, castle or promotion, once the moving piece itself has moved. Returns the updated key
+    private long makeSpecialMove(final int move, final int flags, final int from, final int to, final int us, final int them, long key) {
+        if (flags == PackedMove.DOUBLE_PAWN_PUSH) {
+            // Only recorded when an enemy pawn stands ready to take, see Zobrist
+            final int jumpedTile = (from + to) >>> 1;
+            if ((AttackTables.pawnAttacks(this.moveMaker, jumpedTile) & this.pieceBitBoards[them * NUM_PIECE_TYPES + PAWN_CODE]) != 0) {
+                this.enPassantTile = jumpedTile;
+                key ^= Zobrist.enPassantKey(jumpedTile);
+            }
+        } else if (flags == PackedMove.KING_SIDE_CASTLE || flags == PackedMove.QUEEN_SIDE_CASTLE) {
+            final boolean kingSide = flags == PackedMove.KING_SIDE_CASTLE;
+            final int rookStart = CastlingRights.rookStart(from, kingSide);
+            final int rookDestination = CastlingRights.rookDestination(from, kingSide);
+            final int rookIndex = us * NUM_PIECE_TYPES + ROOK_CODE;
+            final long rookBits = (1L << rookStart) | (1L << rookDestination);
+            this.pieceBitBoards[rookIndex] ^= rookBits;
+            this.allianceOccupancy[us] ^= rookBits;
+            this.pieceCodes[rookStart] = EMPTY_TILE;
+            this.pieceCodes[rookDestination] = rookIndex;
+            key ^= Zobrist.pieceKey(rookIndex, rookStart) ^ Zobrist.pieceKey(rookIndex, rookDestination);
+            this.pieceSquareScore += PieceSquareTables.pieceScore(rookIndex, rookDestination) -
+                                     PieceSquareTables.pieceScore(rookIndex, rookStart);
+        } else if (PackedMove.isPromotion(move)) { // The pawn has arrived on the last row, swap it for the new piece
+            final int pawnIndex = us * NUM_PIECE_TYPES + PAWN_CODE;
+            final int promotedIndex = us * NUM_PIECE_TYPES + PackedMove.getPromotionType(move).ordinal();
+            this.pieceBitBoards[pawnIndex] ^= 1L << to;
+            this.pieceBitBoards[promotedIndex] ^= 1L << to;
+            this.pieceCodes[to] = promotedIndex;
+            key ^= Zobrist.pieceKey(pawnIndex, to) ^ Zobrist.pieceKey(promotedIndex, to);
+            this.pawnKey ^= Zobrist.pieceKey(pawnIndex, to);
+            this.pieceSquareScore += PieceSquareTables.pieceScore(promotedIndex, to) - PieceSquareTables.pieceScore(pawnIndex, to);
+        }
+        return key;
+    }
+
+    public void makeMove(final Move move) { // Convenience for moves coming in from outside the engine
+        makeMove(PackedMove.fromMove(move));
+    }
+
+    public void unmakeMove() {
+        final int move = this.moveHistory[--this.historyCount];
+        this.zobristKey = this.keyHistory[this.historyCount];
+        this.pawnKey = this.pawnKeyHistory[this.historyCount];
+        this.pieceSquareScore = this.scoreHistory[this.historyCount];
+        this.castlingRights = this.stateHistory[this.historyCount] & CASTLING_RIGHTS_MASK;
+        this.enPassantTile = this.stateHistory[this.historyCount] >>> EN_PASSANT_SHIFT;
+        this.moveMaker = this.moveMaker.getOpposite(); // Back to the side that made the move
+        final int from = PackedMove.getFromCoordinate(move);
+        final int to = PackedMove.getToCoordinate(move);
+        final int flags = PackedMove.getFlags(move);
+        final int us = this.moveMaker.ordinal();
+        final int them = us ^ 1;
+        final long fromToBits = (1L << from) | (1L << to);
+
+        if (flags >= PackedMove.PROMOTION) { // Turn the new piece back into the pawn, which then moves back as usual
+            final int pawnIndex = us * NUM_PIECE_TYPES + PAWN_CODE;
+            this.pieceBitBoards[us * NUM_PIECE_TYPES + PackedMove.getPromotionType(move).ordinal()] ^= 1L << to;
+            this.pieceBitBoards[pawnIndex] ^= 1L << to;
+        } else if (flags == PackedMove.KING_SIDE_CASTLE || flags == PackedMove.QUEEN_SIDE_CASTLE) {
+            final boolean kingSide = flags == PackedMove.KING_SIDE_CASTLE;
+            final int rookStart = CastlingRights.rookStart(from, kingSide);
+            final int rookDestination = CastlingRights.rookDestination(from, kingSide);
+            final int rookIndex = us * NUM_PIECE_TYPES + ROOK_CODE;
+            final long rookBits = (1L << rookStart) | (1L << rookDestination);
+            this.pieceBitBoards[rookIndex] ^= rookBits;
+            this.allianceOccupancy[us] ^= rookBits;
+            this.pieceCodes[rookStart] = rookIndex;
+            this.pieceCodes[rookDestination] = EMPTY_TILE;
+        }
+
+        final int movedIndex = us * NUM_PIECE_TYPES + PackedMove.getMovedCode(move);
+        this.pieceBitBoards[movedIndex] ^= fromToBits;
+        this.allianceOccupancy[us] ^= fromToBits;
+        this.pieceCodes[from] = movedIndex;
+        this.pieceCodes[to] = EMPTY_TILE;
+
+        if (PackedMove.isCapture(move)) { // Put the captured piece back where it was
+            final int capturedTile = flags == PackedMove.EN_PASSANT ? MoveGenerator.enPassantVictimTile(from, to) : to;
+            final int capturedIndex = them * NUM_PIECE_TYPES + PackedMove.getCapturedCode(move) - 1;
+            this.pieceBitBoards[capturedIndex] ^= 1L << capturedTile;
+            this.allianceOccupancy[them] ^= 1L << capturedTile;
+            this.pieceCodes[capturedTile] = capturedIndex;
+        }
+        this.occupancy = this.allianceOccupancy[0] | this.allianceOccupancy[1];
+    }
+
+    // *****************************************************************************************************************************
+    //                          Queries
+
+    // True when the king of the given alliance can be taken, used after makeMove to throw away moves that leave the
+    // mover's own king in check
+    public boolean isInCheck(final Alliance alliance) {
+        final long king = this.pieceBitBoards[bitBoardIndex(alliance, Piece.PieceType.KING)];
+        return king != 0 && MoveGenerator.isSquareAttacked(this, Long.numberOfTrailingZeros(king), alliance.getOpposite());
+    }
+
+    public int getPieceCodeAt(final int tileCoordinate) { // Bitboard slot of the piece on the tile, or EMPTY_TILE
+        return this.pieceCodes[tileCoordinate];
+    }
+
+    public int getHistoryCount() { // How many moves have been made and not yet taken back
+        return this.historyCount;
+    }
+
+    public int getLastMove() {
+        return this.historyCount == 0 ? PackedMove.NO_MOVE : this.moveHistory[this.historyCount - 1];
+    }
+
+    @Override
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    @Override
+    public long getPawnKey() {
+        return this.pawnKey;
+    }
+
+    @Override
+    public int getPieceSquareScore() {
+        return this.pieceSquareScore;
+    }
+
+    @Override
+    public Alliance getMoveMaker() {
+        return this.moveMaker;
+    }
+
+    @Override
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    @Override
+    public int getEnPassantTile() {
+        return this.enPassantTile;
+    }
+
+    @Override
+    public long getPieceBitBoard(final int bitBoardIndex) {
+        return this.pieceBitBoards[bitBoardIndex];
+    }
+
+    @Override
+    public long getPieceBitBoard(final Alliance alliance, final Piece.PieceType pieceType) {
+        return this.pieceBitBoards[bitBoardIndex(alliance, pieceType)];
+    }
+
+    @Override
+    public long getOccupancy(final Alliance alliance) {
+        return this.allianceOccupancy[alliance.ordinal()];
+    }
+
+    @Override
+    public long getOccupancy() {
+        return this.occupancy;
+    }
+
+    // A snapshot of the current position as an immutable Board
+    public Board toBoard() {
+        final Board.Builder builder = new Board.Builder();
+        for (int tile = 0; tile < NUM_TILES; tile++) {
+            final int pieceCode = this.pieceCodes[tile];
+            if (pieceCode != EMPTY_TILE) {
+                final Alliance alliance = pieceCode < NUM_PIECE_TYPES ? Alliance.WHITE : Alliance.BLACK;
+                final Piece.PieceType pieceType = PIECE_TYPES[pieceCode % NUM_PIECE_TYPES];
+                builder.setPiece(Piece.createPiece(pieceType, alliance, tile,
+                                                   BoardUtils.isFirstMove(pieceType, alliance, tile, this.castlingRights)));
+            }
+        }
+        builder.setMoveMaker(this.moveMaker);
+        builder.setCastlingRights(this.castlingRights);
+        builder.setEnPassantTile(this.enPassantTile);
+        return builder.build();
+    }
+}
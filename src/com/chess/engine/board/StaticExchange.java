@@ -0,0 +1,116 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import static com.chess.engine.board.BoardUtils.bitBoardIndex;
+
+/*
+* Static exchange evaluation (SEE): what a capture wins or loses once every piece that can join in has taken on the
+* destination tile, worked out from the bitboards without making a single move.
+*
+* Both sides take turns capturing on the tile, each time with their least valuable piece that can get there, and each
+* side may stop whenever carrying on would lose more. After a rook, bishop, queen or pawn takes its turn the tile it
+* left is cleared and the lines through it looked at again, so a slider standing behind it (an x-ray, say a rook
+* behind a rook on the same file) joins the exchange next. A king only captures when nothing of the other side is
+* left to take it back.
+*
+* The running balance after each capture goes into a gain list, which is then folded from the back: at every step the
+* side to capture picks the better of stopping there or carrying on. The list is kept in the object, so evaluating
+* allocates nothing; use one StaticExchange per thread.
+*
+* Scores are in centipawns from the side making the move, using the PieceType values. Pawns that promote while
+* recapturing are counted as pawns.
+* */
+
+public final class StaticExchange {
+
+    private static final int PAWN = PieceType.PAWN.ordinal();
+    private static final int BISHOP = PieceType.BISHOP.ordinal();
+    private static final int ROOK = PieceType.ROOK.ordinal();
+    private static final int QUEEN = PieceType.QUEEN.ordinal();
+    private static final int KING = PieceType.KING.ordinal();
+
+    private static final int[] PIECE_VALUES = new int[PieceType.values().length]; // By PieceType ordinal
+
+    static {
+        for (final PieceType pieceType : PieceType.values()) {
+            PIECE_VALUES[pieceType.ordinal()] = pieceType.getPieceValue();
+        }
+    }
+
+    private final int[] gains = new int[BoardUtils.NUM_TILES / 2]; // One per capture, never more than 32 pieces to take
+
+    // What the move wins for the side making it once the exchange on its destination is over, 0 for a quiet move
+    // nothing can take back
+    public int evaluate(final Position board, final int move) {
+        final int from = PackedMove.getFromCoordinate(move);
+        final int to = PackedMove.getToCoordinate(move);
+        final int[] gains = this.gains;
+
+        // The first capture is the move itself. A promotion wins the difference between the new piece and the pawn
+        int pieceOnTileValue = PIECE_VALUES[PackedMove.getMovedCode(move)];
+        gains[0] = PackedMove.isCapture(move) ? PIECE_VALUES[PackedMove.getCapturedCode(move) - 1] : 0;
+        if (PackedMove.isPromotion(move)) {
+            pieceOnTileValue = PIECE_VALUES[PackedMove.getPromotionType(move).ordinal()];
+            gains[0] += pieceOnTileValue - PIECE_VALUES[PAWN];
+        }
+
+        long occupancy = board.getOccupancy() ^ (1L << from);
+        if (PackedMove.getFlags(move) == PackedMove.EN_PASSANT) { // The pawn taken is not on the destination tile
+            occupancy ^= 1L << MoveGenerator.enPassantVictimTile(from, to);
+        }
+        long attackers = (MoveGenerator.attackersOf(board, to, Alliance.WHITE, occupancy) |
+                          MoveGenerator.attackersOf(board, to, Alliance.BLACK, occupancy)) & occupancy;
+        final long diagonalSliders = board.getPieceBitBoard(Alliance.WHITE, PieceType.BISHOP) |
+                                     board.getPieceBitBoard(Alliance.BLACK, PieceType.BISHOP) |
+                                     board.getPieceBitBoard(Alliance.WHITE, PieceType.QUEEN) |
+                                     board.getPieceBitBoard(Alliance.BLACK, PieceType.QUEEN);
+        final long straightSliders = board.getPieceBitBoard(Alliance.WHITE, PieceType.ROOK) |
+                                     board.getPieceBitBoard(Alliance.BLACK, PieceType.ROOK) |
+                                     board.getPieceBitBoard(Alliance.WHITE, PieceType.QUEEN) |
+                                     board.getPieceBitBoard(Alliance.BLACK, PieceType.QUEEN);
+
+        Alliance side = board.getMoveMaker().getOpposite();
+        int depth = 0;
+        while (true) {
+            final long sideAttackers = attackers & board.getOccupancy(side);
+            if (sideAttackers == 0) {
+                break;
+            }
+            int pieceCode = PAWN;
+            long pieces = sideAttackers & board.getPieceBitBoard(bitBoardIndex(side, pieceCode));
+            while (pieces == 0) {
+                pieces = sideAttackers & board.getPieceBitBoard(bitBoardIndex(side, ++pieceCode));
+            }
+            if (pieceCode == KING && (attackers & board.getOccupancy(side.getOpposite())) != 0) {
+                break; // The king would be taking into check
+            }
+
+            depth++;
+            gains[depth] = pieceOnTileValue - gains[depth - 1]; // The balance if this capture is the last one
+            pieceOnTileValue = PIECE_VALUES[pieceCode];
+
+            occupancy ^= pieces & -pieces; // Lift the attacker off its tile and look through it for x-rays
+            if (pieceCode == PAWN || pieceCode == BISHOP || pieceCode == QUEEN) {
+                attackers |= AttackTables.bishopAttacks(to, occupancy) & diagonalSliders;
+            }
+            if (pieceCode == ROOK || pieceCode == QUEEN) {
+                attackers |= AttackTables.rookAttacks(to, occupancy) & straightSliders;
+            }
+            attackers &= occupancy;
+            side = side.getOpposite();
+        }
+
+        while (depth > 0) { // Each side takes the better of stopping before its capture or making it
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+            depth--;
+        }
+        return gains[0];
+    }
+
+    // Same for a Move object, from the board it was made on
+    public int evaluate(final Move move) {
+        return evaluate(move.getBoard(), PackedMove.fromMove(move));
+    }
+}
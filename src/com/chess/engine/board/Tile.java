@@ -1,15 +1,13 @@
 /*Efficiency: By caching all possible empty tiles, the code avoids repeatedly creating new empty tile objects,
-which can save memory and improve performance.
+which can save memory and improve performance. The same goes for occupied tiles: there is one for every piece in the
+PieceRegistry, so a board built from registry pieces makes no tiles at all.
 
-Immutability: The EMPTY_TILES map is final and cannot be modified after it’s created, ensuring that the empty tiles
-remain consistent throughout the game’s lifecycle.*/
+Immutability: The caches are private arrays that are filled in once and never written again, ensuring that the
+tiles remain consistent throughout the game’s lifecycle.*/
 
 package com.chess.engine.board;
 import com.chess.engine.pieces.Piece;
-
-import java.util.Collections; // Fo the unmodifiable map, use instead of ImmutableMap, using the guava library
-import java.util.HashMap;
-import java.util.Map; // Interface that maps keys to values
+import com.chess.engine.pieces.PieceRegistry;
 // Chess Board has 64 tiles
 
 // Abstract class - "Tile" is too vague and so make abstract, also adds extra layer of security
@@ -23,31 +21,44 @@ public abstract class Tile { // Parent class of EmptyTile
     protected final int tileCoordinate; // Make protected so can only be accessed by the subclasses, anf final so can't change
 
     // t’s marked as private static final, meaning it’s a constant that belongs to the class and cannot be modified after initialization
-    private static final Map<Integer, EmptyTile> EMPTY_TILES_CACHE = createAllPossibleEmptyTiles(); // initializes a map (EMPTY_TILES) that holds all possible empty tiles.
+    private static final EmptyTile[] EMPTY_TILES_CACHE = createAllPossibleEmptyTiles(); // Indexed by tile coordinate, no boxing
+    private static final OccupiedTile[] OCCUPIED_TILES_CACHE = createAllPossibleOccupiedTiles(); // Same index as PieceRegistry
 
     // With this method it has constructed every possible empty tile so that it doesn't have to be constructed again
-    private static Map<Integer, EmptyTile> createAllPossibleEmptyTiles() {
+    private static EmptyTile[] createAllPossibleEmptyTiles() {
 
-        /*This method constructs a map of empty tiles, with each tile corresponding to a unique coordinate
-        (0 to 63, representing an 8x8 board). Each tile is created once and stored in the map*/
-        final Map<Integer, EmptyTile> emptyTileMap = new HashMap<>();
+        /*This method constructs an array of empty tiles, with each tile corresponding to a unique coordinate
+        (0 to 63, representing an 8x8 board). Each tile is created once and stored in the array*/
+        final EmptyTile[] emptyTiles = new EmptyTile[BoardUtils.NUM_TILES];
         for(int i=0; i<BoardUtils.NUM_TILES; i++) {
-            emptyTileMap.put(i, new EmptyTile(i));
+            emptyTiles[i] = new EmptyTile(i);
         }
-        return Collections.unmodifiableMap(emptyTileMap); // After Constructed don't want anyone to be able to change it.
+        return emptyTiles;
+    }
+
+    private static OccupiedTile[] createAllPossibleOccupiedTiles() { // One for each shared piece, on that piece's tile
+        final OccupiedTile[] occupiedTiles = new OccupiedTile[PieceRegistry.NUM_PIECES];
+        for (int i = 0; i < PieceRegistry.NUM_PIECES; i++) {
+            final Piece piece = PieceRegistry.getPiece(i);
+            occupiedTiles[i] = new OccupiedTile(piece.getPiecePosition(), piece);
+        }
+        return occupiedTiles;
     }
 
     // Only way to create a new tile is by this new factory method
     public static Tile createTile(final int tileCoordinate, final Piece piece) {
 
-        // If they want an empty tile they will get one of the cached empty tiles otherwise create a new occupied tile
-        /*This method is used to create a tile at a given coordinate. If a piece is provided, it creates an OccupiedTile
-         with that piece. If no piece is provided (piece == null), it returns one of the pre-created empty tiles from the
-         EMPTY_TILES map.*/
+        /*This method is used to create a tile at a given coordinate. If a piece is provided, it returns the
+         pre-created OccupiedTile for that piece. If no piece is provided (piece == null), it returns one of the
+         pre-created empty tiles from the EMPTY_TILES_CACHE array.*/
 
-        // If the piece is not null, create a new occupied tile at the coordinate and its piece
-        // Otherwise create an empty tile that we retrieve from the empty tile cache
-        return piece != null ? new OccupiedTile(tileCoordinate, piece) : EMPTY_TILES_CACHE.get(tileCoordinate);
+        // Only a piece made outside the PieceRegistry (or one set on another tile than its own) gets a new occupied tile
+        if (piece == null) {
+            return EMPTY_TILES_CACHE[tileCoordinate];
+        }
+        final OccupiedTile cachedTile = OCCUPIED_TILES_CACHE[PieceRegistry.index(piece)];
+        return cachedTile.pieceOnTile == piece && cachedTile.tileCoordinate == tileCoordinate ?
+               cachedTile : new OccupiedTile(tileCoordinate, piece);
     }
 
     private Tile(final int tileCoordinate) { // Only accessible in this class
@@ -0,0 +1,124 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
+import static com.chess.engine.board.BoardUtils.NUM_BIT_BOARDS;
+import static com.chess.engine.board.BoardUtils.NUM_TILES;
+
+/*
+* Zobrist hashing, a 64 bit key per position.
+*
+* Every (piece type, alliance, tile) gets its own random number, and so do "black to move", each of the four castling
+* rights and each file an en passant capture can happen on. The key of a position is all the numbers that apply XORed
+* together. Because XOR undoes itself, moving a piece only needs the number for its old
+* tile and the number for its new tile XORed into the key, nothing has to be recomputed from scratch.
+*
+* The random numbers come from a fixed seed so keys are the same on every run, which matters once keys are written to
+* disk (position stores, opening books). New kinds of key are drawn after the existing ones, so adding them never
+* changes the numbers already in use.
+*
+* The en passant file only goes into the key when a pawn could actually take en passant, Board and SearchBoard only
+* ever record the tile in that case, so the same position reached with or without a harmless double push hashes the same.
+* */
+
+public final class Zobrist {
+
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+
+    private static final long[][] PIECE_KEYS = new long[NUM_BIT_BOARDS][NUM_TILES]; // [BoardUtils.bitBoardIndex][tile]
+    private static final long BLACK_TO_MOVE_KEY;
+    private static final long[] CASTLING_KEYS = new long[CastlingRights.NUM_COMBINATIONS]; // By the whole rights int
+    private static final long[] EN_PASSANT_KEYS = new long[NUM_TILES + 1]; // By tile, 0 for NO_EN_PASSANT_TILE
+
+    static {
+        long state = SEED;
+        for (int bitBoardIndex = 0; bitBoardIndex < NUM_BIT_BOARDS; bitBoardIndex++) {
+            for (int tile = 0; tile < NUM_TILES; tile++) {
+                state += 0x9E3779B97F4A7C15L;
+                PIECE_KEYS[bitBoardIndex][tile] = mix(state);
+            }
+        }
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE_KEY = mix(state);
+
+        final long[] castlingRightKeys = new long[4]; // One per right, each combination is the XOR of the ones it has
+        for (int right = 0; right < castlingRightKeys.length; right++) {
+            state += 0x9E3779B97F4A7C15L;
+            castlingRightKeys[right] = mix(state);
+        }
+        for (int castlingRights = 0; castlingRights < CastlingRights.NUM_COMBINATIONS; castlingRights++) {
+            for (int right = 0; right < castlingRightKeys.length; right++) {
+                if ((castlingRights & (1 << right)) != 0) {
+                    CASTLING_KEYS[castlingRights] ^= castlingRightKeys[right];
+                }
+            }
+        }
+        final long[] fileKeys = new long[BoardUtils.NUM_TILES_PER_ROW];
+        for (int file = 0; file < fileKeys.length; file++) {
+            state += 0x9E3779B97F4A7C15L;
+            fileKeys[file] = mix(state);
+        }
+        for (int tile = 0; tile < NUM_TILES; tile++) {
+            EN_PASSANT_KEYS[tile] = fileKeys[tile % BoardUtils.NUM_TILES_PER_ROW];
+        }
+    }
+
+    private Zobrist() {
+        throw new RuntimeException("You cannot instantiate this!!!");
+    }
+
+    // SplitMix64 finaliser, spreads each step of the counter over all 64 bits
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static long pieceKey(final int bitBoardIndex, final int tileCoordinate) {
+        return PIECE_KEYS[bitBoardIndex][tileCoordinate];
+    }
+
+    public static long blackToMoveKey() { // XORed in whenever it is black's turn, so the same layout with a different side to move differs
+        return BLACK_TO_MOVE_KEY;
+    }
+
+    public static long castlingKey(final int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    public static long enPassantKey(final int enPassantTile) { // 0 for NO_EN_PASSANT_TILE, so it can be XORed in unconditionally
+        return EN_PASSANT_KEYS[enPassantTile];
+    }
+
+    // Key over the pawns alone, everything else left out. Pawn structure only changes on pawn moves and captures of
+    // pawns, so evaluation terms that only look at pawns can be cached under this key
+    public static long calculatePawnKey(final Position position) {
+        long key = 0L;
+        for (final Alliance alliance : Alliance.values()) {
+            final int bitBoardIndex = BoardUtils.bitBoardIndex(alliance, Piece.PieceType.PAWN);
+            long pawns = position.getPieceBitBoard(bitBoardIndex);
+            while (pawns != 0) {
+                key ^= PIECE_KEYS[bitBoardIndex][Long.numberOfTrailingZeros(pawns)];
+                pawns &= pawns - 1;
+            }
+        }
+        return key;
+    }
+
+    // The full key worked out from scratch, only used when a position is first built
+    public static long calculateKey(final Position position) {
+        long key = 0L;
+        for (int bitBoardIndex = 0; bitBoardIndex < NUM_BIT_BOARDS; bitBoardIndex++) {
+            long pieces = position.getPieceBitBoard(bitBoardIndex);
+            while (pieces != 0) {
+                key ^= PIECE_KEYS[bitBoardIndex][Long.numberOfTrailingZeros(pieces)];
+                pieces &= pieces - 1;
+            }
+        }
+        if (position.getMoveMaker() == Alliance.BLACK) {
+            key ^= BLACK_TO_MOVE_KEY;
+        }
+        return key ^ CASTLING_KEYS[position.getCastlingRights()] ^ EN_PASSANT_KEYS[position.getEnPassantTile()];
+    }
+}
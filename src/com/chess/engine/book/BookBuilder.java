@@ -0,0 +1,251 @@
+package com.chess.engine.book;
+
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pgn.PgnParser;
+import com.chess.engine.pgn.PgnReader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/*
+* Makes an OpeningBook from the games in a PGN file:
+*   BookBuilder games.pgn book.bin [max plies, default 20] [min games, default 2]
+*
+* Every move played in the first max plies of a game with a result is counted under the PolyglotKey of the position
+* it was played in. As in Polyglot's own book making, a move scores 2 for each game its side went on to win, 1 for each
+* draw and 0 for each loss, and that score is its weight. Moves seen in fewer than min games are left out, which keeps
+* one-off blunders out of the book, as are moves that only ever lost.
+*
+* Counts go into plain parallel arrays, one slot per (position, move) seen. When they fill up they are sorted and the
+* duplicates summed, and they only grow if that did not free up enough room, so memory follows the number of distinct
+* moves rather than the size of the file. The file is streamed through a PgnReader with one worker.
+* */
+
+public final class BookBuilder implements PgnParser.GameVisitor {
+
+    private static final int DEFAULT_MAX_PLIES = 20;
+    private static final int DEFAULT_MIN_GAMES = 2;
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    private static final int MAX_WEIGHT = 0xFFFF; // Weights are 16 bits in the file, bigger ones are scaled down per position
+
+    private final int maxPlies;
+
+    // One slot per (position, move) seen, sorted and merged when full
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] moves = new int[INITIAL_CAPACITY];
+    private int[] weights = new int[INITIAL_CAPACITY];
+    private int[] games = new int[INITIAL_CAPACITY];
+    private int count;
+
+    // The opening of the game being read, kept until its result is known
+    private final long[] gameKeys;
+    private final int[] gameMoves;
+    private int gamePlies;
+    private boolean whiteStarted; // A game from a FEN tag can start with black to move
+
+    private long gamesCounted;
+
+    public BookBuilder(final int maxPlies) {
+        if (maxPlies < 1) {
+            throw new IllegalArgumentException("Need at least one ply to count, got " + maxPlies);
+        }
+        this.maxPlies = maxPlies;
+        this.gameKeys = new long[maxPlies];
+        this.gameMoves = new int[maxPlies];
+    }
+
+    // *****************************************************************************************************************************
+    //                          Reading games
+
+    @Override
+    public void startGame(final SearchBoard board, final PgnParser.Result taggedResult) {
+        this.gamePlies = 0;
+        this.whiteStarted = board.getMoveMaker().isWhite();
+    }
+
+    @Override
+    public boolean visitMove(final SearchBoard board, final int move, final int ply) {
+        this.gameKeys[this.gamePlies] = PolyglotKey.calculateKey(board);
+        this.gameMoves[this.gamePlies++] = OpeningBook.toBookMove(move);
+        return this.gamePlies < this.maxPlies;
+    }
+
+    @Override
+    public void endGame(final PgnParser.Result result) {
+        if (result == PgnParser.Result.UNKNOWN) {
+            return; // Nothing to weigh the moves by
+        }
+        for (int ply = 0; ply < this.gamePlies; ply++) {
+            final boolean whiteMoved = (ply % 2 == 0) == this.whiteStarted;
+            final int score = result == PgnParser.Result.DRAW ? 1 :
+                              (result == PgnParser.Result.WHITE_WINS) == whiteMoved ? 2 : 0;
+            add(this.gameKeys[ply], this.gameMoves[ply], score);
+        }
+        this.gamesCounted++;
+    }
+
+    private void add(final long key, final int move, final int score) {
+        if (this.count == this.keys.length) {
+            merge();
+            if (this.count > this.keys.length / 2) { // Mostly distinct moves, merging again soon would gain little
+                final int capacity = this.keys.length * 2;
+                this.keys = Arrays.copyOf(this.keys, capacity);
+                this.moves = Arrays.copyOf(this.moves, capacity);
+                this.weights = Arrays.copyOf(this.weights, capacity);
+                this.games = Arrays.copyOf(this.games, capacity);
+            }
+        }
+        this.keys[this.count] = key;
+        this.moves[this.count] = move;
+        this.weights[this.count] = score;
+        this.games[this.count++] = 1;
+    }
+
+    // Sorts the slots by key then move and sums up the ones for the same move in the same position
+    private void merge() {
+        sort(0, this.count - 1);
+        int merged = 0;
+        for (int i = 0; i < this.count; i++) {
+            if (merged > 0 && this.keys[merged - 1] == this.keys[i] && this.moves[merged - 1] == this.moves[i]) {
+                this.weights[merged - 1] += this.weights[i];
+                this.games[merged - 1] += this.games[i];
+            } else {
+                copy(i, merged++);
+            }
+        }
+        this.count = merged;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Writing the book
+
+    // Writes entries sorted by key, best weight first within a key. Returns how many were written
+    public long write(final Path path, final int minGames) throws IOException {
+        merge();
+        long written = 0L;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            int first = 0;
+            while (first < this.count) {
+                int last = first; // Slots first to last (exclusive) are one position's moves
+                int maxWeight = 0;
+                while (last < this.count && this.keys[last] == this.keys[first]) {
+                    if (this.games[last] >= minGames) {
+                        maxWeight = Math.max(maxWeight, this.weights[last]);
+                    }
+                    last++;
+                }
+                sortByWeight(first, last);
+                for (int i = first; i < last; i++) {
+                    final int weight = maxWeight <= MAX_WEIGHT ? this.weights[i] :
+                                       (int) ((long) this.weights[i] * MAX_WEIGHT / maxWeight);
+                    if (this.games[i] >= minGames && weight > 0) { // DataOutputStream is big endian, as the book is
+                        out.writeLong(this.keys[i]);
+                        out.writeShort(this.moves[i]);
+                        out.writeShort(weight);
+                        out.writeInt(0);
+                        written++;
+                    }
+                }
+                first = last;
+            }
+        }
+        return written;
+    }
+
+    public long getGamesCounted() {
+        return this.gamesCounted;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Sorting the parallel arrays
+
+    private void sort(int low, int high) { // Quicksort by key (unsigned, the order the book is searched in) then move
+        while (high - low > 16) {
+            final int middle = (low + high) >>> 1;
+            final long pivotKey = this.keys[middle];
+            final int pivotMove = this.moves[middle];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(i, pivotKey, pivotMove) < 0) {
+                    i++;
+                }
+                while (compare(j, pivotKey, pivotMove) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (j - low < high - i) { // Recurse into the smaller half, so the stack stays shallow
+                sort(low, j);
+                low = i;
+            } else {
+                sort(i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(j - 1, this.keys[j], this.moves[j]) > 0; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }
+
+    private int compare(final int slot, final long key, final int move) {
+        final int byKey = Long.compareUnsigned(this.keys[slot], key);
+        return byKey != 0 ? byKey : Integer.compare(this.moves[slot], move);
+    }
+
+    private void sortByWeight(final int first, final int last) { // A position only has a few moves, insertion sort is fine
+        for (int i = first + 1; i < last; i++) {
+            for (int j = i; j > first && this.weights[j - 1] < this.weights[j]; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }
+
+    private void swap(final int a, final int b) {
+        final long key = this.keys[a];
+        this.keys[a] = this.keys[b];
+        this.keys[b] = key;
+        final int move = this.moves[a];
+        this.moves[a] = this.moves[b];
+        this.moves[b] = move;
+        final int weight = this.weights[a];
+        this.weights[a] = this.weights[b];
+        this.weights[b] = weight;
+        final int gameCount = this.games[a];
+        this.games[a] = this.games[b];
+        this.games[b] = gameCount;
+    }
+
+    private void copy(final int from, final int to) {
+        this.keys[to] = this.keys[from];
+        this.moves[to] = this.moves[from];
+        this.weights[to] = this.weights[from];
+        this.games[to] = this.games[from];
+    }
+
+    // *****************************************************************************************************************************
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BookBuilder games.pgn book.bin [max plies] [min games]");
+            return;
+        }
+        final int maxPlies = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_PLIES;
+        final int minGames = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_MIN_GAMES;
+        final long startTime = System.nanoTime();
+        final BookBuilder builder = new BookBuilder(maxPlies);
+        final PgnReader.Report report = new PgnReader(1).read(Paths.get(args[0]), () -> builder); // The builder is for one thread
+        final long entries = builder.write(Paths.get(args[1]), minGames);
+        System.out.printf("%,d games counted, %,d skipped, %,d book entries written in %,d ms%n", builder.getGamesCounted(),
+                          report.getSkippedGames(), entries, (System.nanoTime() - startTime) / 1_000_000L);
+    }
+}
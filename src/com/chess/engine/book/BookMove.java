@@ -0,0 +1,36 @@
+package com.chess.engine.book;
+
+import com.chess.engine.board.Move;
+import com.chess.engine.board.PackedMove;
+
+// One move the book has for a position, and its weight: how often to play it compared with the position's other book moves
+
+public final class BookMove {
+
+    private final Move move;
+    private final int packedMove;
+    private final int weight;
+
+    BookMove(final Move move, final int packedMove, final int weight) {
+        this.move = move;
+        this.packedMove = packedMove;
+        this.weight = weight;
+    }
+
+    public Move getMove() {
+        return this.move;
+    }
+
+    public int getPackedMove() {
+        return this.packedMove;
+    }
+
+    public int getWeight() {
+        return this.weight;
+    }
+
+    @Override
+    public String toString() {
+        return PackedMove.toString(this.packedMove) + " " + this.weight;
+    }
+}
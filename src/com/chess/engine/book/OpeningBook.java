@@ -0,0 +1,246 @@
+package com.chess.engine.book;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.CastlingRights;
+import com.chess.engine.board.LegalMoveGenerator;
+import com.chess.engine.board.MoveBuffer;
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.Position;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+* An opening book in the Polyglot .bin layout, read through a memory-mapped file.
+*
+* The file is nothing but 16 byte entries, big endian, sorted by key (as an unsigned number) and within a key by weight,
+* highest first:
+*   bytes 0-7    position key, see PolyglotKey
+*   bytes 8-9    move: bits 0-2 to file, 3-5 to rank, 6-8 from file, 9-11 from rank, 12-14 promotion (0 none, 1 knight
+*                through 4 queen). Ranks count from white's side, so rank 0 is our row 7. Castling is written as the
+*                king taking its own rook, e1h1 rather than e1g1
+*   bytes 10-11  weight, how often to play the move compared with the others in the position
+*   bytes 12-15  learn, left for other tools, not read
+*
+* The keys are Polyglot's own, so books made by other Polyglot tools work here and BookBuilder's books work in them.
+*
+* A probe is a binary search straight over the mapped pages for the first entry with the key, then a read of the
+* entries after it, so a book of any size costs no heap and about 20 reads to probe. Book moves become packed moves
+* by looking at the position's bitboards, and one that does not fit the position (a different position with the same
+* key) is dropped, so probing is cheap enough to do at every root. The mapping is read with absolute gets only, so one
+* book can be probed from any number of threads.
+* */
+
+public final class OpeningBook implements Closeable {
+
+    public static final int ENTRY_SIZE = 16;
+
+    static final int MOVE_OFFSET = 8;
+    static final int WEIGHT_OFFSET = 10;
+
+    private static final int ENTRIES_PER_SEGMENT_SHIFT = 26; // 2^26 entries of 16 bytes is 1 GB per mapping
+    private static final int BOOK_TILE_FLIP = 56; // Polyglot counts ranks from white's side, we count rows from black's
+    private static final int BOOK_TO_SHIFT = 0;
+    private static final int BOOK_FROM_SHIFT = 6;
+    private static final int BOOK_PROMOTION_SHIFT = 12;
+    private static final int BOOK_TILE_MASK = 0x3F;
+    private static final int BOOK_PROMOTION_MASK = 0x7;
+
+    private static final PieceType[] PIECE_TYPES = PieceType.values(); // values() copies the array each call, so keep one
+    private static final int PAWN = PieceType.PAWN.ordinal();
+    private static final int KING = PieceType.KING.ordinal();
+    private static final int ROOK = PieceType.ROOK.ordinal();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long entryCount;
+
+    private OpeningBook(final FileChannel channel, final long entryCount) throws IOException {
+        this.channel = channel;
+        this.entryCount = entryCount;
+        final long entriesPerSegment = 1L << ENTRIES_PER_SEGMENT_SHIFT;
+        this.segments = new MappedByteBuffer[(int) ((entryCount + entriesPerSegment - 1) / entriesPerSegment)];
+        for (int i = 0; i < this.segments.length; i++) {
+            final long first = i * entriesPerSegment;
+            final long size = Math.min(entriesPerSegment, entryCount - first) * ENTRY_SIZE;
+            this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * ENTRY_SIZE, size);
+            this.segments[i].order(ByteOrder.BIG_ENDIAN);
+        }
+    }
+
+    public static OpeningBook open(final Path path) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() % ENTRY_SIZE != 0) {
+                throw new IOException("Not an opening book, size is not a whole number of entries: " + path);
+            }
+            return new OpeningBook(channel, channel.size() / ENTRY_SIZE);
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException { // The mapping itself stays until it is garbage collected
+        this.channel.close();
+    }
+
+    public long size() { // Entries in the book, one per move per position
+        return this.entryCount;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Probing
+
+    // Writes the book moves for the position from startIndex on, best weight first, with each move's weight at the same
+    // index of weights. Returns the index after the last one, so startIndex when the position is not in the book.
+    // Moves fit the position as pseudo-legal moves do, whoever plays one still has to make sure it is not into check
+    public int probe(final Position position, final int[] moves, final int[] weights, final int startIndex) {
+        final long key = PolyglotKey.calculateKey(position);
+        int index = startIndex;
+        for (long entry = firstEntry(key); entry < this.entryCount && key(entry) == key && index < moves.length; entry++) {
+            final int move = toPackedMove(position, bookMove(entry));
+            if (move != PackedMove.NO_MOVE) {
+                moves[index] = move;
+                weights[index++] = weight(entry);
+            }
+        }
+        return index;
+    }
+
+    public boolean contains(final Position position) {
+        final long key = PolyglotKey.calculateKey(position);
+        final long entry = firstEntry(key);
+        return entry < this.entryCount && key(entry) == key;
+    }
+
+    // The legal book moves for the board as Move objects, best weight first. Empty when out of book
+    public List<BookMove> getMoves(final Board board) {
+        final int[] moves = new int[MoveBuffer.MAX_MOVES_PER_POSITION];
+        final int[] weights = new int[MoveBuffer.MAX_MOVES_PER_POSITION];
+        final int end = probe(board, moves, weights, 0);
+        if (end == 0) {
+            return Collections.emptyList();
+        }
+        final int[] legalMoves = new int[MoveBuffer.MAX_MOVES_PER_POSITION];
+        final int legalEnd = LegalMoveGenerator.generateLegalMoves(board, legalMoves, 0);
+        final List<BookMove> bookMoves = new ArrayList<>(end);
+        for (int i = 0; i < end; i++) {
+            for (int j = 0; j < legalEnd; j++) {
+                if (legalMoves[j] == moves[i]) {
+                    bookMoves.add(new BookMove(PackedMove.toMove(board, moves[i]), moves[i], weights[i]));
+                    break;
+                }
+            }
+        }
+        return Collections.unmodifiableList(bookMoves);
+    }
+
+    // Index of the first entry with the key, or of the first one after where it would be
+    private long firstEntry(final long key) {
+        long low = 0L;
+        long high = this.entryCount;
+        while (low < high) {
+            final long middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(key(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long key(final long entry) {
+        return segment(entry).getLong(offset(entry));
+    }
+
+    private int bookMove(final long entry) {
+        return segment(entry).getShort(offset(entry) + MOVE_OFFSET) & 0xFFFF;
+    }
+
+    private int weight(final long entry) {
+        return segment(entry).getShort(offset(entry) + WEIGHT_OFFSET) & 0xFFFF;
+    }
+
+    private ByteBuffer segment(final long entry) {
+        return this.segments[(int) (entry >>> ENTRIES_PER_SEGMENT_SHIFT)];
+    }
+
+    private static int offset(final long entry) {
+        return ((int) entry & ((1 << ENTRIES_PER_SEGMENT_SHIFT) - 1)) * ENTRY_SIZE;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Converting moves between the book's 16 bits and our packed ints
+
+    // The packed move for a book move, read off the position's bitboards, or NO_MOVE if it does not fit the position
+    static int toPackedMove(final Position position, final int bookMove) {
+        final int from = ((bookMove >>> BOOK_FROM_SHIFT) & BOOK_TILE_MASK) ^ BOOK_TILE_FLIP;
+        int to = ((bookMove >>> BOOK_TO_SHIFT) & BOOK_TILE_MASK) ^ BOOK_TILE_FLIP;
+        final int promotion = (bookMove >>> BOOK_PROMOTION_SHIFT) & BOOK_PROMOTION_MASK;
+        final Alliance alliance = position.getMoveMaker();
+        final int movedCode = pieceCodeAt(position, alliance, from);
+        if (movedCode < 0) {
+            return PackedMove.NO_MOVE;
+        }
+        int capturedCode = pieceCodeAt(position, alliance.getOpposite(), to);
+        int flags = PackedMove.QUIET;
+        if (movedCode == KING && pieceCodeAt(position, alliance, to) == ROOK) { // King onto its own rook is castling
+            final boolean kingSide = to > from;
+            flags = kingSide ? PackedMove.KING_SIDE_CASTLE : PackedMove.QUEEN_SIDE_CASTLE;
+            to = CastlingRights.kingDestination(from, kingSide);
+        } else if (promotion != 0) {
+            flags = PackedMove.PROMOTION | (promotion - 1);
+        } else if (movedCode == PAWN && Math.abs(to - from) == 2 * BoardUtils.NUM_TILES_PER_ROW) {
+            flags = PackedMove.DOUBLE_PAWN_PUSH;
+        } else if (movedCode == PAWN && capturedCode < 0 && (to - from) % BoardUtils.NUM_TILES_PER_ROW != 0) {
+            flags = PackedMove.EN_PASSANT; // A pawn going sideways onto an empty tile
+            capturedCode = PAWN;
+        }
+        final int move = PackedMove.create(from, to, PIECE_TYPES[movedCode],
+                                           capturedCode < 0 ? null : PIECE_TYPES[capturedCode], flags);
+        return MoveGenerator.isPseudoLegal(position, move) ? move : PackedMove.NO_MOVE;
+    }
+
+    // The book's 16 bits for a packed move
+    static int toBookMove(final int move) {
+        final int from = PackedMove.getFromCoordinate(move);
+        int to = PackedMove.getToCoordinate(move);
+        final int flags = PackedMove.getFlags(move);
+        if (flags == PackedMove.KING_SIDE_CASTLE || flags == PackedMove.QUEEN_SIDE_CASTLE) {
+            to = CastlingRights.rookStart(from, flags == PackedMove.KING_SIDE_CASTLE);
+        }
+        final int promotion = PackedMove.isPromotion(move) ? (flags & ~PackedMove.PROMOTION) + 1 : 0;
+        return ((to ^ BOOK_TILE_FLIP) << BOOK_TO_SHIFT) |
+               ((from ^ BOOK_TILE_FLIP) << BOOK_FROM_SHIFT) |
+               (promotion << BOOK_PROMOTION_SHIFT);
+    }
+
+    private static int pieceCodeAt(final Position position, final Alliance alliance, final int tile) { // -1 if none
+        final long tileBit = 1L << tile;
+        if ((position.getOccupancy(alliance) & tileBit) == 0) {
+            return -1;
+        }
+        for (int pieceCode = 0; pieceCode < PIECE_TYPES.length; pieceCode++) {
+            if ((position.getPieceBitBoard(BoardUtils.bitBoardIndex(alliance, pieceCode)) & tileBit) != 0) {
+                return pieceCode;
+            }
+        }
+        return -1;
+    }
+}
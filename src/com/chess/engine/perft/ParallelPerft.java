@@ -0,0 +1,202 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.FenUtilities;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.LegalMoveGenerator;
+import com.chess.engine.board.MoveBuffer;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+* Perft over every core, for the deep runs (depth 7 and up) that take hours on one thread.
+*
+* The root moves from Board.getCurrentPlayerLegalMoves each become a fork-join task. A task with plenty of depth left
+* splits again into one task per move, so a root move with a huge subtree does not leave the other cores idle at the
+* end; once only SEQUENTIAL_DEPTH plies are left the task counts the rest itself on one SearchBoard. Work stealing
+* sorts out the balance between threads.
+*
+* With a PerftHashTable, subtree counts are remembered by position and depth and a transposition is counted once
+* rather than walked again. The table is shared by every thread.
+*
+* Run from the command line next to JChess:
+*   java com.chess.engine.perft.ParallelPerft [depth] [threads] [hashMegabytes] [fen]
+* */
+
+public final class ParallelPerft implements AutoCloseable {
+
+    private static final int SEQUENTIAL_DEPTH = 3; // Subtrees this shallow are not worth a task of their own
+
+    private final ForkJoinPool pool;
+    private final PerftHashTable hashTable; // Null when running without one
+
+    public ParallelPerft(final int threadCount, final PerftHashTable hashTable) {
+        this.pool = new ForkJoinPool(threadCount);
+        this.hashTable = hashTable;
+    }
+
+    public ParallelPerft(final int threadCount, final int hashSizeInMegabytes) {
+        this(threadCount, hashSizeInMegabytes > 0 ? new PerftHashTable(hashSizeInMegabytes) : null);
+    }
+
+    public long perft(final Board board, final int depth) {
+        long nodes = 0L;
+        for (final long moveNodes : divide(board, depth).values()) {
+            nodes += moveNodes;
+        }
+        return nodes;
+    }
+
+    // Node count below each legal root move, in the order the board hands the moves out
+    public Map<Move, Long> divide(final Board board, final int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Perft depth must be at least 1, got " + depth);
+        }
+        final SearchBoard searchBoard = new SearchBoard(board);
+        final Alliance moveMaker = board.getMoveMaker();
+        final List<Move> rootMoves = new ArrayList<>();
+        final List<PerftTask> tasks = new ArrayList<>();
+        for (final Move move : board.getCurrentPlayerLegalMoves()) {
+            final int packedMove = PackedMove.fromMove(move);
+            searchBoard.makeMove(packedMove);
+            final boolean legal = !searchBoard.isInCheck(moveMaker); // Board hands out pseudo legal moves
+            searchBoard.unmakeMove();
+            if (legal) {
+                final PerftTask task = new PerftTask(board, new int[] {packedMove}, depth - 1, this.hashTable);
+                rootMoves.add(move);
+                tasks.add(task);
+                this.pool.execute(task);
+            }
+        }
+        final Map<Move, Long> nodesPerMove = new LinkedHashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            nodesPerMove.put(rootMoves.get(i), tasks.get(i).join());
+        }
+        return nodesPerMove;
+    }
+
+    @Override
+    public void close() {
+        this.pool.shutdownNow();
+    }
+
+    // *****************************************************************************************************************************
+    //                          The fork-join task
+
+    // Counts the subtree below the position reached by playing path from the root board. Every task builds its own
+    // SearchBoard from the shared immutable root, so nothing mutable is ever handed between threads
+    private static final class PerftTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L; // ForkJoinTask is Serializable, these are never serialized
+
+        private final Board rootBoard;
+        private final int[] path;
+        private final int depth;
+        private final PerftHashTable hashTable;
+
+        PerftTask(final Board rootBoard, final int[] path, final int depth, final PerftHashTable hashTable) {
+            this.rootBoard = rootBoard;
+            this.path = path;
+            this.depth = depth;
+            this.hashTable = hashTable;
+        }
+
+        @Override
+        protected Long compute() {
+            if (this.depth == 0) {
+                return 1L;
+            }
+            final SearchBoard board = new SearchBoard(this.rootBoard);
+            for (final int move : this.path) {
+                board.makeMove(move);
+            }
+            if (this.depth <= SEQUENTIAL_DEPTH) {
+                return countNodes(board, this.depth, MoveBuffer.forCurrentThread().getMoves(), 0, this.hashTable);
+            }
+
+            final long key = board.getZobristKey();
+            if (this.hashTable != null) {
+                final long storedNodes = this.hashTable.probe(key, this.depth);
+                if (storedNodes != PerftHashTable.NO_ENTRY) {
+                    return storedNodes;
+                }
+            }
+            // The children are built before anything is forked: while this thread waits in join it may run other
+            // tasks, and they write over its MoveBuffer
+            final int[] moves = MoveBuffer.forCurrentThread().getMoves();
+            final int endIndex = LegalMoveGenerator.generateLegalMoves(board, moves, 0);
+            final List<PerftTask> children = new ArrayList<>(endIndex);
+            for (int i = 0; i < endIndex; i++) {
+                final int[] childPath = Arrays.copyOf(this.path, this.path.length + 1);
+                childPath[this.path.length] = moves[i];
+                children.add(new PerftTask(this.rootBoard, childPath, this.depth - 1, this.hashTable));
+            }
+            long nodes = 0L;
+            for (final PerftTask child : invokeAll(children)) {
+                nodes += child.join();
+            }
+            if (this.hashTable != null) {
+                this.hashTable.store(key, this.depth, nodes);
+            }
+            return nodes;
+        }
+    }
+
+    // Plain perft on one thread, the same as Perft.perft with the hash table looked at on the way down
+    private static long countNodes(final SearchBoard board, final int depth, final int[] moves, final int startIndex,
+                                   final PerftHashTable hashTable) {
+        final long key = board.getZobristKey();
+        if (hashTable != null && depth > 1) { // Depth 1 is cheaper to count than to look up
+            final long storedNodes = hashTable.probe(key, depth);
+            if (storedNodes != PerftHashTable.NO_ENTRY) {
+                return storedNodes;
+            }
+        }
+        final int endIndex = LegalMoveGenerator.generateLegalMoves(board, moves, startIndex);
+        if (depth == 1) {
+            return endIndex - startIndex;
+        }
+        long nodes = 0L;
+        for (int i = startIndex; i < endIndex; i++) {
+            board.makeMove(moves[i]);
+            nodes += countNodes(board, depth - 1, moves, endIndex, hashTable);
+            board.unmakeMove();
+        }
+        if (hashTable != null) {
+            hashTable.store(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        final int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        final int threadCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final int hashSizeInMegabytes = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        final String fen = args.length > 3 ? String.join(" ", Arrays.copyOfRange(args, 3, args.length)) :
+                           PerftPosition.START.getFen(); // The FEN has spaces in it, so it may come in as several arguments
+        final Board board = FenUtilities.createBoard(fen);
+
+        try (final ParallelPerft perft = new ParallelPerft(threadCount, hashSizeInMegabytes)) {
+            final long startTime = System.nanoTime();
+            final Map<Move, Long> nodesPerMove = perft.divide(board, depth);
+            final long elapsedNanos = Math.max(1L, System.nanoTime() - startTime);
+            long nodes = 0L;
+            for (final Map.Entry<Move, Long> entry : nodesPerMove.entrySet()) {
+                System.out.println(PackedMove.toString(PackedMove.fromMove(entry.getKey())) + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+            System.out.printf("%nDepth %d, %d threads, %s: %,d nodes in %,d ms, %,d nodes/sec%n", depth, threadCount,
+                              hashSizeInMegabytes > 0 ? hashSizeInMegabytes + " MB hash" : "no hash", nodes,
+                              elapsedNanos / 1_000_000L, (long) (nodes * 1e9 / elapsedNanos));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.chess.engine.perft;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.LegalMoveGenerator;
+import com.chess.engine.board.MoveBuffer;
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+
+/*
+* Perft (performance test) counts every position reachable in exactly depth moves. The counts for the standard
+* positions are well known, so this is both a speed test for the move generator and a check that it follows the rules.
+* Counting runs on LegalMoveGenerator, perftPseudoLegal gives the same count the slow way for checking it against.
+*
+* Run from the command line next to JChess:
+*   java com.chess.engine.perft.Perft [maxDepth]
+* */
+
+public final class Perft {
+
+    private Perft() {
+        throw new RuntimeException("You cannot instantiate this!!!");
+    }
+
+    public static long perft(final SearchBoard board, final int depth) {
+        if (depth == 0) {
+            return 1L;
+        }
+        return perft(board, depth, MoveBuffer.forCurrentThread().getMoves(), 0);
+    }
+
+    // Moves for this ply are written into the buffer from startIndex, the next ply stacks its moves straight after.
+    // Every move from the legal generator counts, so the last ply is just the number of moves, none of them is made
+    private static long perft(final SearchBoard board, final int depth, final int[] moves, final int startIndex) {
+        final int endIndex = LegalMoveGenerator.generateLegalMoves(board, moves, startIndex);
+        if (depth == 1) {
+            return endIndex - startIndex;
+        }
+        long nodes = 0L;
+        for (int i = startIndex; i < endIndex; i++) {
+            board.makeMove(moves[i]);
+            nodes += perft(board, depth - 1, moves, endIndex);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    // The same count from the pseudo legal generator, making every move and throwing away the ones that leave the king
+    // in check. Slower, kept to check the two generators against each other
+    public static long perftPseudoLegal(final SearchBoard board, final int depth) {
+        if (depth == 0) {
+            return 1L;
+        }
+        return perftPseudoLegal(board, depth, MoveBuffer.forCurrentThread().getMoves(), 0);
+    }
+
+    private static long perftPseudoLegal(final SearchBoard board, final int depth, final int[] moves, final int startIndex) {
+        final Alliance moveMaker = board.getMoveMaker();
+        final int endIndex = MoveGenerator.generateMoves(board, moves, startIndex);
+        long nodes = 0L;
+        for (int i = startIndex; i < endIndex; i++) {
+            board.makeMove(moves[i]);
+            if (!board.isInCheck(moveMaker)) { // The generator is pseudo legal, so skip moves that leave our king in check
+                nodes += depth == 1 ? 1L : perftPseudoLegal(board, depth - 1, moves, endIndex);
+            }
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    // Perft split up by root move, the usual way of tracking down which move a wrong count comes from
+    public static long divide(final SearchBoard board, final int depth) {
+        final int[] moves = MoveBuffer.forCurrentThread().getMoves();
+        final int endIndex = LegalMoveGenerator.generateLegalMoves(board, moves, 0);
+        long nodes = 0L;
+        for (int i = 0; i < endIndex; i++) {
+            board.makeMove(moves[i]);
+            final long moveNodes = depth == 1 ? 1L : perft(board, depth - 1, moves, endIndex);
+            board.unmakeMove();
+            System.out.println(PackedMove.toString(moves[i]) + ": " + moveNodes);
+            nodes += moveNodes;
+        }
+        System.out.println("Total: " + nodes);
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        final int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        boolean allPassed = true;
+        for (final PerftPosition position : PerftPosition.values()) {
+            final SearchBoard board = new SearchBoard(position.createBoard());
+            for (int depth = 1; depth <= Math.min(maxDepth, position.getMaxDepth()); depth++) {
+                final long startTime = System.nanoTime();
+                final long nodes = perft(board, depth);
+                final long elapsedNanos = Math.max(1L, System.nanoTime() - startTime);
+                final boolean passed = nodes == position.getExpectedNodes(depth);
+                allPassed &= passed;
+                System.out.printf("%-10s depth %d: %,15d nodes %,12d nodes/sec %s%n", position, depth, nodes,
+                                  (long) (nodes * 1e9 / elapsedNanos),
+                                  passed ? "OK" : "FAIL (expected " + position.getExpectedNodes(depth) + ")");
+            }
+        }
+        System.out.println(allPassed ? "All perft counts match" : "Some perft counts do not match");
+    }
+}
@@ -0,0 +1,56 @@
+package com.chess.engine.perft;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/*
+* Remembers subtree counts so a position reached again through a transposition is only counted once.
+*
+* Keyed by position and remaining depth, since the same position counts differently at different depths. It is
+* shared by every perft thread without locks, the same way as the search's TranspositionTable: each entry stores the
+* key XORed with the data next to the data itself, so an entry torn by two threads writing at once reads as a miss.
+* One entry per slot and the newest write always wins, which is all perft needs.
+* */
+
+public final class PerftHashTable {
+
+    public static final long NO_ENTRY = -1L; // What probe returns on a miss, a real count is never negative
+
+    private static final int LONGS_PER_ENTRY = 2;
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+    private static final long DEPTH_MIX = 0x9E3779B97F4A7C15L; // Spreads the depths of one position over different slots
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] slots;
+    private final int entryMask;
+
+    public PerftHashTable(final int sizeInMegabytes) {
+        final long requestedEntries = Math.max(1L, (long) sizeInMegabytes * 1024L * 1024L / (LONGS_PER_ENTRY * Long.BYTES));
+        final long entries = Long.highestOneBit(Math.min(requestedEntries, Integer.MAX_VALUE / LONGS_PER_ENTRY));
+        this.slots = new long[(int) entries * LONGS_PER_ENTRY];
+        this.entryMask = (int) entries - 1;
+    }
+
+    // The node count stored for this position at this depth, or NO_ENTRY
+    public long probe(final long key, final int depth) {
+        final int slot = slot(key, depth);
+        final long data = (long) SLOTS.getOpaque(this.slots, slot + 1);
+        if (data != 0L && ((long) SLOTS.getOpaque(this.slots, slot) ^ data) == key && (data & DEPTH_MASK) == depth) {
+            return data >>> DEPTH_BITS;
+        }
+        return NO_ENTRY;
+    }
+
+    public void store(final long key, final int depth, final long nodes) {
+        final int slot = slot(key, depth);
+        final long data = nodes << DEPTH_BITS | depth; // Depth is at least 1 so data is never 0, which marks an empty slot
+        SLOTS.setOpaque(this.slots, slot, key ^ data);
+        SLOTS.setOpaque(this.slots, slot + 1, data);
+    }
+
+    private int slot(final long key, final int depth) {
+        return ((int) (key ^ depth * DEPTH_MIX) & this.entryMask) * LONGS_PER_ENTRY;
+    }
+}
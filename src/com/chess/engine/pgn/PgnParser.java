@@ -0,0 +1,254 @@
+package com.chess.engine.pgn;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.FenUtilities;
+import com.chess.engine.board.SearchBoard;
+
+/*
+* Reads games in Portable Game Notation and plays their moves out on a SearchBoard.
+*
+* A game is its tag pairs, e.g. [Result "1-0"], and then its movetext: move numbers, moves in SAN, and a result
+* marker at the end. The parser walks the movetext once, character by character, and hands each move to a visitor
+* together with the board it is played on, before it is made. Skipped over on the way:
+*   - comments, in {braces} or from ';' to the end of the line
+*   - variations in (brackets), nested or not, only the main line is played
+*   - numeric annotations like $1, and move numbers like "12." or "12..."
+* A [FEN "..."] tag starts the game from that position instead of the standard one.
+*
+* Like SanParser and FenUtilities it reads straight off a range of a CharSequence, and the SearchBoard is reloaded for
+* every game rather than made again, so a parser can go through any number of games without making garbage per move.
+* One parser per thread. A move that is not legal or cannot be read, an unfinished tag pair or a FEN tag that does not
+* make a position ends the game with an IllegalArgumentException.
+* */
+
+public final class PgnParser {
+
+    private static final Board STANDARD_BOARD = Board.createStandardBoard(); // Immutable, so shared
+
+    private static final Result[] RESULTS = Result.values(); // values() copies the array each call, so keep one
+
+    private final SanParser sanParser = new SanParser();
+    private final SearchBoard board = new SearchBoard(STANDARD_BOARD);
+
+    public enum Result {
+        WHITE_WINS("1-0"),
+        BLACK_WINS("0-1"),
+        DRAW("1/2-1/2"),
+        UNKNOWN("*"); // Game still going, abandoned, or no result given
+
+        private final String marker;
+
+        Result(final String marker) {
+            this.marker = marker;
+        }
+
+        @Override
+        public String toString() {
+            return this.marker;
+        }
+    }
+
+    // What the parser reports as it goes through a game
+    public interface GameVisitor {
+
+        // After the tags, with the board the game starts from. Result is the one in the tags, UNKNOWN if there is none
+        void startGame(SearchBoard board, Result taggedResult);
+
+        // Before each move of the main line is made. False skips reading the rest of the moves (the result is still found)
+        boolean visitMove(SearchBoard board, int move, int ply);
+
+        // The result marker at the end of the movetext, or the tagged one if the movetext has none
+        void endGame(Result result);
+    }
+
+    // Reads one game from characters start (inclusive) to end (exclusive), returns the number of moves played
+    public int parseGame(final CharSequence text, final int start, final int end, final GameVisitor visitor) {
+        Result taggedResult = Result.UNKNOWN;
+        Board startBoard = STANDARD_BOARD;
+        int index = skipWhitespace(text, start, end);
+        while (index < end && text.charAt(index) == '[') { // Tag pairs: [Name "Value"]
+            final int nameStart = index + 1;
+            int nameEnd = nameStart;
+            while (nameEnd < end && !Character.isWhitespace(text.charAt(nameEnd)) && text.charAt(nameEnd) != '"') {
+                nameEnd++;
+            }
+            final int valueStart = indexOf(text, '"', nameEnd, end) + 1;
+            final int valueEnd = indexOf(text, '"', valueStart, end);
+            if (valueStart == 0 || valueEnd < 0) {
+                throw new IllegalArgumentException("Unfinished tag pair at character " + index);
+            }
+            if (equals(text, nameStart, nameEnd, "Result")) {
+                taggedResult = result(text, valueStart, valueEnd);
+            } else if (equals(text, nameStart, nameEnd, "FEN")) {
+                try {
+                    startBoard = FenUtilities.parse(text, valueStart, valueEnd, new Board.Builder()).build();
+                } catch (final RuntimeException e) { // FenUtilities and Board throw plain RuntimeExceptions, make it skip the game
+                    throw new IllegalArgumentException("Invalid FEN tag at character " + index, e);
+                }
+            }
+            final int tagEnd = indexOf(text, ']', valueEnd, end);
+            index = skipWhitespace(text, tagEnd < 0 ? end : tagEnd + 1, end);
+        }
+
+        this.board.load(startBoard);
+        visitor.startGame(this.board, taggedResult);
+        Result result = null;
+        boolean playing = true;
+        int ply = 0;
+        while (index < end && result == null) {
+            final char c = text.charAt(index);
+            if (Character.isWhitespace(c) || c == '.' || c == ')') { // A stray ')' closes nothing, step over it
+                index++;
+            } else if (c == '{') {
+                index = skipPast(text, '}', index, end);
+            } else if (c == ';') {
+                index = skipPast(text, '\n', index, end);
+            } else if (c == '(') {
+                index = skipVariation(text, index, end);
+            } else if (c == '$') {
+                index = skipDigits(text, index + 1, end);
+            } else {
+                final int tokenEnd = tokenEnd(text, index, end);
+                if (Character.isDigit(c) && (tokenEnd == end || text.charAt(tokenEnd) == '.' ||
+                                             isDigits(text, index, tokenEnd))) {
+                    index = tokenEnd; // A move number, the dots after it are skipped as they come
+                    continue;
+                }
+                result = resultMarker(text, index, tokenEnd);
+                if (result == null && playing) {
+                    final int move = this.sanParser.parseMove(this.board, text, index, tokenEnd);
+                    playing = visitor.visitMove(this.board, move, ply++);
+                    this.board.makeMove(move);
+                }
+                index = tokenEnd;
+            }
+        }
+        visitor.endGame(result == null ? taggedResult : result);
+        return ply;
+    }
+
+    // Where the next game begins at or after index: the first tag line after the movetext of the game before it, or
+    // end. Games can be cut apart with this before they are parsed, say to hand them to other threads
+    public static int nextGameStart(final CharSequence text, final int index, final int end) {
+        boolean inMoves = false;
+        boolean lineStart = index == 0 || text.charAt(index - 1) == '\n'; // Nothing but whitespace on the line so far
+        boolean tagLine = false;
+        for (int i = index; i < end; i++) {
+            final char c = text.charAt(i);
+            if (c == '\n') {
+                lineStart = true;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (lineStart) {
+                lineStart = false;
+                tagLine = c == '[';
+                if (tagLine && inMoves) {
+                    return i;
+                }
+            }
+            if (!tagLine) {
+                if (c == '{') { // Comments can run over lines and hold anything, a '[' at the start of a line included
+                    i = skipPast(text, '}', i, end) - 1;
+                } else {
+                    inMoves = true;
+                }
+            }
+        }
+        return end;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Scanning helpers
+
+    private static Result resultMarker(final CharSequence text, final int start, final int end) { // null if not one
+        for (final Result result : RESULTS) {
+            if (equals(text, start, end, result.marker)) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private static Result result(final CharSequence text, final int start, final int end) {
+        final Result result = resultMarker(text, start, end);
+        return result == null ? Result.UNKNOWN : result;
+    }
+
+    private static int tokenEnd(final CharSequence text, int index, final int end) {
+        while (index < end) {
+            final char c = text.charAt(index);
+            if (Character.isWhitespace(c) || c == '{' || c == '(' || c == ')' || c == ';' || c == '$' ||
+                (c == '.' && Character.isDigit(text.charAt(index - 1)))) {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private static int skipVariation(final CharSequence text, int index, final int end) {
+        int depth = 0;
+        while (index < end) {
+            final char c = text.charAt(index);
+            if (c == '{') {
+                index = skipPast(text, '}', index, end);
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return index + 1;
+            }
+            index++;
+        }
+        return end;
+    }
+
+    private static int skipPast(final CharSequence text, final char c, final int index, final int end) {
+        final int found = indexOf(text, c, index + 1, end);
+        return found < 0 ? end : found + 1;
+    }
+
+    private static int skipDigits(final CharSequence text, int index, final int end) {
+        while (index < end && Character.isDigit(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int skipWhitespace(final CharSequence text, int index, final int end) {
+        while (index < end && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isDigits(final CharSequence text, final int start, final int end) {
+        return skipDigits(text, start, end) == end;
+    }
+
+    private static int indexOf(final CharSequence text, final char c, int index, final int end) {
+        while (index < end) {
+            if (text.charAt(index) == c) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    private static boolean equals(final CharSequence text, final int start, final int end, final String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (text.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,387 @@
+package com.chess.engine.pgn;
+
+import com.chess.engine.board.SearchBoard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/*
+* Plays out every game of a PGN file of any size on a pool of threads, in memory that does not grow with the file.
+*
+* The calling thread reads the file through a FileChannel into chunks of characters and cuts each chunk after its last
+* whole game with PgnParser.nextGameStart; the unfinished game at the end is carried over to the front of the next
+* chunk. Full chunks go on a queue to the worker threads, each of which has its own PgnParser and its own visitor from
+* the supplier, and parses the chunk's games into that visitor. Only a fixed number of chunks exist, two per worker,
+* and a chunk goes back to the reader once its games are done: when the workers fall behind the reader waits for one,
+* so at most that many chunks are ever in memory. A game longer than a whole chunk makes its chunk grow to fit.
+*
+* A game with an illegal or unreadable move or tag is counted as skipped and the rest of the file goes on; the visitor
+* may have seen startGame and some moves of it but no endGame. Any other exception from a visitor stops the reading and is thrown
+* from read(). Games are handed out in file order but played on different threads at once, so a visitor should not
+* count on seeing them in order, and visitors shared between workers must be thread safe.
+*
+* The file is read as ISO-8859-1, one byte to a character, as the PGN standard has it.
+*
+*   PgnReader games.pgn [threads, default every core] [records file]
+* plays out the games, optionally writing every position with PositionRecordWriter, and prints the games and
+* positions per second.
+* */
+
+public final class PgnReader {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20; // Characters, about 250 games each
+
+    private static final int CHUNKS_PER_THREAD = 2; // One being parsed and one waiting, so no worker sits idle
+
+    private final int threadCount;
+    private final int chunkSize;
+
+    public PgnReader(final int threadCount, final int chunkSize) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Need at least one worker thread, got " + threadCount);
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunks need at least one character, got " + chunkSize);
+        }
+        this.threadCount = threadCount;
+        this.chunkSize = chunkSize;
+    }
+
+    public PgnReader(final int threadCount) {
+        this(threadCount, DEFAULT_CHUNK_SIZE);
+    }
+
+    // What one read() got through and how fast
+    public static final class Report {
+
+        private final long games;
+        private final long skippedGames;
+        private final long positions;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        private Report(final long games, final long skippedGames, final long positions, final long bytes, final long elapsedNanos) {
+            this.games = games;
+            this.skippedGames = skippedGames;
+            this.positions = positions;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getGames() { // Played to the end, skipped ones not included
+            return this.games;
+        }
+
+        public long getSkippedGames() {
+            return this.skippedGames;
+        }
+
+        public long getPositions() { // One per move visited, so the final position of each game is not counted
+            return this.positions;
+        }
+
+        public long getBytes() {
+            return this.bytes;
+        }
+
+        public long getElapsedMillis() {
+            return this.elapsedNanos / 1_000_000L;
+        }
+
+        public long getGamesPerSecond() {
+            return perSecond(this.games);
+        }
+
+        public long getPositionsPerSecond() {
+            return perSecond(this.positions);
+        }
+
+        private long perSecond(final long count) {
+            return this.elapsedNanos == 0L ? 0L : (long) (count * 1_000_000_000.0 / this.elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d games (%,d skipped), %,d positions, %,d MB in %,d ms: %,d games/s, %,d positions/s",
+                                 this.games, this.skippedGames, this.positions, this.bytes >>> 20, getElapsedMillis(),
+                                 getGamesPerSecond(), getPositionsPerSecond());
+        }
+    }
+
+    // *****************************************************************************************************************************
+    //                          Chunks
+
+    // A run of whole games, and where each starts
+    private static final class Chunk {
+
+        private char[] characters;
+        private CharBuffer text; // Wraps characters, PgnParser reads a CharSequence
+        private int length;
+        private int[] gameStarts = new int[256];
+        private int gameCount;
+
+        private Chunk(final int size) {
+            this.characters = new char[size];
+            this.text = CharBuffer.wrap(this.characters);
+        }
+
+        private void grow() {
+            this.characters = Arrays.copyOf(this.characters, this.characters.length * 2);
+            this.text = CharBuffer.wrap(this.characters);
+        }
+
+        // Finds the games, returns where the last one starts: it may not be whole unless the file ends here
+        private int findGames() {
+            this.gameCount = 0;
+            int start = skipWhitespace(this.characters, 0, this.length);
+            while (start < this.length) {
+                if (this.gameCount == this.gameStarts.length) {
+                    this.gameStarts = Arrays.copyOf(this.gameStarts, this.gameCount * 2);
+                }
+                this.gameStarts[this.gameCount++] = start;
+                start = PgnParser.nextGameStart(this.text, start, this.length);
+            }
+            return this.gameCount == 0 ? this.length : this.gameStarts[this.gameCount - 1];
+        }
+
+        private int gameEnd(final int game) {
+            return game + 1 < this.gameCount ? this.gameStarts[game + 1] : this.length;
+        }
+    }
+
+    private static final Chunk END = new Chunk(0); // Tells a worker there is nothing more
+
+    // *****************************************************************************************************************************
+    //                          Reading
+
+    // Plays out every game in the file, one visitor per worker thread
+    public Report read(final Path path, final Supplier<? extends PgnParser.GameVisitor> visitorSupplier) throws IOException {
+        final long startTime = System.nanoTime();
+        final BlockingQueue<Chunk> freeChunks = new ArrayBlockingQueue<>(CHUNKS_PER_THREAD * this.threadCount);
+        final BlockingQueue<Chunk> fullChunks = new ArrayBlockingQueue<>(CHUNKS_PER_THREAD * this.threadCount + this.threadCount);
+        for (int i = 0; i < CHUNKS_PER_THREAD * this.threadCount; i++) {
+            freeChunks.add(new Chunk(this.chunkSize));
+        }
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final ExecutorService workerPool = Executors.newFixedThreadPool(this.threadCount, runnable -> {
+            final Thread thread = new Thread(runnable, "pgn-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final Worker[] workers = new Worker[this.threadCount];
+        final Future<?>[] futures = new Future<?>[this.threadCount];
+        long bytes = 0L;
+        try {
+            for (int i = 0; i < this.threadCount; i++) {
+                workers[i] = new Worker(visitorSupplier.get(), freeChunks, fullChunks, failure);
+                futures[i] = workerPool.submit(workers[i]);
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                bytes = readChunks(channel, freeChunks, fullChunks, failure);
+            } finally {
+                for (int i = 0; i < this.threadCount; i++) {
+                    put(fullChunks, END);
+                }
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted reading " + path, e);
+        } catch (final ExecutionException e) {
+            throw new RuntimeException("Reading " + path + " failed", e.getCause());
+        } finally {
+            workerPool.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        long games = 0L;
+        long skippedGames = 0L;
+        long positions = 0L;
+        for (final Worker worker : workers) {
+            games += worker.games;
+            skippedGames += worker.skippedGames;
+            positions += worker.positions;
+        }
+        return new Report(games, skippedGames, positions, bytes, System.nanoTime() - startTime);
+    }
+
+    // Fills chunks from the channel and queues them for the workers, returns the number of bytes read
+    private long readChunks(final FileChannel channel,
+                            final BlockingQueue<Chunk> freeChunks,
+                            final BlockingQueue<Chunk> fullChunks,
+                            final AtomicReference<RuntimeException> failure) throws IOException, InterruptedException {
+        final ByteBuffer bytes = ByteBuffer.allocateDirect(Math.min(this.chunkSize, 1 << 16));
+        long bytesRead = 0L;
+        Chunk chunk = freeChunks.take();
+        chunk.length = 0;
+        boolean endOfFile = false;
+        while (!endOfFile && failure.get() == null) {
+            while (chunk.length < chunk.characters.length) { // Fill the chunk up
+                bytes.clear().limit(Math.min(bytes.capacity(), chunk.characters.length - chunk.length));
+                final int read = channel.read(bytes);
+                if (read < 0) {
+                    endOfFile = true;
+                    break;
+                }
+                bytes.flip();
+                for (int i = 0; i < read; i++) {
+                    chunk.characters[chunk.length++] = (char) (bytes.get(i) & 0xFF); // ISO-8859-1
+                }
+                bytesRead += read;
+            }
+            final int lastGameStart = chunk.findGames();
+            if (endOfFile) {
+                put(fullChunks, chunk);
+                return bytesRead;
+            }
+            if (lastGameStart == 0) { // One game fills the whole chunk and is not over yet
+                chunk.grow();
+                continue;
+            }
+            final Chunk next = freeChunks.take(); // Waits while every other chunk is being parsed
+            next.length = chunk.length - lastGameStart;
+            if (next.characters.length < chunk.characters.length) { // So the unfinished game fits, with room to finish
+                next.characters = new char[chunk.characters.length];
+                next.text = CharBuffer.wrap(next.characters);
+            }
+            System.arraycopy(chunk.characters, lastGameStart, next.characters, 0, next.length);
+            chunk.length = lastGameStart;
+            chunk.gameCount--; // The unfinished game went with the characters
+            put(fullChunks, chunk);
+            chunk = next;
+        }
+        freeChunks.add(chunk); // A worker failed, what was read is not used
+        return bytesRead;
+    }
+
+    private static void put(final BlockingQueue<Chunk> queue, final Chunk chunk) {
+        try {
+            queue.put(chunk);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted handing out a chunk", e);
+        }
+    }
+
+    private static int skipWhitespace(final char[] characters, int index, final int end) {
+        while (index < end && Character.isWhitespace(characters[index])) {
+            index++;
+        }
+        return index;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Workers
+
+    // Parses chunks until it takes END. Counts are its own, read() sums them once the worker is done
+    private static final class Worker implements Runnable {
+
+        private final PgnParser parser = new PgnParser();
+        private final PgnParser.GameVisitor visitor;
+        private final BlockingQueue<Chunk> freeChunks;
+        private final BlockingQueue<Chunk> fullChunks;
+        private final AtomicReference<RuntimeException> failure;
+
+        private long games;
+        private long skippedGames;
+        private long positions;
+
+        private Worker(final PgnParser.GameVisitor visitor,
+                       final BlockingQueue<Chunk> freeChunks,
+                       final BlockingQueue<Chunk> fullChunks,
+                       final AtomicReference<RuntimeException> failure) {
+            this.visitor = visitor;
+            this.freeChunks = freeChunks;
+            this.fullChunks = fullChunks;
+            this.failure = failure;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Chunk chunk;
+                while ((chunk = this.fullChunks.take()) != END) {
+                    try {
+                        if (this.failure.get() == null) { // After a failure chunks are only handed back, so the reader never waits forever
+                            parseChunk(chunk);
+                        }
+                    } catch (final RuntimeException e) {
+                        this.failure.compareAndSet(null, e);
+                    } finally {
+                        this.freeChunks.add(chunk);
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void parseChunk(final Chunk chunk) {
+            for (int game = 0; game < chunk.gameCount; game++) {
+                try {
+                    this.positions += this.parser.parseGame(chunk.text, chunk.gameStarts[game], chunk.gameEnd(game), this.visitor);
+                    this.games++;
+                } catch (final IllegalArgumentException e) { // An illegal or unreadable move or tag, on to the next game
+                    this.skippedGames++;
+                }
+            }
+        }
+    }
+
+    // *****************************************************************************************************************************
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: PgnReader games.pgn [threads] [records file]");
+            return;
+        }
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final PgnReader reader = new PgnReader(threads);
+        if (args.length < 3) {
+            System.out.println(reader.read(Paths.get(args[0]), MovesOnlyVisitor::new));
+            return;
+        }
+        final PositionRecordWriter writer = PositionRecordWriter.create(Paths.get(args[2]));
+        final Report report;
+        try {
+            report = reader.read(Paths.get(args[0]), writer::newGameVisitor);
+        } finally {
+            writer.close(); // Writes out what the visitors still hold, so count after it
+        }
+        System.out.printf("%s, %,d records written%n", report, writer.getRecordCount());
+    }
+
+    // Plays the moves and nothing else, to time the parsing alone
+    private static final class MovesOnlyVisitor implements PgnParser.GameVisitor {
+
+        @Override
+        public void startGame(final SearchBoard board, final PgnParser.Result taggedResult) {
+        }
+
+        @Override
+        public boolean visitMove(final SearchBoard board, final int move, final int ply) {
+            return true;
+        }
+
+        @Override
+        public void endGame(final PgnParser.Result result) {
+        }
+    }
+}
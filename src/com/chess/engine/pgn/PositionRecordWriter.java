@@ -0,0 +1,143 @@
+package com.chess.engine.pgn;
+
+import com.chess.engine.board.PositionEncoding;
+import com.chess.engine.board.SearchBoard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+* Writes every position of the games it is given to a file of fixed size records, one per move played, with the move
+* and how the game ended. The file is nothing but records back to back, little endian:
+*
+*   record   bytes 0-23 the PositionEncoding of the position, 24-27 the packed move played from it, 28-29 the ply,
+*            30 the game's PgnParser.Result ordinal, 31 unused
+*
+* so the n-th record is at n * RECORD_SIZE and the file can be mapped and read in place, like PositionStore.
+*
+* Each thread writes through its own visitor from newGameVisitor(), which keeps records in a buffer of its own until
+* their game is over (the result is only known at the end) and then writes the buffer out when it is full. A game that
+* is never finished, say cut off by an illegal move, is dropped when the next one starts. The file gets whole buffers
+* of whole games from one thread at a time, so games are never mixed up, though they do not come in file order.
+* Memory is one buffer per visitor whatever the number of games. close() writes out what the visitors still hold, call
+* it once no visitor is in use any more.
+* */
+
+public final class PositionRecordWriter implements Closeable {
+
+    public static final int RECORD_SIZE = 32;
+
+    private static final int MOVE_OFFSET = PositionEncoding.ENCODED_SIZE;
+    private static final int PLY_OFFSET = MOVE_OFFSET + Integer.BYTES;
+    private static final int RESULT_OFFSET = PLY_OFFSET + Short.BYTES;
+    private static final int RECORDS_PER_BUFFER = 4096; // 128 KB, far more than the longest game
+
+    private final FileChannel channel;
+    private final List<GameWriter> gameWriters = new ArrayList<>();
+    private final AtomicLong recordCount = new AtomicLong();
+
+    private PositionRecordWriter(final FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public static PositionRecordWriter create(final Path path) throws IOException {
+        return new PositionRecordWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                         StandardOpenOption.WRITE));
+    }
+
+    // A visitor for one thread, e.g. as the visitor supplier of PgnReader.read
+    public PgnParser.GameVisitor newGameVisitor() {
+        final GameWriter gameWriter = new GameWriter();
+        synchronized (this.gameWriters) {
+            this.gameWriters.add(gameWriter);
+        }
+        return gameWriter;
+    }
+
+    public long getRecordCount() { // Written to the file so far
+        return this.recordCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            synchronized (this.gameWriters) {
+                for (final GameWriter gameWriter : this.gameWriters) {
+                    gameWriter.writeFinishedGames();
+                }
+            }
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    private void write(final ByteBuffer records) throws IOException {
+        final long count = records.remaining() / RECORD_SIZE;
+        synchronized (this.channel) { // A write can stop part way, the rest must follow before anyone else's
+            while (records.hasRemaining()) {
+                this.channel.write(records);
+            }
+        }
+        this.recordCount.addAndGet(count);
+    }
+
+    // *****************************************************************************************************************************
+
+    private final class GameWriter implements PgnParser.GameVisitor {
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(RECORDS_PER_BUFFER * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private int gameStart; // Records before this are of finished games
+
+        @Override
+        public void startGame(final SearchBoard board, final PgnParser.Result taggedResult) {
+            this.buffer.position(this.gameStart); // Drops a game that never ended
+        }
+
+        @Override
+        public boolean visitMove(final SearchBoard board, final int move, final int ply) {
+            if (!this.buffer.hasRemaining()) {
+                writeFinishedGames();
+                if (!this.buffer.hasRemaining()) {
+                    throw new IllegalArgumentException("Game longer than " + RECORDS_PER_BUFFER + " plies");
+                }
+            }
+            final int offset = this.buffer.position();
+            PositionEncoding.encode(board, this.buffer, offset);
+            this.buffer.putInt(offset + MOVE_OFFSET, move);
+            this.buffer.putShort(offset + PLY_OFFSET, (short) ply);
+            this.buffer.putShort(offset + RESULT_OFFSET, (short) 0);
+            this.buffer.position(offset + RECORD_SIZE);
+            return true;
+        }
+
+        @Override
+        public void endGame(final PgnParser.Result result) {
+            for (int offset = this.gameStart; offset < this.buffer.position(); offset += RECORD_SIZE) {
+                this.buffer.put(offset + RESULT_OFFSET, (byte) result.ordinal());
+            }
+            this.gameStart = this.buffer.position();
+        }
+
+        // Writes out the finished games and moves the unfinished one, if any, to the front
+        private void writeFinishedGames() {
+            final int end = this.buffer.position();
+            this.buffer.position(0).limit(this.gameStart);
+            try {
+                write(this.buffer);
+            } catch (final IOException e) {
+                throw new RuntimeException("Writing position records failed", e);
+            }
+            this.buffer.limit(end).position(this.gameStart);
+            this.buffer.compact();
+            this.gameStart = 0;
+        }
+    }
+}
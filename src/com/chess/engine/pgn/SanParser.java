@@ -0,0 +1,170 @@
+package com.chess.engine.pgn;
+
+import com.chess.engine.board.LegalMoveGenerator;
+import com.chess.engine.board.MoveBuffer;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.Position;
+import com.chess.engine.pieces.Piece.PieceType;
+
+/*
+* Reads moves written in Standard Algebraic Notation, the way PGN files and people write them: "e4", "Nf3", "exd5",
+* "Rad1", "N5xf3", "e8=Q+", "O-O-O".
+*
+* The text only says what kind of piece moves, where it lands, what it promotes to and, when two of the same kind
+* could get there, which file or rank it comes from. So the legal moves of the position are generated and the one
+* that fits is picked; this also means a move that is not legal in the position is never handed back. Check and mate
+* marks, "x" and annotation marks ("!", "?!") are allowed but not needed. Castling may be written with letter O or
+* digit 0, and the promotion without its '='.
+*
+* Works straight off a range of any CharSequence, so moves can be read out of a larger buffer without making Strings.
+* Each parser keeps its own array for the legal moves, so one per thread.
+* */
+
+public final class SanParser {
+
+    private static final int ANY = -1; // No file or rank given to tell the moving piece apart
+
+    private final int[] legalMoves = new int[MoveBuffer.MAX_MOVES_PER_POSITION];
+
+    public int parseMove(final Position position, final CharSequence san) {
+        return parseMove(position, san, 0, san.length());
+    }
+
+    // The packed move written in characters start (inclusive) to end (exclusive). Throws IllegalArgumentException
+    // when the text is not a move, or does not fit exactly one legal move of the position
+    public int parseMove(final Position position, final CharSequence text, final int start, int end) {
+        while (end > start && isSuffix(text.charAt(end - 1))) { // Check, mate and annotation marks say nothing about the move
+            end--;
+        }
+        if (end - start < 2) {
+            throw illegalMove(text, start, end, "is not a move");
+        }
+        final int castleFlags = castleFlags(text, start, end);
+        if (castleFlags != PackedMove.QUIET) {
+            return findMove(position, PieceType.KING.ordinal(), ANY, ANY, ANY, castleFlags, text, start, end);
+        }
+
+        int index = start;
+        int movedCode = pieceCode(text.charAt(index));
+        if (movedCode == ANY) {
+            movedCode = PieceType.PAWN.ordinal();
+        } else {
+            index++;
+        }
+        int promotionFlags = PackedMove.QUIET;
+        int destinationEnd = end;
+        final int promotionCode = pieceCode(text.charAt(end - 1));
+        if (movedCode == PieceType.PAWN.ordinal() && promotionCode != ANY) {
+            promotionFlags = PackedMove.PROMOTION | (promotionCode - PieceType.KNIGHT.ordinal());
+            destinationEnd = text.charAt(end - 2) == '=' ? end - 2 : end - 1;
+        }
+        if (destinationEnd - index < 2 || !isFile(text.charAt(destinationEnd - 2)) || !isRank(text.charAt(destinationEnd - 1))) {
+            throw illegalMove(text, start, end, "has no destination tile");
+        }
+        final int destination = tile(text.charAt(destinationEnd - 2), text.charAt(destinationEnd - 1));
+
+        int fromFile = ANY; // Whatever is between the piece letter and the destination: a file, a rank, both, and an 'x'
+        int fromRank = ANY;
+        for (int i = index; i < destinationEnd - 2; i++) {
+            final char c = text.charAt(i);
+            if (isFile(c)) {
+                fromFile = c - 'a';
+            } else if (isRank(c)) {
+                fromRank = '8' - c;
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw illegalMove(text, start, end, "has '" + c + "' where a file or rank should be");
+            }
+        }
+        return findMove(position, movedCode, destination, fromFile, fromRank, promotionFlags, text, start, end);
+    }
+
+    // The one legal move that fits, the flags only matter for castling and promotion
+    private int findMove(final Position position,
+                         final int movedCode,
+                         final int destination,
+                         final int fromFile,
+                         final int fromRank,
+                         final int flags,
+                         final CharSequence text,
+                         final int start,
+                         final int end) {
+        final int moveCount = LegalMoveGenerator.generateLegalMoves(position, this.legalMoves, 0);
+        final boolean special = flags != PackedMove.QUIET;
+        int found = PackedMove.NO_MOVE;
+        for (int i = 0; i < moveCount; i++) {
+            final int move = this.legalMoves[i];
+            final int moveFlags = PackedMove.getFlags(move);
+            final int from = PackedMove.getFromCoordinate(move);
+            if (PackedMove.getMovedCode(move) != movedCode ||
+                (destination != ANY && PackedMove.getToCoordinate(move) != destination) ||
+                (fromFile != ANY && from % 8 != fromFile) ||
+                (fromRank != ANY && from / 8 != fromRank) ||
+                (special ? moveFlags != flags : PackedMove.isPromotion(move) || isCastle(moveFlags))) {
+                continue;
+            }
+            if (found != PackedMove.NO_MOVE) {
+                throw illegalMove(text, start, end, "could be more than one move");
+            }
+            found = move;
+        }
+        if (found == PackedMove.NO_MOVE) {
+            throw illegalMove(text, start, end, "is not a legal move");
+        }
+        return found;
+    }
+
+    private static int castleFlags(final CharSequence text, final int start, final int end) {
+        final int length = end - start;
+        if (length != 3 && length != 5) {
+            return PackedMove.QUIET;
+        }
+        for (int i = start; i < end; i++) {
+            final char c = text.charAt(i);
+            if ((i - start) % 2 == 0 ? c != 'O' && c != '0' : c != '-') {
+                return PackedMove.QUIET;
+            }
+        }
+        return length == 3 ? PackedMove.KING_SIDE_CASTLE : PackedMove.QUEEN_SIDE_CASTLE;
+    }
+
+    private static boolean isCastle(final int flags) {
+        return flags == PackedMove.KING_SIDE_CASTLE || flags == PackedMove.QUEEN_SIDE_CASTLE;
+    }
+
+    private static int pieceCode(final char c) { // PieceType ordinal for the letter of a piece other than a pawn
+        switch (c) {
+            case 'N':
+                return PieceType.KNIGHT.ordinal();
+            case 'B':
+                return PieceType.BISHOP.ordinal();
+            case 'R':
+                return PieceType.ROOK.ordinal();
+            case 'Q':
+                return PieceType.QUEEN.ordinal();
+            case 'K':
+                return PieceType.KING.ordinal();
+            default:
+                return ANY;
+        }
+    }
+
+    private static boolean isSuffix(final char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+
+    private static boolean isFile(final char c) {
+        return c >= 'a' && c <= 'h';
+    }
+
+    private static boolean isRank(final char c) {
+        return c >= '1' && c <= '8';
+    }
+
+    private static int tile(final char file, final char rank) {
+        return ('8' - rank) * 8 + (file - 'a');
+    }
+
+    private static IllegalArgumentException illegalMove(final CharSequence text, final int start, final int end, final String reason) {
+        return new IllegalArgumentException("\"" + text.subSequence(start, end) + "\" " + reason);
+    }
+}
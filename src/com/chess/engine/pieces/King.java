@@ -1,11 +1,10 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.CastlingRights;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Move.*;
-import com.chess.engine.board.Tile;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -13,55 +12,59 @@ import java.util.Collections;
 import java.util.List;
 
 // The king can move in one square in each direction
+// The king can castle with a rook while the board still has the right to, the tiles between them are empty and the
+// king does not start on, pass through or land on an attacked tile
 
 public class King extends Piece {
 
-    private static final int[] CANDIDATE_MOVE_COORDINATES = {-9,-8,-7-1,1,7,8,9};
-    public King(Alliance pieceAlliance, int piecePosition) {
-        super(piecePosition, pieceAlliance);
+    public King(Alliance pieceAlliance, int piecePosition) { // A piece that has not moved yet
+        this(pieceAlliance, piecePosition, true);
+    }
+
+    public King(Alliance pieceAlliance, int piecePosition, final boolean isFirstMove) {
+        super(PieceType.KING, piecePosition, pieceAlliance, isFirstMove);
     }
 
     @Override
     public Collection<Move> calculateLegalMoves(Board board) {
 
-        final List<Move> legalMoves = new ArrayList<>(); // Uses list since because an interface gives you more abstraction
-        // Allows you to exchange the implementation at any time
-
-        for (final int currentCandidateOffset : CANDIDATE_MOVE_COORDINATES) { // Going through each offset and determining if that tile is occupied or not
-            final int candidateDestinationCoordinate = this.piecePosition + currentCandidateOffset; // The destination is the current position add the offset we are applying
-
-            if (isFirstColumnExclusion(this.piecePosition, currentCandidateOffset ) || isEighthColumnExclusion(this.piecePosition, currentCandidateOffset)) { // If the piece position and the current offset falls within the we
-                continue; // Skip the rest of the code
-            }
-
-            if (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                final Tile candidateDestinationTile = board.getTile(candidateDestinationCoordinate);
-                if (!candidateDestinationTile.isTileOccupied()) {
-                    legalMoves.add(new MajorMove(board,this,candidateDestinationCoordinate));
-                } else {
-                    final Piece pieceAtDestination = candidateDestinationTile.getPiece();
-                    final Alliance pieceAlliance =  pieceAtDestination.getPieceAlliance();
-                    if (this.pieceAlliance != pieceAlliance) {
-                        legalMoves.add(new AttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
-                    }
-                }
-            }
+        // The eight surrounding tiles come straight from the attack table, minus the ones our own pieces stand on
+        final long destinations = AttackTables.kingAttacks(this.piecePosition) & ~board.getOccupancy(this.pieceAlliance);
+        final Collection<Move> moves = createMoves(board, destinations);
+        final int castlingRights = board.getCastlingRights() &
+                (CastlingRights.kingSide(this.pieceAlliance) | CastlingRights.queenSide(this.pieceAlliance));
+        if (castlingRights == 0) {
+            return moves; // Nearly every position once the opening is over
+        }
+        // The rights being there means this king and the rook are still on their starting tiles
+        final long attacked = board.getAttackMap(this.pieceAlliance.getOpposite());
+        final List<Move> legalMoves = new ArrayList<>(moves);
+        if ((castlingRights & CastlingRights.kingSide(this.pieceAlliance)) != 0 && canCastle(board, attacked, true)) {
+            legalMoves.add(new Move.KingSideCastleMove(board, this, CastlingRights.kingDestination(this.piecePosition, true),
+                                                       castleRook(board, true),
+                                                       CastlingRights.rookStart(this.piecePosition, true),
+                                                       CastlingRights.rookDestination(this.piecePosition, true)));
+        }
+        if ((castlingRights & CastlingRights.queenSide(this.pieceAlliance)) != 0 && canCastle(board, attacked, false)) {
+            legalMoves.add(new Move.QueenSideCastleMove(board, this, CastlingRights.kingDestination(this.piecePosition, false),
+                                                        castleRook(board, false),
+                                                        CastlingRights.rookStart(this.piecePosition, false),
+                                                        CastlingRights.rookDestination(this.piecePosition, false)));
         }
-
-
         return Collections.unmodifiableList(legalMoves);
     }
 
-    @Override // Now has a specific ascii value fo the type of piece
-    public String toString() {
-        return PieceType.KING.toString();
+    private boolean canCastle(final Board board, final long attacked, final boolean kingSide) {
+        return (board.getOccupancy() & CastlingRights.emptyTilesNeeded(this.piecePosition, kingSide)) == 0 &&
+               (attacked & CastlingRights.kingPath(this.piecePosition, kingSide)) == 0;
     }
 
-    private static boolean isFirstColumnExclusion(final int currentPosition, final int candidateOffset) {
-        return BoardUtils.FIRST_COLUMN[currentPosition] && (candidateOffset == -9  || candidateOffset == -1 || candidateOffset == 7 ); // These are the inverses of each other
+    private Piece castleRook(final Board board, final boolean kingSide) {
+        return board.getTile(CastlingRights.rookStart(this.piecePosition, kingSide)).getPiece();
     }
 
-    private static boolean isEighthColumnExclusion(final int currentPosition, final int candidateOffset) {// These are the parameters
-        return BoardUtils.EIGHTH_COLUMN[currentPosition] && (candidateOffset == -7 || candidateOffset == 1 || candidateOffset == 9); // These tow exceptions are the inverse of each other
+    @Override // Now has a specific ascii value fo the type of piece
+    public String toString() {
+        return PieceType.KING.toString();
     }
 }
@@ -3,7 +3,10 @@ import com.chess.engine.Alliance;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 // Defined the piece class with one abstract method legal moves, and all the pieces we are creating will override
 // this and have their own legal behaviour it can take, like a knight and a bishop have very different moves.
@@ -14,18 +17,23 @@ public abstract class Piece { // Abstract since there is not only one piece, the
     // Start by saying that every piece has a piece position,
     // a tile coordinate that is occupied on
 
+    protected final PieceType pieceType; // What kind of piece this is, the board uses it to pick the right bitboard
     protected final int piecePosition; // The position of the piece on the board
     protected final Alliance pieceAlliance; // Whether it is white or black, but can also be using for what player it is
-    protected final boolean isFirstMove;
-    Piece(final int piecePosition, final Alliance pieceAlliance) {
+    protected final boolean isFirstMove; // True until the piece has moved, pawns need it for the jump move
+    Piece(final PieceType pieceType, final int piecePosition, final Alliance pieceAlliance, final boolean isFirstMove) {
 
+        this.pieceType = pieceType;
         this.pieceAlliance = pieceAlliance;
         this.piecePosition = piecePosition;
-        // TODO More work here
-        this.isFirstMove = false;
+        this.isFirstMove = isFirstMove;
 
     }
 
+    public PieceType getPieceType() { // Getter for the type of piece, e.g. knight or bishop
+        return this.pieceType;
+    }
+
     public int getPiecePosition() { // Getter method for Piece position, visible everywhere
         return this.piecePosition;
     }
@@ -45,21 +53,58 @@ public abstract class Piece { // Abstract since there is not only one piece, the
     // So now whoever calls this method it is unspecified, it is just a collection
     public abstract Collection<Move> calculateLegalMoves (final Board board);  // This will return a collection of moves, either a set or collection
 
+    // Every piece ends up with a bitboard of tiles it can go to, this turns that bitboard into moves
+    // An empty destination is a normal move, an occupied one is an attack on whatever enemy piece is sitting there
+    // The caller has already taken our own pieces out of the destinations, so anything occupied here is an enemy
+    protected Collection<Move> createMoves(final Board board, final long destinations) {
+        final List<Move> legalMoves = new ArrayList<>(Long.bitCount(destinations));
+        long remaining = destinations;
+        while (remaining != 0) {
+            final int destinationCoordinate = Long.numberOfTrailingZeros(remaining);
+            if (!board.isTileOccupied(destinationCoordinate)) {
+                legalMoves.add(new Move.MajorMove(board, this, destinationCoordinate));
+            } else {
+                legalMoves.add(new Move.AttackMove(board, this, destinationCoordinate, board.getTile(destinationCoordinate).getPiece()));
+            }
+            remaining &= remaining - 1; // Clear the lowest set bit and move onto the next destination
+        }
+        return Collections.unmodifiableList(legalMoves);
+    }
+
+
+    // The piece of the given type, for code that only knows the type it wants (e.g. turning a bitboard back into pieces)
+    // Pieces never change, so this hands out the shared one from the PieceRegistry rather than making a new one
+    public static Piece createPiece(final PieceType pieceType, final Alliance pieceAlliance, final int piecePosition) {
+        return createPiece(pieceType, pieceAlliance, piecePosition, true);
+    }
+
+    public static Piece createPiece(final PieceType pieceType,
+                                    final Alliance pieceAlliance,
+                                    final int piecePosition,
+                                    final boolean isFirstMove) {
+        return PieceRegistry.getPiece(pieceType, pieceAlliance, piecePosition, isFirstMove);
+    }
 
     public enum PieceType { // Enum for each piece type
 
         // When the toString method is invoked on each piece we will delegate each piece type
 
-        PAWN("P"), // Giving ascii values for each piece type
-        KNIGHT("N"),
-        BISHOP("B"),
-        ROOK("R"),
-        QUEEN("Q"),
-        KING("K");
+        PAWN("P", 100), // Giving ascii values for each piece type, and what the piece is worth in centipawns
+        KNIGHT("N", 320),
+        BISHOP("B", 330),
+        ROOK("R", 500),
+        QUEEN("Q", 900),
+        KING("K", 10000); // Never actually traded, both sides always have one so it cancels out
         private String pieceName;
+        private final int pieceValue;
 
-        PieceType(final String pieceName) {
+        PieceType(final String pieceName, final int pieceValue) {
             this.pieceName = pieceName;
+            this.pieceValue = pieceValue;
+        }
+
+        public int getPieceValue() {
+            return this.pieceValue;
         }
 
         @Override
@@ -0,0 +1,85 @@
+package com.chess.engine.pieces;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.BoardUtils;
+
+/*
+* Every piece there can ever be, made once when the class loads and then shared (the flyweight pattern).
+*
+* A piece is nothing but its type, alliance, tile and whether it has moved yet, and it never changes once made, so two
+* boards with a white knight on f3 can hold the very same Knight object. That is 6 types x 2 alliances x 64 tiles x
+* moved or not = 1536 pieces, kept in one array indexed by
+*
+*   (isFirstMove ? 1 : 0) * 768 + BoardUtils.bitBoardIndex(alliance, type) * 64 + tile
+*
+* so getting one is an array read. Tile keeps an occupied tile for each of them in an array with the same index.
+* */
+
+public final class PieceRegistry {
+
+    public static final int NUM_PIECES = 2 * BoardUtils.NUM_BIT_BOARDS * BoardUtils.NUM_TILES;
+
+    private static final int FIRST_MOVE_OFFSET = BoardUtils.NUM_BIT_BOARDS * BoardUtils.NUM_TILES;
+
+    private static final Piece[] PIECES = createAllPossiblePieces();
+
+    private PieceRegistry() {
+        throw new RuntimeException("You cannot instantiate this!!!");
+    }
+
+    private static Piece[] createAllPossiblePieces() {
+        final Piece[] pieces = new Piece[NUM_PIECES];
+        for (final Alliance alliance : Alliance.values()) {
+            for (final Piece.PieceType pieceType : Piece.PieceType.values()) {
+                for (int tile = 0; tile < BoardUtils.NUM_TILES; tile++) {
+                    pieces[index(pieceType, alliance, tile, false)] = newPiece(pieceType, alliance, tile, false);
+                    pieces[index(pieceType, alliance, tile, true)] = newPiece(pieceType, alliance, tile, true);
+                }
+            }
+        }
+        return pieces;
+    }
+
+    private static Piece newPiece(final Piece.PieceType pieceType,
+                                  final Alliance pieceAlliance,
+                                  final int piecePosition,
+                                  final boolean isFirstMove) {
+        switch (pieceType) {
+            case PAWN:
+                return new Pawn(pieceAlliance, piecePosition, isFirstMove);
+            case KNIGHT:
+                return new Knight(pieceAlliance, piecePosition, isFirstMove);
+            case BISHOP:
+                return new Bishop(pieceAlliance, piecePosition, isFirstMove);
+            case ROOK:
+                return new Rook(pieceAlliance, piecePosition, isFirstMove);
+            case QUEEN:
+                return new Queen(pieceAlliance, piecePosition, isFirstMove);
+            default:
+                return new King(pieceAlliance, piecePosition, isFirstMove);
+        }
+    }
+
+    public static Piece getPiece(final Piece.PieceType pieceType,
+                                 final Alliance pieceAlliance,
+                                 final int piecePosition,
+                                 final boolean isFirstMove) {
+        return PIECES[index(pieceType, pieceAlliance, piecePosition, isFirstMove)];
+    }
+
+    public static Piece getPiece(final int index) {
+        return PIECES[index];
+    }
+
+    public static int index(final Piece.PieceType pieceType,
+                            final Alliance pieceAlliance,
+                            final int piecePosition,
+                            final boolean isFirstMove) {
+        return (isFirstMove ? FIRST_MOVE_OFFSET : 0) +
+               BoardUtils.bitBoardIndex(pieceAlliance, pieceType) * BoardUtils.NUM_TILES + piecePosition;
+    }
+
+    public static int index(final Piece piece) { // Where the shared piece equal to this one sits
+        return index(piece.getPieceType(), piece.getPieceAlliance(), piece.getPiecePosition(), piece.isFirstMove());
+    }
+}
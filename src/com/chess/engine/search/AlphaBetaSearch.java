@@ -0,0 +1,386 @@
+package com.chess.engine.search;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.MoveBuffer;
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.bitbase.Bitbases;
+import com.chess.engine.book.OpeningBook;
+import com.chess.engine.pieces.Piece;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+* Picks a move: negamax alpha-beta with iterative deepening and a quiescence search over captures.
+*
+* Iterative deepening searches depth 1, then 2, then 3 and so on, each iteration seeding the next through the
+* transposition table, until a limit is hit. A time or node limit is hard: the search checks the clock every 1024
+* nodes and, once it is over, unwinds straight away and answers with the last iteration that finished. A new
+* iteration is not started once half the time is used, since it would almost never finish.
+*
+* Moves come from a MovePicker per ply, which generates them in stages in the order MoveOrderer describes: hash move,
+* captures by MVV-LVA, killers, quiet moves by history score, then the captures that lose material. Quiescence only
+* ever generates captures, and skips the ones static exchange evaluation says lose material.
+*
+* All the work happens on one SearchBoard with make/unmake and packed moves stacked in the thread's MoveBuffer, so
+* nothing is allocated per node. One AlphaBetaSearch per thread; the transposition table may be shared.
+*
+* With an OpeningBook set, a root position the book knows is answered with one of its moves straight away, picked at
+* random by weight so the engine does not always play the same opening, and not searched at all.
+*
+* With Bitbases set, a node whose material has changed since the root is looked up in them and, if found, scored
+* straight away: 0 for a draw, KNOWN_WIN plus the evaluation for a win (minus for a loss), so wins still compare by how
+* well they are going. Not when the root is already the same endgame, since a bitbase only says who wins and the search
+* still has to find the way there; cutting it off one ply down would leave it shuffling.
+* */
+
+public final class AlphaBetaSearch {
+
+    public static final int INFINITY = 32_000;
+    public static final int MATE_SCORE = 31_000; // Mate at the root, a mate n plies away scores MATE_SCORE - n
+    public static final int MATE_THRESHOLD = MATE_SCORE - MoveBuffer.MAX_PLY; // Anything past this is a mate score
+    public static final int KNOWN_WIN = 20_000; // A bitbase win, far above any evaluation and far below the mate scores
+
+    private static final int MAX_PLY = MoveBuffer.MAX_PLY;
+    private static final int LIMIT_CHECK_INTERVAL = 1023; // Look at the clock every 1024 nodes
+
+    private final TranspositionTable transpositionTable;
+    private final PositionEvaluator evaluator;
+    private final MoveOrderer moveOrderer = new MoveOrderer();
+    private final MovePicker[] movePickers = new MovePicker[MAX_PLY]; // One per ply, reused from node to node
+
+    // Triangular principal variation table, pvTable[ply] holds the best line found from that ply down
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+
+    private final int[] bookWeights = new int[MoveBuffer.MAX_MOVES_PER_POSITION];
+    private OpeningBook openingBook; // null when playing without a book
+    private Bitbases bitbases; // null when playing without bitbases
+    private int rootPieceCount;
+    private int rootPawnCount;
+
+    private volatile boolean stopRequested; // Set from another thread to end the search early
+    private SearchBoard board;
+    private int[] moves;
+    private long nodes;
+    private long deadlineNanos;
+    private long maxNodes;
+    private boolean aborted;
+
+    public AlphaBetaSearch(final TranspositionTable transpositionTable, final PositionEvaluator evaluator) {
+        this.transpositionTable = transpositionTable;
+        this.evaluator = evaluator;
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            this.movePickers[ply] = new MovePicker(this.moveOrderer);
+        }
+    }
+
+    public AlphaBetaSearch() {
+        this(new TranspositionTable(16), new StandardEvaluator());
+    }
+
+    public void stop() { // Safe to call from any thread, the search answers with its last finished iteration
+        this.stopRequested = true;
+    }
+
+    void clearStop() {
+        this.stopRequested = false;
+    }
+
+    public void setOpeningBook(final OpeningBook openingBook) { // null turns the book off
+        this.openingBook = openingBook;
+    }
+
+    public void setBitbases(final Bitbases bitbases) { // null turns them off
+        this.bitbases = bitbases;
+    }
+
+    public SearchResult search(final Board rootBoard, final SearchLimits limits) {
+        this.stopRequested = false;
+        final SearchResult bookResult = probeBook(rootBoard);
+        return bookResult != null ? bookResult : search(rootBoard, limits, 0);
+    }
+
+    // A legal book move for the root as a depth 0 result, or null when the root is out of book
+    SearchResult probeBook(final Board rootBoard) {
+        if (this.openingBook == null) {
+            return null;
+        }
+        final long startNanos = System.nanoTime();
+        final int[] bookMoves = MoveBuffer.forCurrentThread().getMoves();
+        final int bookEnd = this.openingBook.probe(rootBoard, bookMoves, this.bookWeights, 0);
+        if (bookEnd == 0) {
+            return null;
+        }
+        final SearchBoard board = new SearchBoard(rootBoard);
+        final Alliance moveMaker = board.getMoveMaker();
+        int totalWeight = 0;
+        for (int i = 0; i < bookEnd; i++) {
+            board.makeMove(bookMoves[i]);
+            if (board.isInCheck(moveMaker)) {
+                this.bookWeights[i] = 0; // Book moves are only pseudo-legal, never play one into check
+            }
+            board.unmakeMove();
+            totalWeight += this.bookWeights[i];
+        }
+        if (totalWeight == 0) {
+            return null; // Only moves the book says never to play
+        }
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        int chosen = 0;
+        while (pick >= this.bookWeights[chosen]) {
+            pick -= this.bookWeights[chosen++];
+        }
+        final int move = bookMoves[chosen];
+        return new SearchResult(rootBoard, move, 0, 0, 0L, System.nanoTime() - startNanos, new int[] {move});
+    }
+
+    // Lazy SMP helpers search every iteration a few plies deeper than the main thread (depthOffset), so the threads
+    // spread out over the tree instead of all repeating the same work. The stop flag is left alone here, the owner
+    // clears it before handing the search to its thread so an early stop() is never lost
+    SearchResult search(final Board rootBoard, final SearchLimits limits, final int depthOffset) {
+        final long startNanos = System.nanoTime();
+        this.deadlineNanos = limits.getMaxTimeMillis() == SearchLimits.NO_LIMIT ? Long.MAX_VALUE :
+                             startNanos + limits.getMaxTimeMillis() * 1_000_000L;
+        this.maxNodes = limits.getMaxNodes();
+        this.board = new SearchBoard(rootBoard);
+        this.moves = MoveBuffer.forCurrentThread().getMoves();
+        this.rootPieceCount = Long.bitCount(this.board.getOccupancy());
+        this.rootPawnCount = pawnCount();
+        this.nodes = 0L;
+        this.aborted = false;
+        if (depthOffset == 0) {
+            this.transpositionTable.newSearch(); // Only the main search starts a new table generation
+        }
+        this.moveOrderer.newSearch();
+
+        int bestMove = PackedMove.NO_MOVE;
+        int bestScore = 0;
+        int completedDepth = 0;
+        int[] principalVariation = new int[0];
+
+        for (int depth = 1; depth <= limits.getMaxDepth(); depth++) {
+            final int score = negamax(depth + depthOffset, 0, -INFINITY, INFINITY, 0);
+            if (this.aborted) {
+                if (bestMove == PackedMove.NO_MOVE && this.pvLength[0] > 0) {
+                    bestMove = this.pvTable[0][0]; // Cut off in the first iteration, a partly searched move beats none
+                }
+                break;
+            }
+            completedDepth = depth + depthOffset;
+            bestScore = score;
+            principalVariation = Arrays.copyOf(this.pvTable[0], this.pvLength[0]);
+            bestMove = principalVariation.length > 0 ? principalVariation[0] : PackedMove.NO_MOVE;
+
+            if (Math.abs(score) >= MATE_THRESHOLD && MATE_SCORE - Math.abs(score) <= depth) {
+                break; // Found a forced mate inside the searched depth, going deeper will not change it
+            }
+            if (this.deadlineNanos != Long.MAX_VALUE &&
+                System.nanoTime() - startNanos > (this.deadlineNanos - startNanos) / 2) {
+                break; // Not enough time left for the next iteration to finish
+            }
+        }
+        if (bestMove == PackedMove.NO_MOVE) {
+            bestMove = firstLegalMove(); // Out of time before anything was searched, still answer with a legal move
+        }
+        return new SearchResult(rootBoard, bestMove, bestScore, completedDepth, this.nodes,
+                                System.nanoTime() - startNanos, principalVariation);
+    }
+
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    // *****************************************************************************************************************************
+    //                          The search itself
+
+    private int negamax(int depth, final int ply, int alpha, final int beta, final int moveStart) {
+        this.pvLength[ply] = ply;
+        if ((++this.nodes & LIMIT_CHECK_INTERVAL) == 0) {
+            checkLimits();
+        }
+        if (this.aborted) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return this.evaluator.evaluate(this.board);
+        }
+        if (this.bitbases != null && ply > 0 && (Long.bitCount(this.board.getOccupancy()) != this.rootPieceCount ||
+                                                 pawnCount() != this.rootPawnCount)) {
+            final int result = this.bitbases.probe(this.board);
+            if (result != Bitbases.NOT_FOUND) {
+                return result == Bitbases.DRAW ? 0 :
+                       (result == Bitbases.WIN ? KNOWN_WIN : -KNOWN_WIN) + this.evaluator.evaluate(this.board);
+            }
+        }
+
+        final Alliance moveMaker = this.board.getMoveMaker();
+        final boolean inCheck = this.board.isInCheck(moveMaker);
+        if (inCheck) {
+            depth++; // Check extension, never drop into quiescence while in check
+        }
+        if (depth <= 0) {
+            return quiescence(ply, alpha, beta, moveStart);
+        }
+
+        final long key = this.board.getZobristKey();
+        int hashMove = PackedMove.NO_MOVE;
+        final long entry = this.transpositionTable.probe(key);
+        if (entry != TranspositionTable.NO_ENTRY) {
+            hashMove = TranspositionTable.getMove(entry);
+            if (ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+                final int tableScore = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                final int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT ||
+                    (bound == TranspositionTable.BOUND_LOWER && tableScore >= beta) ||
+                    (bound == TranspositionTable.BOUND_UPPER && tableScore <= alpha)) {
+                    return tableScore;
+                }
+            }
+        }
+
+        final MovePicker movePicker = this.movePickers[ply];
+        movePicker.init(this.board, this.moves, moveStart, hashMove, ply);
+
+        final int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = PackedMove.NO_MOVE;
+        int legalMoves = 0;
+        int move;
+        while ((move = movePicker.nextMove()) != PackedMove.NO_MOVE) {
+            this.board.makeMove(move);
+            if (this.board.isInCheck(moveMaker)) { // Pseudo legal move that leaves our own king in check
+                this.board.unmakeMove();
+                continue;
+            }
+            legalMoves++;
+            // The child writes its moves after everything this node has generated so far
+            final int score = -negamax(depth - 1, ply + 1, -beta, -alpha, movePicker.getEnd());
+            this.board.unmakeMove();
+            if (this.aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (score >= beta) {
+                        this.moveOrderer.recordCutoff(move, ply, depth, moveMaker);
+                        break; // The opponent will never allow this line, no need to look at the other moves
+                    }
+                }
+            }
+        }
+
+        if (legalMoves == 0) {
+            return inCheck ? -MATE_SCORE + ply : 0; // Checkmate, or stalemate
+        }
+
+        final int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER :
+                          bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        this.transpositionTable.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    // Only captures are searched past the horizon, so the score is never taken in the middle of an exchange
+    private int quiescence(final int ply, int alpha, final int beta, final int moveStart) {
+        this.pvLength[ply] = ply;
+        if ((++this.nodes & LIMIT_CHECK_INTERVAL) == 0) {
+            checkLimits();
+        }
+        if (this.aborted) {
+            return 0;
+        }
+
+        final int standPat = this.evaluator.evaluate(this.board); // The side to move can always decline to capture
+        if (standPat >= beta || ply >= MAX_PLY - 1) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        final Alliance moveMaker = this.board.getMoveMaker();
+        final int moveEnd = MoveGenerator.generateCaptures(this.board, this.moves, moveStart);
+        this.moveOrderer.scoreCaptures(this.board, this.moves, moveStart, moveEnd);
+        int bestScore = standPat;
+        for (int i = moveStart; i < moveEnd; i++) {
+            final int move = this.moveOrderer.pickNext(this.moves, i, moveEnd);
+            if (this.moveOrderer.isLosingCapture(i)) {
+                break; // Captures come best first, so from here on every one loses material and is not worth a look
+            }
+            this.board.makeMove(move);
+            if (this.board.isInCheck(moveMaker)) {
+                this.board.unmakeMove();
+                continue;
+            }
+            final int score = -quiescence(ply + 1, -beta, -alpha, moveEnd);
+            this.board.unmakeMove();
+            if (this.aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Helpers
+
+    private void checkLimits() {
+        if (this.stopRequested || this.nodes >= this.maxNodes ||
+            (this.deadlineNanos != Long.MAX_VALUE && System.nanoTime() - this.deadlineNanos > 0)) {
+            this.aborted = true;
+        }
+    }
+
+    private void updatePrincipalVariation(final int ply, final int move) {
+        this.pvTable[ply][ply] = move;
+        final int childLength = this.pvLength[ply + 1];
+        System.arraycopy(this.pvTable[ply + 1], ply + 1, this.pvTable[ply], ply + 1, childLength - (ply + 1));
+        this.pvLength[ply] = Math.max(ply + 1, childLength);
+    }
+
+    private int pawnCount() { // Both sides', a promotion changes it without changing the number of pieces
+        return Long.bitCount(this.board.getPieceBitBoard(Alliance.WHITE, Piece.PieceType.PAWN) |
+                             this.board.getPieceBitBoard(Alliance.BLACK, Piece.PieceType.PAWN));
+    }
+
+    private int firstLegalMove() {
+        final Alliance moveMaker = this.board.getMoveMaker();
+        final int moveEnd = MoveGenerator.generateMoves(this.board, this.moves, 0);
+        for (int i = 0; i < moveEnd; i++) {
+            this.board.makeMove(this.moves[i]);
+            final boolean legal = !this.board.isInCheck(moveMaker);
+            this.board.unmakeMove();
+            if (legal) {
+                return this.moves[i];
+            }
+        }
+        return PackedMove.NO_MOVE;
+    }
+
+    // Mate scores are stored relative to the node rather than the root, so they stay right when found again at
+    // another ply through a transposition
+    private static int scoreToTable(final int score, final int ply) {
+        return score >= MATE_THRESHOLD ? score + ply : score <= -MATE_THRESHOLD ? score - ply : score;
+    }
+
+    private static int scoreFromTable(final int score, final int ply) {
+        return score >= MATE_THRESHOLD ? score - ply : score <= -MATE_THRESHOLD ? score + ply : score;
+    }
+}
@@ -0,0 +1,120 @@
+package com.chess.engine.search;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.bitbase.Bitbases;
+import com.chess.engine.book.OpeningBook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+/*
+* Parallel search with Lazy SMP.
+*
+* The calling thread runs the main search and N helper threads search the same root board at the same time, all
+* sharing one transposition table. The helpers never report anything themselves: what they find ends up in the table,
+* where the main search picks it up as hash moves and cutoffs. Odd numbered helpers search each iteration one ply deeper
+* than the main thread so the threads do not all walk the same tree in lock step. When the main search finishes it
+* stops the helpers, and the answer is the main thread's last completed iteration.
+*
+* Board is immutable so every thread can start from the same root object, each builds its own SearchBoard from it.
+* The helper threads come from the given ThreadFactory, which can hand out platform or virtual threads.
+* A root found in the opening book is answered by the main search alone, the helpers are not started for it.
+* */
+
+public final class LazySmpSearch implements AutoCloseable {
+
+    private final AlphaBetaSearch mainSearch;
+    private final AlphaBetaSearch[] helperSearches;
+    private final ExecutorService helperPool;
+
+    public LazySmpSearch(final TranspositionTable transpositionTable,
+                         final Supplier<? extends PositionEvaluator> evaluatorSupplier,
+                         final int threadCount,
+                         final ThreadFactory threadFactory) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Need at least one search thread, got " + threadCount);
+        }
+        this.mainSearch = new AlphaBetaSearch(transpositionTable, evaluatorSupplier.get());
+        this.helperSearches = new AlphaBetaSearch[threadCount - 1];
+        for (int i = 0; i < this.helperSearches.length; i++) {
+            this.helperSearches[i] = new AlphaBetaSearch(transpositionTable, evaluatorSupplier.get()); // Evaluators may keep per thread state
+        }
+        this.helperPool = this.helperSearches.length == 0 ? null : Executors.newFixedThreadPool(this.helperSearches.length, threadFactory);
+    }
+
+    // Platform daemon threads, one per core by default
+    public LazySmpSearch(final int threadCount, final int hashSizeInMegabytes) {
+        this(new TranspositionTable(hashSizeInMegabytes), StandardEvaluator::new, threadCount, runnable -> {
+            final Thread thread = new Thread(runnable, "lazy-smp-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getThreadCount() {
+        return this.helperSearches.length + 1;
+    }
+
+    public void stop() {
+        this.mainSearch.stop();
+    }
+
+    public void setOpeningBook(final OpeningBook openingBook) { // null turns the book off
+        this.mainSearch.setOpeningBook(openingBook);
+    }
+
+    public void setBitbases(final Bitbases bitbases) { // Every thread probes them, null turns them off
+        this.mainSearch.setBitbases(bitbases);
+        for (final AlphaBetaSearch helper : this.helperSearches) {
+            helper.setBitbases(bitbases);
+        }
+    }
+
+    public SearchResult search(final Board rootBoard, final SearchLimits limits) {
+        this.mainSearch.clearStop();
+        final SearchResult bookResult = this.mainSearch.probeBook(rootBoard);
+        if (bookResult != null) {
+            return bookResult;
+        }
+        // Helpers have no depth or node limit of their own, they run until the main search is done with them
+        final SearchLimits helperLimits = new SearchLimits(SearchLimits.MAX_DEPTH, limits.getMaxTimeMillis(), SearchLimits.NO_LIMIT);
+        final List<Future<SearchResult>> helperResults = new ArrayList<>(this.helperSearches.length);
+        for (int i = 0; i < this.helperSearches.length; i++) {
+            final AlphaBetaSearch helper = this.helperSearches[i];
+            final int depthOffset = i % 2 == 0 ? 1 : 0;
+            helper.clearStop();
+            helperResults.add(this.helperPool.submit(() -> helper.search(rootBoard, helperLimits, depthOffset)));
+        }
+
+        final SearchResult mainResult = this.mainSearch.search(rootBoard, limits, 0);
+
+        for (final AlphaBetaSearch helper : this.helperSearches) {
+            helper.stop();
+        }
+        long totalNodes = mainResult.getNodes();
+        for (final Future<SearchResult> helperResult : helperResults) {
+            try {
+                totalNodes += helperResult.get().getNodes(); // Waiting here also makes sure no helper is still running
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (final ExecutionException exception) {
+                throw new RuntimeException("Helper search thread failed", exception.getCause());
+            }
+        }
+        return mainResult.withNodes(totalNodes);
+    }
+
+    @Override
+    public void close() {
+        if (this.helperPool != null) {
+            this.helperPool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.chess.engine.search;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece.PieceType;
+
+// The simplest evaluator there is: count up the pieces on each side and weigh them by how much they are worth
+
+public final class MaterialEvaluator implements PositionEvaluator {
+
+    private static final int PAWN_VALUE = PieceType.PAWN.getPieceValue();
+    private static final int KNIGHT_VALUE = PieceType.KNIGHT.getPieceValue();
+    private static final int BISHOP_VALUE = PieceType.BISHOP.getPieceValue();
+    private static final int ROOK_VALUE = PieceType.ROOK.getPieceValue();
+    private static final int QUEEN_VALUE = PieceType.QUEEN.getPieceValue();
+
+    @Override
+    public int evaluate(final SearchBoard board) {
+        final int score = material(board, Alliance.WHITE) - material(board, Alliance.BLACK);
+        return board.getMoveMaker().isWhite() ? score : -score;
+    }
+
+    private static int material(final SearchBoard board, final Alliance alliance) {
+        return PAWN_VALUE * Long.bitCount(board.getPieceBitBoard(alliance, PieceType.PAWN)) +
+               KNIGHT_VALUE * Long.bitCount(board.getPieceBitBoard(alliance, PieceType.KNIGHT)) +
+               BISHOP_VALUE * Long.bitCount(board.getPieceBitBoard(alliance, PieceType.BISHOP)) +
+               ROOK_VALUE * Long.bitCount(board.getPieceBitBoard(alliance, PieceType.ROOK)) +
+               QUEEN_VALUE * Long.bitCount(board.getPieceBitBoard(alliance, PieceType.QUEEN));
+    }
+}
@@ -0,0 +1,138 @@
+package com.chess.engine.search;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.MoveBuffer;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.Position;
+import com.chess.engine.board.StaticExchange;
+
+import java.util.Arrays;
+
+import static com.chess.engine.board.BoardUtils.NUM_TILES;
+
+/*
+* Puts the moves of a node in the order most likely to cause a cutoff, which is what makes alpha-beta fast.
+*
+* The order is:
+*   1. the hash move, the best move the transposition table remembers for this position
+*   2. captures and promotions that do not lose material, most valuable victim first and, for the same victim, least
+*      valuable attacker first (MVV-LVA), so pawn takes queen comes before queen takes queen
+*   3. the two killer moves for this ply, quiet moves that caused a cutoff in a sibling node
+*   4. every other quiet move by its history score, which grows each time that move (same side, same from and to
+*      tiles) causes a cutoff anywhere in the tree
+*   5. captures that lose material once the exchange is played out (static exchange evaluation, see StaticExchange),
+*      least losing first
+*
+* MovePicker hands the moves out in that order one group at a time. Within a group the moves are scored into an int[]
+* that runs alongside the MoveBuffer, then picked one at a time: pickNext swaps the best remaining move to the front.
+* That is a selection sort, but most nodes cut off after one or two moves so the rest are never sorted at all. This
+* class keeps the scores, killers and history. Nothing is allocated while searching. One MoveOrderer per search thread.
+* */
+
+final class MoveOrderer {
+
+    private static final int MAX_HISTORY_SCORE = 1 << 20; // Every entry is halved once one gets here
+
+    private static final int MAX_PLY = MoveBuffer.MAX_PLY;
+
+    private final int[] scores = new int[MoveBuffer.MAX_PLY * MoveBuffer.MAX_MOVES_PER_POSITION]; // Same indices as the MoveBuffer
+    private final int[][] killers = new int[MAX_PLY][2]; // [ply][0] is the most recent
+    private final int[][][] history = new int[2][NUM_TILES][NUM_TILES]; // [Alliance.ordinal()][from][to]
+    private final StaticExchange staticExchange = new StaticExchange();
+
+    // At the start of a new search: killers belong to the old tree, history is only worth half as much as it was
+    void newSearch() {
+        for (final int[] plyKillers : this.killers) {
+            Arrays.fill(plyKillers, PackedMove.NO_MOVE);
+        }
+        ageHistory();
+    }
+
+    // Captures (and promotions) by MVV-LVA, except the ones that lose material, which score what they lose and so come
+    // out after every other capture. Taking something worth at least the taker can never lose, so the exchange only
+    // has to be worked out when a piece takes something cheaper than itself
+    void scoreCaptures(final Position board, final int[] moves, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            final int move = moves[i];
+            final int exchange = isCheaperVictim(move) ? this.staticExchange.evaluate(board, move) : 0;
+            this.scores[i] = exchange < 0 ? exchange : mvvLva(move);
+        }
+    }
+
+    // Was the capture at this MoveBuffer index scored as losing material by scoreCaptures
+    boolean isLosingCapture(final int index) {
+        return this.scores[index] < 0;
+    }
+
+    // Quiet moves by how often they caused a cutoff before
+    void scoreQuietMoves(final int[] moves, final int start, final int end, final Alliance moveMaker) {
+        final int[][] sideHistory = this.history[moveMaker.ordinal()];
+        for (int i = start; i < end; i++) {
+            this.scores[i] = sideHistory[PackedMove.getFromCoordinate(moves[i])][PackedMove.getToCoordinate(moves[i])];
+        }
+    }
+
+    int getKiller(final int ply, final int slot) { // Slot 0 is the most recent killer, NO_MOVE when there is none
+        return this.killers[ply][slot];
+    }
+
+    // Swaps the best scored move in [index, end) to index and returns it
+    int pickNext(final int[] moves, final int index, final int end) {
+        int bestIndex = index;
+        int bestScore = this.scores[index];
+        for (int i = index + 1; i < end; i++) {
+            if (this.scores[i] > bestScore) {
+                bestScore = this.scores[i];
+                bestIndex = i;
+            }
+        }
+        final int move = moves[bestIndex];
+        moves[bestIndex] = moves[index];
+        moves[index] = move;
+        this.scores[bestIndex] = this.scores[index];
+        this.scores[index] = bestScore;
+        return move;
+    }
+
+    // A quiet move caused a beta cutoff: remember it as a killer for this ply and raise its history score
+    void recordCutoff(final int move, final int ply, final int depth, final Alliance moveMaker) {
+        if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) {
+            return; // These are ordered well enough by MVV-LVA already
+        }
+        final int[] plyKillers = this.killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        final int[] fromHistory = this.history[moveMaker.ordinal()][PackedMove.getFromCoordinate(move)];
+        final int to = PackedMove.getToCoordinate(move);
+        fromHistory[to] += depth * depth; // Cutoffs far from the leaves save the most work
+        if (fromHistory[to] >= MAX_HISTORY_SCORE) {
+            ageHistory();
+        }
+    }
+
+    private void ageHistory() {
+        for (final int[][] sideHistory : this.history) {
+            for (final int[] fromHistory : sideHistory) {
+                for (int to = 0; to < NUM_TILES; to++) {
+                    fromHistory[to] >>= 1;
+                }
+            }
+        }
+    }
+
+    private static boolean isCheaperVictim(final int move) {
+        return PackedMove.isCapture(move) &&
+               PackedMove.getCapturedType(move).getPieceValue() < PackedMove.getMovedType(move).getPieceValue();
+    }
+
+    // Victim first, then attacker: the victim code is scaled past every attacker code so it always decides. A
+    // promotion counts as winning the piece promoted to
+    private static int mvvLva(final int move) {
+        final int victimCode = PackedMove.isPromotion(move) ?
+                               PackedMove.getCapturedCode(move) + PackedMove.getPromotionType(move).ordinal() :
+                               PackedMove.getCapturedCode(move);
+        return victimCode * 8 - PackedMove.getMovedCode(move);
+    }
+}
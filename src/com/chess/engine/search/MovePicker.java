@@ -0,0 +1,147 @@
+package com.chess.engine.search;
+
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+
+/*
+* Hands out the moves of one node in stages, generating each stage only once the one before it has run out:
+*
+*   HASH_MOVE  the transposition table move, played before anything has been generated at all
+*   CAPTURES   generated with MoveGenerator.generateCaptures (promotions too) and picked by MVV-LVA, as long as they
+*              do not lose material
+*   KILLERS    the two killer moves for this ply, if they can be played here
+*   QUIETS     generated with MoveGenerator.generateQuietMoves and picked by history score
+*   LOSING     the captures that static exchange evaluation says lose material, put off until everything else
+*
+* Most cutoffs come from the hash move or a capture, and then the quiet moves are never generated. Moves already
+* handed out in an earlier stage are skipped when they turn up again in a later one. Moves are pseudo legal, the
+* caller still throws away the ones that leave its king in check.
+*
+* The moves go into the search's MoveBuffer from the node's start index. getEnd() is where this node's moves stop so
+* far, which is where the child node must start writing its own. One MovePicker per ply, reused with init().
+* */
+
+final class MovePicker {
+
+    private static final int HASH_MOVE = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int CAPTURES = 2;
+    private static final int FIRST_KILLER = 3;
+    private static final int SECOND_KILLER = 4;
+    private static final int GENERATE_QUIETS = 5;
+    private static final int QUIETS = 6;
+    private static final int LOSING_CAPTURES = 7;
+    private static final int DONE = 8;
+
+    private final MoveOrderer moveOrderer;
+    private SearchBoard board;
+    private int[] moves;
+    private int stage;
+    private int next; // Index of the next move to hand out in the current stage
+    private int end; // One past the last move generated so far
+    private int losingCapturesNext; // The losing captures stay where they were generated, ahead of the quiet moves
+    private int losingCapturesEnd;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+
+    MovePicker(final MoveOrderer moveOrderer) {
+        this.moveOrderer = moveOrderer;
+    }
+
+    void init(final SearchBoard board, final int[] moves, final int start, final int hashMove, final int ply) {
+        this.board = board;
+        this.moves = moves;
+        this.stage = HASH_MOVE;
+        this.next = start;
+        this.end = start;
+        this.losingCapturesNext = start;
+        this.losingCapturesEnd = start;
+        this.hashMove = MoveGenerator.isPseudoLegal(board, hashMove) ? hashMove : PackedMove.NO_MOVE;
+        this.firstKiller = this.moveOrderer.getKiller(ply, 0);
+        this.secondKiller = this.moveOrderer.getKiller(ply, 1);
+    }
+
+    int getEnd() {
+        return this.end;
+    }
+
+    // The next move to try, or NO_MOVE once every stage is used up
+    int nextMove() {
+        while (true) {
+            switch (this.stage) {
+                case HASH_MOVE:
+                    this.stage = GENERATE_CAPTURES;
+                    if (this.hashMove != PackedMove.NO_MOVE) {
+                        return this.hashMove;
+                    }
+                    break;
+                case GENERATE_CAPTURES:
+                    this.end = MoveGenerator.generateCaptures(this.board, this.moves, this.next);
+                    this.moveOrderer.scoreCaptures(this.board, this.moves, this.next, this.end);
+                    this.stage = CAPTURES;
+                    break;
+                case CAPTURES:
+                    while (this.next < this.end) {
+                        final int move = this.moveOrderer.pickNext(this.moves, this.next, this.end);
+                        if (this.moveOrderer.isLosingCapture(this.next)) { // Best left is losing, so all the rest are
+                            this.losingCapturesNext = this.next;
+                            this.losingCapturesEnd = this.end;
+                            this.next = this.end;
+                            break;
+                        }
+                        this.next++;
+                        if (move != this.hashMove) {
+                            return move;
+                        }
+                    }
+                    this.stage = FIRST_KILLER;
+                    break;
+                case FIRST_KILLER:
+                    this.stage = SECOND_KILLER;
+                    if (isPlayableKiller(this.firstKiller)) {
+                        return this.firstKiller;
+                    }
+                    break;
+                case SECOND_KILLER:
+                    this.stage = GENERATE_QUIETS;
+                    if (this.secondKiller != this.firstKiller && isPlayableKiller(this.secondKiller)) {
+                        return this.secondKiller;
+                    }
+                    break;
+                case GENERATE_QUIETS:
+                    this.end = MoveGenerator.generateQuietMoves(this.board, this.moves, this.next);
+                    this.moveOrderer.scoreQuietMoves(this.moves, this.next, this.end, this.board.getMoveMaker());
+                    this.stage = QUIETS;
+                    break;
+                case QUIETS:
+                    while (this.next < this.end) {
+                        final int move = this.moveOrderer.pickNext(this.moves, this.next++, this.end);
+                        if (move != this.hashMove && move != this.firstKiller && move != this.secondKiller) {
+                            return move;
+                        }
+                    }
+                    this.stage = LOSING_CAPTURES;
+                    break;
+                case LOSING_CAPTURES:
+                    while (this.losingCapturesNext < this.losingCapturesEnd) {
+                        final int move = this.moveOrderer.pickNext(this.moves, this.losingCapturesNext++, this.losingCapturesEnd);
+                        if (move != this.hashMove) {
+                            return move;
+                        }
+                    }
+                    this.stage = DONE;
+                    break;
+                default:
+                    return PackedMove.NO_MOVE;
+            }
+        }
+    }
+
+    // Killers come from other nodes, so they may not even be possible here. Only quiet killers are kept, so a killer is
+    // never a capture that was already handed out
+    private boolean isPlayableKiller(final int killer) {
+        return killer != this.hashMove && !PackedMove.isCapture(killer) && MoveGenerator.isPseudoLegal(this.board, killer);
+    }
+}
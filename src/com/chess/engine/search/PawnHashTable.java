@@ -0,0 +1,82 @@
+package com.chess.engine.search;
+
+import java.util.Arrays;
+
+/*
+* Cache of pawn structure scores, keyed by the pawn-only Zobrist key (Position.getPawnKey).
+*
+* Most moves in a search are not pawn moves, so the pawns under one node are nearly always the same as under its
+* neighbours and the structure score is found here instead of being worked out again. Fixed size, direct mapped, the
+* newest entry always wins. One table per evaluator and so per search thread, there is no locking.
+*
+* Hits and misses are counted so the hit rate can be checked while tuning the size.
+* */
+
+public final class PawnHashTable {
+
+    private static final int BYTES_PER_ENTRY = Long.BYTES + Integer.BYTES;
+
+    private final long[] keys;
+    private final int[] scores;
+    private final int indexMask;
+    private long hits;
+    private long misses;
+
+    public PawnHashTable(final int sizeInKilobytes) {
+        final int requestedEntries = Math.max(1, sizeInKilobytes * 1024 / BYTES_PER_ENTRY);
+        final int entries = Integer.highestOneBit(requestedEntries); // Power of two, so the slot is found with a mask
+        this.keys = new long[entries];
+        this.scores = new int[entries];
+        this.indexMask = entries - 1;
+        clear();
+    }
+
+    // The packed pawn structure score for these pawns, out of the cache when they have been seen before
+    int probe(final long pawnKey, final long whitePawns, final long blackPawns) {
+        final int index = (int) pawnKey & this.indexMask;
+        if (this.keys[index] == pawnKey) {
+            this.hits++;
+            return this.scores[index];
+        }
+        this.misses++;
+        final int score = PawnStructure.evaluate(whitePawns, blackPawns);
+        this.keys[index] = pawnKey;
+        this.scores[index] = score;
+        return score;
+    }
+
+    public void clear() {
+        // No pawns at all has key 0, so fill empty slots with that answer (nothing to score) rather than a marker
+        Arrays.fill(this.keys, 0L);
+        Arrays.fill(this.scores, 0);
+        resetCounters();
+    }
+
+    public void resetCounters() {
+        this.hits = 0L;
+        this.misses = 0L;
+    }
+
+    public int getSizeInKilobytes() {
+        return this.keys.length * BYTES_PER_ENTRY / 1024;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public double getHitRate() { // Between 0 and 1, 0 before anything has been looked up
+        final long probes = this.hits + this.misses;
+        return probes == 0 ? 0.0 : (double) this.hits / probes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("pawn hash %d KB, %d hits, %d misses, %.1f%% hit rate",
+                             getSizeInKilobytes(), this.hits, this.misses, 100.0 * getHitRate());
+    }
+}
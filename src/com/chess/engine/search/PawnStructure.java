@@ -0,0 +1,76 @@
+package com.chess.engine.search;
+
+import static com.chess.engine.board.BoardUtils.NUM_TILES;
+import static com.chess.engine.board.BoardUtils.NUM_TILES_PER_ROW;
+import static com.chess.engine.board.PieceSquareTables.score;
+
+/*
+* Pawn structure: doubled, isolated and passed pawns, worked out from the two pawn bitboards alone.
+*
+* Only the pawns go in, nothing else on the board matters, so the answer for a pawn layout never changes. Scores are
+* packed middlegame/endgame pairs from white's side, like PieceSquareTables.
+* */
+
+final class PawnStructure {
+
+    private static final int DOUBLED_PAWN = score(-10, -20); // For every pawn on a file past the first
+    private static final int ISOLATED_PAWN = score(-10, -15); // No friendly pawn on either neighbouring file
+    private static final int[] PASSED_PAWN = { // By rank counted from the pawn's own side, the further up the better
+            0, score(5, 10), score(10, 20), score(15, 30), score(25, 50), score(40, 80), score(60, 120), 0
+    };
+
+    private static final long[] FILE_MASKS = new long[NUM_TILES_PER_ROW];
+    private static final long[] ADJACENT_FILE_MASKS = new long[NUM_TILES_PER_ROW];
+    // [Alliance.ordinal()][tile], every tile in front of the pawn on its own and the neighbouring files. A pawn is
+    // passed when no enemy pawn stands anywhere in there
+    private static final long[][] PASSED_PAWN_MASKS = new long[2][NUM_TILES];
+
+    static {
+        for (int column = 0; column < NUM_TILES_PER_ROW; column++) {
+            FILE_MASKS[column] = 0x0101010101010101L << column;
+        }
+        for (int column = 0; column < NUM_TILES_PER_ROW; column++) {
+            ADJACENT_FILE_MASKS[column] = (column > 0 ? FILE_MASKS[column - 1] : 0L) |
+                                          (column < NUM_TILES_PER_ROW - 1 ? FILE_MASKS[column + 1] : 0L);
+        }
+        for (int tile = 0; tile < NUM_TILES; tile++) {
+            final int row = tile / NUM_TILES_PER_ROW;
+            final long files = FILE_MASKS[tile % NUM_TILES_PER_ROW] | ADJACENT_FILE_MASKS[tile % NUM_TILES_PER_ROW];
+            final long rowsAbove = row == 0 ? 0L : -1L >>> (NUM_TILES - row * NUM_TILES_PER_ROW); // Rows with a lower index
+            final long rowsBelow = row == NUM_TILES_PER_ROW - 1 ? 0L : -1L << ((row + 1) * NUM_TILES_PER_ROW);
+            PASSED_PAWN_MASKS[0][tile] = files & rowsAbove; // White pawns walk towards row 0
+            PASSED_PAWN_MASKS[1][tile] = files & rowsBelow;
+        }
+    }
+
+    private PawnStructure() {
+        throw new RuntimeException("You cannot instantiate this!!!");
+    }
+
+    static int evaluate(final long whitePawns, final long blackPawns) {
+        return evaluateSide(whitePawns, blackPawns, 0) - evaluateSide(blackPawns, whitePawns, 1);
+    }
+
+    private static int evaluateSide(final long pawns, final long enemyPawns, final int alliance) {
+        int score = 0;
+        for (int column = 0; column < NUM_TILES_PER_ROW; column++) {
+            final int pawnsOnFile = Long.bitCount(pawns & FILE_MASKS[column]);
+            if (pawnsOnFile > 1) {
+                score += (pawnsOnFile - 1) * DOUBLED_PAWN;
+            }
+        }
+        long remaining = pawns;
+        while (remaining != 0) {
+            final int tile = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            if ((pawns & ADJACENT_FILE_MASKS[tile % NUM_TILES_PER_ROW]) == 0) {
+                score += ISOLATED_PAWN;
+            }
+            if ((enemyPawns & PASSED_PAWN_MASKS[alliance][tile]) == 0) {
+                final int row = tile / NUM_TILES_PER_ROW;
+                score += PASSED_PAWN[alliance == 0 ? NUM_TILES_PER_ROW - 1 - row : row];
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,11 @@
+package com.chess.engine.search;
+
+import com.chess.engine.board.SearchBoard;
+
+// Scores a position for the search, in centipawns (100 = one pawn) from the point of view of the side to move
+// Positive means the side to move is better off. Runs at every leaf of the search so it must not allocate
+
+public interface PositionEvaluator {
+
+    int evaluate(SearchBoard board);
+}
@@ -0,0 +1,44 @@
+package com.chess.engine.search;
+
+// How far and for how long a search may run. Whichever limit is hit first ends the search
+// A time or node limit is hard: the search is stopped mid iteration and answers with the last completed depth
+
+public final class SearchLimits {
+
+    public static final int MAX_DEPTH = 64;
+    public static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private final int maxDepth;
+    private final long maxTimeMillis;
+    private final long maxNodes;
+
+    public SearchLimits(final int maxDepth, final long maxTimeMillis, final long maxNodes) {
+        this.maxDepth = Math.max(1, Math.min(maxDepth, MAX_DEPTH));
+        this.maxTimeMillis = maxTimeMillis;
+        this.maxNodes = maxNodes;
+    }
+
+    public static SearchLimits depth(final int maxDepth) {
+        return new SearchLimits(maxDepth, NO_LIMIT, NO_LIMIT);
+    }
+
+    public static SearchLimits time(final long maxTimeMillis) {
+        return new SearchLimits(MAX_DEPTH, maxTimeMillis, NO_LIMIT);
+    }
+
+    public static SearchLimits nodes(final long maxNodes) {
+        return new SearchLimits(MAX_DEPTH, NO_LIMIT, maxNodes);
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    public long getMaxTimeMillis() {
+        return this.maxTimeMillis;
+    }
+
+    public long getMaxNodes() {
+        return this.maxNodes;
+    }
+}
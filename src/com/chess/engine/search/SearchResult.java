@@ -0,0 +1,104 @@
+package com.chess.engine.search;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// What a search hands back: the move to play, the line it expects, and how much work went into finding it
+// Moves are kept packed and only turned into Move objects when asked for
+
+public final class SearchResult {
+
+    private final Board rootBoard;
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+    private final int[] principalVariation;
+
+    SearchResult(final Board rootBoard,
+                 final int bestMove,
+                 final int score,
+                 final int depth,
+                 final long nodes,
+                 final long elapsedNanos,
+                 final int[] principalVariation) {
+        this.rootBoard = rootBoard;
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.principalVariation = principalVariation;
+    }
+
+    // Same result with a different node count, used to report the nodes of every thread of a parallel search
+    SearchResult withNodes(final long totalNodes) {
+        return new SearchResult(this.rootBoard, this.bestMove, this.score, this.depth, totalNodes, this.elapsedNanos,
+                                this.principalVariation);
+    }
+
+    public Move getBestMove() { // null when the side to move has no legal move at all
+        return this.bestMove == PackedMove.NO_MOVE ? null : PackedMove.toMove(this.rootBoard, this.bestMove);
+    }
+
+    public int getBestPackedMove() {
+        return this.bestMove;
+    }
+
+    public int getScore() { // Centipawns for the side to move at the root, see AlphaBetaSearch.MATE_SCORE for mates
+        return this.score;
+    }
+
+    public int getDepth() { // Deepest iteration that finished, 0 for a move out of the opening book
+        return this.depth;
+    }
+
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    public long getElapsedMillis() {
+        return this.elapsedNanos / 1_000_000L;
+    }
+
+    public long getNodesPerSecond() {
+        return this.nodes * 1_000_000_000L / Math.max(1L, this.elapsedNanos);
+    }
+
+    public int[] getPackedPrincipalVariation() {
+        return this.principalVariation.clone();
+    }
+
+    // The expected line of play, each move made against the board it is played on
+    public List<Move> getPrincipalVariation() {
+        final List<Move> line = new ArrayList<>(this.principalVariation.length);
+        final SearchBoard board = new SearchBoard(this.rootBoard);
+        for (final int move : this.principalVariation) {
+            line.add(PackedMove.toMove(board.toBoard(), move));
+            board.makeMove(move);
+        }
+        return Collections.unmodifiableList(line);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("depth ").append(this.depth)
+               .append(" score ").append(this.score)
+               .append(" nodes ").append(this.nodes)
+               .append(" nps ").append(getNodesPerSecond())
+               .append(" time ").append(getElapsedMillis())
+               .append(" pv");
+        for (final int move : this.principalVariation) {
+            builder.append(' ').append(PackedMove.toString(move));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package com.chess.engine.search;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import static com.chess.engine.board.PieceSquareTables.endgame;
+import static com.chess.engine.board.PieceSquareTables.middlegame;
+import static com.chess.engine.board.PieceSquareTables.score;
+
+/*
+* The full evaluation: material and piece-square tables, mobility, pawn structure and king safety.
+*
+* Every term produces a middlegame and an endgame score (packed into one int, see PieceSquareTables) and the two are
+* blended by the game phase at the end, so a term can matter in one part of the game and not the other without a jump
+* in the score as pieces come off. The phase counts the minor and major pieces left, all of them is pure middlegame and
+* none is pure endgame.
+*
+* Material and placement come straight from SearchBoard, which keeps that sum up to date move by move. Pawn structure
+* goes through a PawnHashTable keyed by the pawn-only key, since the pawns rarely change from one leaf to the next. The
+* rest is worked out from the bitboards with the attack tables, nothing is allocated, so it can run at every leaf.
+*
+* Holds its own pawn cache, so use one evaluator per search thread.
+* */
+
+public final class StandardEvaluator implements PositionEvaluator {
+
+    // Game phase, how much of each piece type is still on the board
+    private static final int KNIGHT_PHASE = 1;
+    private static final int BISHOP_PHASE = 1;
+    private static final int ROOK_PHASE = 2;
+    private static final int QUEEN_PHASE = 4;
+    private static final int MAX_PHASE = 4 * KNIGHT_PHASE + 4 * BISHOP_PHASE + 4 * ROOK_PHASE + 2 * QUEEN_PHASE; // 24
+
+    // Mobility, per tile a piece can go to past the number it usually has. Tiles held by our own pieces or covered by
+    // enemy pawns do not count
+    private static final int KNIGHT_MOBILITY = score(4, 4);
+    private static final int BISHOP_MOBILITY = score(5, 5);
+    private static final int ROOK_MOBILITY = score(2, 4);
+    private static final int QUEEN_MOBILITY = score(1, 2);
+    private static final int KNIGHT_TYPICAL_MOBILITY = 4;
+    private static final int BISHOP_TYPICAL_MOBILITY = 6;
+    private static final int ROOK_TYPICAL_MOBILITY = 7;
+    private static final int QUEEN_TYPICAL_MOBILITY = 13;
+
+    // King safety, middlegame only: once the queens are off there is not much left to mate with
+    private static final int PAWN_SHIELD = score(12, 0); // For each own pawn just in front of the king
+    private static final int KNIGHT_ATTACK_WEIGHT = 2; // Per tile next to the enemy king a piece attacks
+    private static final int BISHOP_ATTACK_WEIGHT = 2;
+    private static final int ROOK_ATTACK_WEIGHT = 3;
+    private static final int QUEEN_ATTACK_WEIGHT = 5;
+    private static final int MAX_KING_DANGER = 500;
+
+    private static final int DEFAULT_PAWN_HASH_KILOBYTES = 1024;
+
+    private final PawnHashTable pawnHashTable; // Null to work the pawn structure out every time
+
+    public StandardEvaluator(final PawnHashTable pawnHashTable) {
+        this.pawnHashTable = pawnHashTable;
+    }
+
+    public StandardEvaluator() {
+        this(new PawnHashTable(DEFAULT_PAWN_HASH_KILOBYTES));
+    }
+
+    public PawnHashTable getPawnHashTable() { // For the hit and miss counts, null when running without a cache
+        return this.pawnHashTable;
+    }
+
+    @Override
+    public int evaluate(final SearchBoard board) {
+        final long whitePawns = board.getPieceBitBoard(Alliance.WHITE, PieceType.PAWN);
+        final long blackPawns = board.getPieceBitBoard(Alliance.BLACK, PieceType.PAWN);
+
+        int score = board.getPieceSquareScore();
+        score += this.pawnHashTable != null ? this.pawnHashTable.probe(board.getPawnKey(), whitePawns, blackPawns) :
+                                              PawnStructure.evaluate(whitePawns, blackPawns);
+        score += evaluatePieces(board, Alliance.WHITE, blackPawns) - evaluatePieces(board, Alliance.BLACK, whitePawns);
+
+        final int phase = Math.min(MAX_PHASE, gamePhase(board)); // Promotions can push the count over the top
+        final int tapered = (middlegame(score) * phase + endgame(score) * (MAX_PHASE - phase)) / MAX_PHASE;
+        return board.getMoveMaker().isWhite() ? tapered : -tapered;
+    }
+
+    // Mobility and king safety for one side, both come out of one pass over its pieces' attacks
+    private static int evaluatePieces(final SearchBoard board, final Alliance alliance, final long enemyPawns) {
+        final Alliance enemy = alliance.getOpposite();
+        final long occupancy = board.getOccupancy();
+        final long mobilityArea = ~board.getOccupancy(alliance) & ~AttackTables.allPawnAttacks(enemy, enemyPawns);
+        final long enemyKing = board.getPieceBitBoard(enemy, PieceType.KING);
+        final long enemyKingZone = enemyKing == 0 ? 0L : AttackTables.kingAttacks(Long.numberOfTrailingZeros(enemyKing));
+
+        int score = 0;
+        int kingAttackUnits = 0;
+        int kingAttackers = 0;
+
+        long pieces = board.getPieceBitBoard(alliance, PieceType.KNIGHT);
+        while (pieces != 0) {
+            final long attacks = AttackTables.knightAttacks(Long.numberOfTrailingZeros(pieces));
+            score += (Long.bitCount(attacks & mobilityArea) - KNIGHT_TYPICAL_MOBILITY) * KNIGHT_MOBILITY;
+            final int zoneAttacks = Long.bitCount(attacks & enemyKingZone);
+            kingAttackUnits += zoneAttacks * KNIGHT_ATTACK_WEIGHT;
+            kingAttackers += zoneAttacks != 0 ? 1 : 0;
+            pieces &= pieces - 1;
+        }
+        pieces = board.getPieceBitBoard(alliance, PieceType.BISHOP);
+        while (pieces != 0) {
+            final long attacks = AttackTables.bishopAttacks(Long.numberOfTrailingZeros(pieces), occupancy);
+            score += (Long.bitCount(attacks & mobilityArea) - BISHOP_TYPICAL_MOBILITY) * BISHOP_MOBILITY;
+            final int zoneAttacks = Long.bitCount(attacks & enemyKingZone);
+            kingAttackUnits += zoneAttacks * BISHOP_ATTACK_WEIGHT;
+            kingAttackers += zoneAttacks != 0 ? 1 : 0;
+            pieces &= pieces - 1;
+        }
+        pieces = board.getPieceBitBoard(alliance, PieceType.ROOK);
+        while (pieces != 0) {
+            final long attacks = AttackTables.rookAttacks(Long.numberOfTrailingZeros(pieces), occupancy);
+            score += (Long.bitCount(attacks & mobilityArea) - ROOK_TYPICAL_MOBILITY) * ROOK_MOBILITY;
+            final int zoneAttacks = Long.bitCount(attacks & enemyKingZone);
+            kingAttackUnits += zoneAttacks * ROOK_ATTACK_WEIGHT;
+            kingAttackers += zoneAttacks != 0 ? 1 : 0;
+            pieces &= pieces - 1;
+        }
+        pieces = board.getPieceBitBoard(alliance, PieceType.QUEEN);
+        while (pieces != 0) {
+            final long attacks = AttackTables.queenAttacks(Long.numberOfTrailingZeros(pieces), occupancy);
+            score += (Long.bitCount(attacks & mobilityArea) - QUEEN_TYPICAL_MOBILITY) * QUEEN_MOBILITY;
+            final int zoneAttacks = Long.bitCount(attacks & enemyKingZone);
+            kingAttackUnits += zoneAttacks * QUEEN_ATTACK_WEIGHT;
+            kingAttackers += zoneAttacks != 0 ? 1 : 0;
+            pieces &= pieces - 1;
+        }
+
+        // One piece near the king is not an attack yet, two or more working together are, and they get dangerous fast
+        if (kingAttackers >= 2) {
+            score += score(Math.min(MAX_KING_DANGER, kingAttackUnits * kingAttackUnits / 2), 0);
+        }
+        return score + pawnShield(board, alliance);
+    }
+
+    // Own pawns on the two rows in front of the king, on its file and the files either side
+    private static int pawnShield(final SearchBoard board, final Alliance alliance) {
+        final long king = board.getPieceBitBoard(alliance, PieceType.KING);
+        if (king == 0) {
+            return 0;
+        }
+        // The three tiles just in front of the king are the ones a pawn there would attack plus the one it would push to
+        final long inFront = AttackTables.allPawnAttacks(alliance, king) | (alliance.isWhite() ? king >>> 8 : king << 8);
+        final long shield = inFront | (alliance.isWhite() ? inFront >>> 8 : inFront << 8);
+        return Long.bitCount(shield & board.getPieceBitBoard(alliance, PieceType.PAWN)) * PAWN_SHIELD;
+    }
+
+    private static int gamePhase(final SearchBoard board) {
+        return KNIGHT_PHASE * Long.bitCount(board.getPieceBitBoard(Alliance.WHITE, PieceType.KNIGHT)) +
+               KNIGHT_PHASE * Long.bitCount(board.getPieceBitBoard(Alliance.BLACK, PieceType.KNIGHT)) +
+               BISHOP_PHASE * Long.bitCount(board.getPieceBitBoard(Alliance.WHITE, PieceType.BISHOP)) +
+               BISHOP_PHASE * Long.bitCount(board.getPieceBitBoard(Alliance.BLACK, PieceType.BISHOP)) +
+               ROOK_PHASE * Long.bitCount(board.getPieceBitBoard(Alliance.WHITE, PieceType.ROOK)) +
+               ROOK_PHASE * Long.bitCount(board.getPieceBitBoard(Alliance.BLACK, PieceType.ROOK)) +
+               QUEEN_PHASE * Long.bitCount(board.getPieceBitBoard(Alliance.WHITE, PieceType.QUEEN)) +
+               QUEEN_PHASE * Long.bitCount(board.getPieceBitBoard(Alliance.BLACK, PieceType.QUEEN));
+    }
+}
@@ -0,0 +1,164 @@
+package com.chess.engine.search;
+
+import com.chess.engine.board.PackedMove;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/*
+* A fixed size transposition table shared by every search thread, without any locks.
+*
+* Each entry is two longs in one big long[]: the position key XORed with the data, and the data itself. The data packs
+* the best move, score, depth, bound type and the age of the search that wrote it. Two threads can write the same entry
+* at once and leave the key half from one write and the data half from the other, but then (key ^ data) no longer gives
+* back the probed key, so the torn entry just reads as a miss instead of handing out a wrong score.
+*
+* Entries are grouped in buckets of four (64 bytes, one cache line). A store goes to the entry already holding the
+* position if there is one, otherwise it replaces the entry least worth keeping: shallow entries and entries left over
+* from older searches go first.
+* */
+
+public final class TranspositionTable {
+
+    public static final long NO_ENTRY = 0L; // What probe returns on a miss
+
+    // Bound types, what the stored score means
+    public static final int BOUND_UPPER = 1; // Score is at most this (every move failed low)
+    public static final int BOUND_LOWER = 2; // Score is at least this (a move failed high)
+    public static final int BOUND_EXACT = 3;
+
+    private static final int ENTRIES_PER_BUCKET = 4;
+    private static final int LONGS_PER_ENTRY = 2;
+    private static final int BYTES_PER_ENTRY = LONGS_PER_ENTRY * Long.BYTES;
+
+    // Layout of the data long
+    private static final int MOVE_BITS = 22;
+    private static final int SCORE_SHIFT = 22;
+    private static final int DEPTH_SHIFT = 38;
+    private static final int BOUND_SHIFT = 46;
+    private static final int AGE_SHIFT = 48;
+    private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+    private static final int AGE_MASK = 0x3F;
+
+    // Opaque access makes every single long read and write atomic, which plain long[] access does not promise
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] slots;
+    private final int bucketMask;
+    private volatile int age; // Bumped at the start of every search
+
+    public TranspositionTable(final int sizeInMegabytes) {
+        final long requestedEntries = Math.max(ENTRIES_PER_BUCKET, (long) sizeInMegabytes * 1024L * 1024L / BYTES_PER_ENTRY);
+        // Round the bucket count down to a power of two so the bucket is found with a mask rather than a division,
+        // and keep the long[] under the maximum array length
+        final long buckets = Long.highestOneBit(Math.min(requestedEntries / ENTRIES_PER_BUCKET,
+                                                         Integer.MAX_VALUE / (ENTRIES_PER_BUCKET * LONGS_PER_ENTRY)));
+        this.slots = new long[(int) buckets * ENTRIES_PER_BUCKET * LONGS_PER_ENTRY];
+        this.bucketMask = (int) buckets - 1;
+    }
+
+    public void newSearch() { // Marks everything stored so far as older, so it gets replaced first
+        this.age = (this.age + 1) & AGE_MASK;
+    }
+
+    public void clear() {
+        Arrays.fill(this.slots, 0L);
+        this.age = 0;
+    }
+
+    public int getSizeInMegabytes() {
+        return (int) ((long) this.slots.length * Long.BYTES / (1024L * 1024L));
+    }
+
+    // The data stored for this key, or NO_ENTRY, read it with the static getters below
+    public long probe(final long key) {
+        final int bucketStart = bucketStart(key);
+        for (int slot = bucketStart; slot < bucketStart + ENTRIES_PER_BUCKET * LONGS_PER_ENTRY; slot += LONGS_PER_ENTRY) {
+            final long data = (long) SLOTS.getOpaque(this.slots, slot + 1);
+            if (data != NO_ENTRY && ((long) SLOTS.getOpaque(this.slots, slot) ^ data) == key) {
+                return data;
+            }
+        }
+        return NO_ENTRY;
+    }
+
+    public void store(final long key, int move, final int score, final int depth, final int bound) {
+        final int bucketStart = bucketStart(key);
+        final int currentAge = this.age;
+        int replaceSlot = bucketStart;
+        int lowestWorth = Integer.MAX_VALUE;
+        for (int slot = bucketStart; slot < bucketStart + ENTRIES_PER_BUCKET * LONGS_PER_ENTRY; slot += LONGS_PER_ENTRY) {
+            final long data = (long) SLOTS.getOpaque(this.slots, slot + 1);
+            if (data == NO_ENTRY) { // An empty entry is always the best place to go
+                replaceSlot = slot;
+                break;
+            }
+            if (((long) SLOTS.getOpaque(this.slots, slot) ^ data) == key) { // Same position, overwrite it
+                if (move == PackedMove.NO_MOVE) {
+                    move = getMove(data); // Keep the old best move rather than forget it
+                }
+                replaceSlot = slot;
+                break;
+            }
+            // How much this entry is worth keeping: deeper is better, every search it has sat unused counts against it
+            final int relativeAge = (currentAge - getAge(data)) & AGE_MASK;
+            final int worth = getDepth(data) - 8 * relativeAge;
+            if (worth < lowestWorth) {
+                lowestWorth = worth;
+                replaceSlot = slot;
+            }
+        }
+        final long data = pack(move, score, depth, bound, currentAge);
+        SLOTS.setOpaque(this.slots, replaceSlot, key ^ data);
+        SLOTS.setOpaque(this.slots, replaceSlot + 1, data);
+    }
+
+    // Roughly how full the table is, in parts per thousand, from a sample of the first thousand entries
+    public int getPermilleFull() {
+        final int sampledEntries = Math.min(1000, this.slots.length / LONGS_PER_ENTRY);
+        int used = 0;
+        for (int entry = 0; entry < sampledEntries; entry++) {
+            final long data = (long) SLOTS.getOpaque(this.slots, entry * LONGS_PER_ENTRY + 1);
+            if (data != NO_ENTRY && getAge(data) == this.age) {
+                used++;
+            }
+        }
+        return used * 1000 / sampledEntries;
+    }
+
+    private int bucketStart(final long key) {
+        return ((int) key & this.bucketMask) * ENTRIES_PER_BUCKET * LONGS_PER_ENTRY;
+    }
+
+    // *****************************************************************************************************************************
+    //                          Packing and unpacking the data long
+
+    private static long pack(final int move, final int score, final int depth, final int bound, final int age) {
+        return (move & MOVE_MASK) |
+               ((long) (score & 0xFFFF) << SCORE_SHIFT) |
+               ((long) (depth & 0xFF) << DEPTH_SHIFT) |
+               ((long) bound << BOUND_SHIFT) |
+               ((long) age << AGE_SHIFT);
+    }
+
+    public static int getMove(final long entry) {
+        return (int) (entry & MOVE_MASK);
+    }
+
+    public static int getScore(final long entry) {
+        return (short) (entry >>> SCORE_SHIFT); // Cast through short to get the sign back
+    }
+
+    public static int getDepth(final long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int getBound(final long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+    private static int getAge(final long entry) {
+        return (int) (entry >>> AGE_SHIFT) & AGE_MASK;
+    }
+}
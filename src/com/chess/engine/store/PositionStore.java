@@ -0,0 +1,227 @@
+package com.chess.engine.store;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Position;
+import com.chess.engine.board.PositionEncoding;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+* Positions kept in a memory-mapped file, found by Zobrist key.
+*
+* The file is a 64 byte header and then a hash table of 32 byte records: the position's Zobrist key and its 24 byte
+* PositionEncoding. The table size is a power of two fixed when the file is made; a key's home slot is its low bits and
+* a taken slot moves on to the next one (linear probing). A key of 0 marks an empty slot, so the one position in 2^64
+* whose key is 0 cannot be stored.
+*
+*   header   bytes 0-7 MAGIC, 8-15 the number of slots, 16-23 the number of records stored
+*   record   bytes 0-7 Zobrist key, 8-31 the encoded position
+*
+* Nothing is read into the heap: lookups and scans read the mapped pages in place and hand the visitor the buffer and
+* offset of the encoded position, so a caller that only wants, say, the occupancy or the side to move reads just that
+* with PositionEncoding and never builds a Board. The file is mapped in pieces of at most 1 GB, so it can be bigger
+* than one mapping allows. Little endian throughout.
+*
+* Reading from many threads is fine while nobody writes; put() is for one thread at a time. Records are never removed.
+* The mapping stays until it is garbage collected, close() only flushes and closes the file.
+* */
+
+public final class PositionStore implements Closeable {
+
+    public static final long MAGIC = 0x315354534F505343L; // "CSPOSTS1" read little endian
+
+    public static final int RECORD_SIZE = Long.BYTES + PositionEncoding.ENCODED_SIZE;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_COUNT_OFFSET = 8;
+    private static final int RECORD_COUNT_OFFSET = 16;
+    private static final int SLOTS_PER_SEGMENT_SHIFT = 25; // 2^25 records of 32 bytes is 1 GB per mapping
+    private static final long EMPTY_SLOT = 0L;
+    private static final int MAX_LOAD_PERCENT = 75; // Past this probes get long, so make a bigger store
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final long slotMask;
+    private final int segmentMask;
+    private long recordCount;
+
+    // Records reach the visitor this way: the key, and where its encoded position is. The buffer is the mapping itself,
+    // read it at absolute offsets and do not keep it past the call
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(long zobristKey, ByteBuffer buffer, int offset);
+    }
+
+    private PositionStore(final FileChannel channel, final long slotCount, final long recordCount) throws IOException {
+        this.channel = channel;
+        this.header = map(channel, 0L, HEADER_SIZE);
+        final int slotsPerSegment = (int) Math.min(slotCount, 1L << SLOTS_PER_SEGMENT_SHIFT);
+        this.segments = new MappedByteBuffer[(int) (slotCount / slotsPerSegment)];
+        for (int i = 0; i < this.segments.length; i++) {
+            this.segments[i] = map(channel, HEADER_SIZE + (long) i * slotsPerSegment * RECORD_SIZE, (long) slotsPerSegment * RECORD_SIZE);
+        }
+        this.slotMask = slotCount - 1;
+        this.segmentMask = slotsPerSegment - 1;
+        this.recordCount = recordCount;
+    }
+
+    private static MappedByteBuffer map(final FileChannel channel, final long position, final long size) throws IOException {
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    // A new, empty store with room for at least the given number of positions. An existing file is overwritten
+    public static PositionStore create(final Path path, final long expectedPositions) throws IOException {
+        final long wantedSlots = Math.max(2L, expectedPositions * 100 / MAX_LOAD_PERCENT + 1);
+        final long slotCount = Long.highestOneBit(wantedSlots - 1) << 1; // Next power of two
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                     StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try { // Mapping past the end grows the file with zeros, which is every slot empty
+            final PositionStore store = new PositionStore(channel, slotCount, 0L);
+            store.header.putLong(0, MAGIC);
+            store.header.putLong(SLOT_COUNT_OFFSET, slotCount);
+            store.header.putLong(RECORD_COUNT_OFFSET, 0L);
+            return store;
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static PositionStore open(final Path path) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0L);
+            final long slotCount = header.getLong(SLOT_COUNT_OFFSET);
+            if (header.hasRemaining() || header.getLong(0) != MAGIC || Long.bitCount(slotCount) != 1 ||
+                channel.size() < HEADER_SIZE + slotCount * RECORD_SIZE) {
+                throw new IOException("Not a position store: " + path);
+            }
+            return new PositionStore(channel, slotCount, header.getLong(RECORD_COUNT_OFFSET));
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // *****************************************************************************************************************************
+    //                          Writing
+
+    // Stores the position under its Zobrist key, replacing what was there for that key. True if the key is new
+    public boolean put(final Position position) {
+        final long key = position.getZobristKey();
+        if (key == EMPTY_SLOT) {
+            throw new IllegalArgumentException("A position with Zobrist key 0 cannot be stored");
+        }
+        long slot = find(key);
+        final boolean added = slot < 0;
+        if (added) {
+            if ((this.recordCount + 1) * 100 > capacity() * MAX_LOAD_PERCENT) {
+                throw new RuntimeException("Position store is full at " + this.recordCount + " positions");
+            }
+            slot = -slot - 1;
+        }
+        final ByteBuffer segment = segment(slot);
+        final int offset = offset(slot);
+        PositionEncoding.encode(position, segment, offset + Long.BYTES);
+        segment.putLong(offset, key); // Key last, so the slot only looks taken once the position is there
+        if (added) {
+            this.header.putLong(RECORD_COUNT_OFFSET, ++this.recordCount);
+        }
+        return added;
+    }
+
+    // Writes every change out to the file
+    public void force() {
+        for (final MappedByteBuffer segment : this.segments) {
+            segment.force();
+        }
+        this.header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        this.channel.close();
+    }
+
+    // *****************************************************************************************************************************
+    //                          Reading
+
+    public boolean contains(final long zobristKey) {
+        return zobristKey != EMPTY_SLOT && find(zobristKey) >= 0;
+    }
+
+    // Hands the record for the key to the visitor, if there is one. True if it was found
+    public boolean lookup(final long zobristKey, final RecordVisitor visitor) {
+        final long slot = zobristKey == EMPTY_SLOT ? -1L : find(zobristKey);
+        if (slot < 0) {
+            return false;
+        }
+        visitor.visit(zobristKey, segment(slot), offset(slot) + Long.BYTES);
+        return true;
+    }
+
+    // The whole Board for the key, or null. Decoding makes a Board, so only for when one is really wanted
+    public Board get(final long zobristKey) {
+        final long slot = zobristKey == EMPTY_SLOT ? -1L : find(zobristKey);
+        return slot < 0 ? null : PositionEncoding.decode(segment(slot), offset(slot) + Long.BYTES);
+    }
+
+    // Every record in file order, which is the fastest way through the file. Returns how many were visited
+    public long scan(final RecordVisitor visitor) {
+        long visited = 0L;
+        for (final MappedByteBuffer segment : this.segments) {
+            final int end = segment.capacity();
+            for (int offset = 0; offset < end; offset += RECORD_SIZE) {
+                final long key = segment.getLong(offset);
+                if (key != EMPTY_SLOT) {
+                    visitor.visit(key, segment, offset + Long.BYTES);
+                    visited++;
+                }
+            }
+        }
+        return visited;
+    }
+
+    public long size() {
+        return this.recordCount;
+    }
+
+    public long capacity() { // Slots in the table, a little more than the positions it will take
+        return this.slotMask + 1;
+    }
+
+    // The slot holding the key, or -(empty slot where it would go) - 1 when it is not there
+    private long find(final long key) {
+        long slot = key & this.slotMask;
+        while (true) {
+            final long slotKey = segment(slot).getLong(offset(slot));
+            if (slotKey == key) {
+                return slot;
+            }
+            if (slotKey == EMPTY_SLOT) {
+                return -slot - 1;
+            }
+            slot = (slot + 1) & this.slotMask;
+        }
+    }
+
+    private ByteBuffer segment(final long slot) {
+        return this.segments[(int) (slot >>> SLOTS_PER_SEGMENT_SHIFT)];
+    }
+
+    private int offset(final long slot) {
+        return ((int) slot & this.segmentMask) * RECORD_SIZE;
+    }
+}